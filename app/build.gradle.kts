@@ -53,10 +53,25 @@ dependencies {
     implementation(libs.firebase.firestore)
     implementation(libs.firebase.storage)
 
+    // Local cache
+    implementation(libs.room.runtime)
+    annotationProcessor(libs.room.compiler)
+
+    // Paged recipe loading
+    implementation(libs.paging.runtime)
+    implementation(libs.paging.guava)
+    implementation(libs.concurrent.futures)
+
+    // Background precomputation
+    implementation(libs.work.runtime)
+    androidTestImplementation(libs.work.testing)
+
     // UI component libraries
     implementation("androidx.recyclerview:recyclerview:1.3.2")
     implementation("androidx.swiperefreshlayout:swiperefreshlayout:1.1.0")
     implementation("com.github.bumptech.glide:glide:4.16.0")
+    annotationProcessor(libs.glide.compiler)
+    implementation(libs.glide.recyclerview)
 
     // Maps and Location Services - COMMENTED OUT
      implementation("com.google.android.gms:play-services-maps:18.2.0")
@@ -0,0 +1,167 @@
+package com.example.mealmate.data.repository;
+
+import android.content.Context;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.example.mealmate.data.model.MealPlan;
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.FirebaseApp;
+import com.google.firebase.auth.FirebaseAuth;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.Source;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.GregorianCalendar;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Instrumented tests of {@link MealPlanRepository#patchMealPlanDays} against the
+ * Firestore and Auth emulators: two clients signed in as the same user patch
+ * the same stored plan concurrently, and the edits of both must be kept.
+ * <p>
+ * Start the emulators on the host first ({@code firebase emulators:start
+ * --only firestore,auth}); the tests are skipped when they are not reachable.
+ */
+@RunWith(AndroidJUnit4.class)
+public class MealPlanPatchEmulatorTest {
+
+    // The host machine as seen from the Android emulator
+    private static final String EMULATOR_HOST = "10.0.2.2";
+    private static final int FIRESTORE_PORT = 8080;
+    private static final int AUTH_PORT = 9099;
+    private static final long TIMEOUT_SECONDS = 30;
+    private static final String PASSWORD = "emulator-password";
+
+    private final List<FirebaseApp> apps = new ArrayList<>();
+    private MealPlanRepository firstEditor;
+    private MealPlanRepository secondEditor;
+    private FirebaseFirestore secondFirestore;
+    private String planId;
+
+    @Before
+    public void setUp() throws Exception {
+        assumeTrue(isReachable(FIRESTORE_PORT) && isReachable(AUTH_PORT));
+
+        Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        String email = "editor-" + UUID.randomUUID() + "@example.com";
+
+        FirebaseApp firstApp = newClientApp(context);
+        FirebaseAuth firstAuth = FirebaseAuth.getInstance(firstApp);
+        await(firstAuth.createUserWithEmailAndPassword(email, PASSWORD));
+        firstEditor = new MealPlanRepository(context, FirebaseFirestore.getInstance(firstApp), firstAuth);
+
+        FirebaseApp secondApp = newClientApp(context);
+        FirebaseAuth secondAuth = FirebaseAuth.getInstance(secondApp);
+        await(secondAuth.signInWithEmailAndPassword(email, PASSWORD));
+        secondFirestore = FirebaseFirestore.getInstance(secondApp);
+        secondEditor = new MealPlanRepository(context, secondFirestore, secondAuth);
+
+        Map<String, List<String>> days = new HashMap<>();
+        days.put("Monday", new ArrayList<>(Arrays.asList("r1", "r2")));
+        MealPlan plan = new MealPlan(null, "Week of 01/05 - 01/11",
+                MealPlanRepository.weekStartOf(new GregorianCalendar(2026, Calendar.JANUARY, 5)));
+        plan.setDays(days);
+        planId = await(firstEditor.saveMealPlan(plan)).getPlanId();
+    }
+
+    @After
+    public void tearDown() {
+        for (FirebaseApp app : apps) {
+            app.delete();
+        }
+        apps.clear();
+    }
+
+    @Test
+    public void concurrentPatches_keepTheEditsOfBothClients() throws Exception {
+        // Both clients start from the stored plan and save at the same time
+        Task<Void> first = firstEditor.patchMealPlanDays(planId, new MealPlanPatch()
+                .add("Monday", "r3")
+                .remove("Monday", "r1"));
+        Task<Void> second = secondEditor.patchMealPlanDays(planId, new MealPlanPatch()
+                .add("Monday", "r4")
+                .add("Wednesday", "r5"));
+        await(Tasks.whenAll(first, second));
+
+        MealPlan stored = storedPlan();
+        assertEquals(new HashSet<>(Arrays.asList("r2", "r3", "r4")), new HashSet<>(stored.getDays().get("Monday")));
+        assertEquals(Collections.singletonList("r5"), stored.getDays().get("Wednesday"));
+    }
+
+    @Test
+    public void concurrentPatches_ofTheSameRecipe_addItOnce() throws Exception {
+        Task<Void> first = firstEditor.patchMealPlanDays(planId, new MealPlanPatch().add("Tuesday", "r3"));
+        Task<Void> second = secondEditor.patchMealPlanDays(planId, new MealPlanPatch().add("Tuesday", "r3"));
+        await(Tasks.whenAll(first, second));
+
+        assertEquals(Collections.singletonList("r3"), storedPlan().getDays().get("Tuesday"));
+    }
+
+    @Test
+    public void removalOnOneClient_andAdditionOnTheOther_areBothApplied() throws Exception {
+        Task<Void> first = firstEditor.patchMealPlanDays(planId, new MealPlanPatch().remove("Monday", "r2"));
+        Task<Void> second = secondEditor.patchMealPlanDays(planId, new MealPlanPatch().add("Monday", "r3"));
+        await(Tasks.whenAll(first, second));
+
+        assertEquals(new HashSet<>(Arrays.asList("r1", "r3")), new HashSet<>(storedPlan().getDays().get("Monday")));
+    }
+
+    /**
+     * Creates a separate Firebase app with its own Firestore client and cache,
+     * connected to the emulators.
+     */
+    private FirebaseApp newClientApp(Context context) {
+        FirebaseApp app = FirebaseApp.initializeApp(context, FirebaseApp.getInstance().getOptions(),
+                "client-" + UUID.randomUUID());
+        apps.add(app);
+        FirebaseFirestore.getInstance(app).useEmulator(EMULATOR_HOST, FIRESTORE_PORT);
+        FirebaseAuth.getInstance(app).useEmulator(EMULATOR_HOST, AUTH_PORT);
+        return app;
+    }
+
+    private MealPlan storedPlan() throws Exception {
+        DocumentSnapshot document = await(secondFirestore.collection("users")
+                .document(FirebaseAuth.getInstance(apps.get(1)).getUid())
+                .collection("mealPlans")
+                .document(planId)
+                .get(Source.SERVER));
+        assertTrue(document.exists());
+        return document.toObject(MealPlan.class);
+    }
+
+    private static <T> T await(Task<T> task) throws Exception {
+        return Tasks.await(task, TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    }
+
+    private static boolean isReachable(int port) {
+        try (Socket socket = new Socket()) {
+            socket.connect(new InetSocketAddress(EMULATOR_HOST, port), 1000);
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+}
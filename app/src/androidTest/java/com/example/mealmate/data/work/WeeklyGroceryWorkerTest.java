@@ -0,0 +1,116 @@
+package com.example.mealmate.data.work;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+import androidx.work.Configuration;
+import androidx.work.Constraints;
+import androidx.work.NetworkType;
+import androidx.work.WorkInfo;
+import androidx.work.WorkManager;
+import androidx.work.testing.SynchronousExecutor;
+import androidx.work.testing.TestDriver;
+import androidx.work.testing.WorkManagerTestInitHelper;
+
+import com.google.firebase.Timestamp;
+import com.google.firebase.auth.FirebaseAuth;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Calendar;
+import java.util.GregorianCalendar;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Instrumented tests of the scheduling of {@link WeeklyGroceryWorker}: one
+ * pending job per week and the constraints it waits for.
+ */
+@RunWith(AndroidJUnit4.class)
+public class WeeklyGroceryWorkerTest {
+
+    private static final Timestamp WEEK = weekStart(5);
+    private static final Timestamp NEXT_WEEK = weekStart(12);
+
+    private Context context;
+    private WorkManager workManager;
+
+    @Before
+    public void setUp() {
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        Configuration config = new Configuration.Builder()
+                .setMinimumLoggingLevel(Log.DEBUG)
+                .setExecutor(new SynchronousExecutor())
+                .build();
+        WorkManagerTestInitHelper.initializeTestWorkManager(context, config);
+        workManager = WorkManager.getInstance(context);
+    }
+
+    @Test
+    public void enqueue_sameWeek_replacesPendingJob() throws Exception {
+        WeeklyGroceryWorker.enqueue(context, WEEK);
+        UUID firstId = singleWorkInfo(WEEK).getId();
+
+        WeeklyGroceryWorker.enqueue(context, WEEK);
+        WorkInfo replacement = singleWorkInfo(WEEK);
+
+        assertNotEquals(firstId, replacement.getId());
+        assertEquals(WorkInfo.State.ENQUEUED, replacement.getState());
+        WorkInfo first = workManager.getWorkInfoById(firstId).get();
+        assertTrue(first == null || first.getState() == WorkInfo.State.CANCELLED);
+    }
+
+    @Test
+    public void enqueue_otherWeek_keepsBothJobs() throws Exception {
+        WeeklyGroceryWorker.enqueue(context, WEEK);
+        WeeklyGroceryWorker.enqueue(context, NEXT_WEEK);
+
+        assertNotEquals(WeeklyGroceryWorker.uniqueWorkName(WEEK), WeeklyGroceryWorker.uniqueWorkName(NEXT_WEEK));
+        assertEquals(WorkInfo.State.ENQUEUED, singleWorkInfo(WEEK).getState());
+        assertEquals(WorkInfo.State.ENQUEUED, singleWorkInfo(NEXT_WEEK).getState());
+    }
+
+    @Test
+    public void enqueue_requiresNetworkAndBattery() throws Exception {
+        WeeklyGroceryWorker.enqueue(context, WEEK);
+
+        Constraints constraints = singleWorkInfo(WEEK).getConstraints();
+        assertEquals(NetworkType.CONNECTED, constraints.getRequiredNetworkType());
+        assertTrue(constraints.requiresBatteryNotLow());
+    }
+
+    @Test
+    public void job_runsOnlyOnceConstraintsAreMet() throws Exception {
+        // Without a signed-in user the job finishes without touching Firestore
+        assumeTrue(FirebaseAuth.getInstance().getCurrentUser() == null);
+
+        WeeklyGroceryWorker.enqueue(context, WEEK);
+        UUID id = singleWorkInfo(WEEK).getId();
+        assertEquals(WorkInfo.State.ENQUEUED, workManager.getWorkInfoById(id).get().getState());
+
+        TestDriver testDriver = WorkManagerTestInitHelper.getTestDriver(context);
+        assertNotNull(testDriver);
+        testDriver.setAllConstraintsMet(id);
+
+        assertTrue(workManager.getWorkInfoById(id).get().getState().isFinished());
+    }
+
+    private WorkInfo singleWorkInfo(Timestamp weekStartDate) throws Exception {
+        List<WorkInfo> workInfos = workManager
+                .getWorkInfosForUniqueWork(WeeklyGroceryWorker.uniqueWorkName(weekStartDate))
+                .get();
+        assertEquals(1, workInfos.size());
+        return workInfos.get(0);
+    }
+
+    private static Timestamp weekStart(int dayOfJanuary) {
+        return new Timestamp(new GregorianCalendar(2026, Calendar.JANUARY, dayOfJanuary).getTime());
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.mealmate.data.local;
+
+import androidx.room.Dao;
+import androidx.room.Insert;
+import androidx.room.Query;
+import androidx.room.Transaction;
+
+import java.util.List;
+
+/**
+ * Data access object for the precomputed weekly grocery lists.
+ * All methods are blocking and must be called off the main thread.
+ */
+@Dao
+public abstract class GroceryDao {
+
+    @Query("SELECT * FROM weekly_grocery_items WHERE userId = :userId AND weekId = :weekId "
+            + "AND planSignature = :planSignature ORDER BY category, name")
+    public abstract List<WeeklyGroceryItemEntity> getWeekItems(String userId, String weekId, String planSignature);
+
+    /**
+     * Returns the weeks with a precomputed list from a given week on. Week IDs
+     * in ISO week notation sort chronologically.
+     */
+    @Query("SELECT DISTINCT weekId FROM weekly_grocery_items WHERE userId = :userId AND weekId >= :fromWeekId")
+    public abstract List<String> getWeekIdsFrom(String userId, String fromWeekId);
+
+    @Query("DELETE FROM weekly_grocery_items WHERE userId = :userId AND weekId = :weekId")
+    public abstract void deleteWeekItems(String userId, String weekId);
+
+    @Insert
+    public abstract void insertWeekItems(List<WeeklyGroceryItemEntity> items);
+
+    /**
+     * Replaces the precomputed list of a week in a single transaction.
+     */
+    @Transaction
+    public void replaceWeekItems(String userId, String weekId, List<WeeklyGroceryItemEntity> items) {
+        deleteWeekItems(userId, weekId);
+        insertWeekItems(items);
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.mealmate.data.local;
+
+import com.example.mealmate.data.model.GroceryItem;
+import com.example.mealmate.data.repository.WeeklyGroceryList;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Local data source for the precomputed weekly grocery lists. Converts between
+ * the Room entities and the GroceryItem model.
+ * All methods are blocking and must run on {@link MealMateDatabase#databaseExecutor}
+ * or another background thread.
+ */
+public class GroceryLocalDataSource {
+
+    private final GroceryDao groceryDao;
+    private final RecipeLocalDataSource recipeLocalDataSource;
+
+    public GroceryLocalDataSource(MealMateDatabase database) {
+        this.groceryDao = database.groceryDao();
+        this.recipeLocalDataSource = new RecipeLocalDataSource(database);
+    }
+
+    /**
+     * Returns the signature of the planned recipes of a week, with the versions
+     * of the recipes known to the local recipe cache. A list precomputed
+     * before one of the recipes was edited then no longer matches.
+     *
+     * @param plannedCounts The number of planned days by recipe ID
+     * @return The signature (see {@link WeeklyGroceryList#signature})
+     */
+    public String planSignature(Map<String, Integer> plannedCounts) {
+        return WeeklyGroceryList.signature(plannedCounts,
+                recipeLocalDataSource.getRecipeVersions(plannedCounts.keySet()));
+    }
+
+    /**
+     * Returns the precomputed grocery list of a week if it was computed from the
+     * plan with the given signature, otherwise an empty list.
+     */
+    public List<GroceryItem> getWeekItems(String userId, String weekId, String planSignature) {
+        return toGroceryItems(groceryDao.getWeekItems(userId, weekId, planSignature));
+    }
+
+    /**
+     * Replaces the precomputed grocery list of a week.
+     *
+     * @param userId        The owner of the meal plan
+     * @param weekId        The ID of the meal plan's week
+     * @param planSignature The signature of the plan the items were computed from
+     * @param items         The consolidated items; their IDs must be set
+     */
+    public void replaceWeekItems(String userId, String weekId, String planSignature, List<GroceryItem> items) {
+        List<WeeklyGroceryItemEntity> entities = new ArrayList<>();
+        for (GroceryItem item : items) {
+            entities.add(WeeklyGroceryItemEntity.fromGroceryItem(userId, weekId, planSignature, item));
+        }
+        groceryDao.replaceWeekItems(userId, weekId, entities);
+    }
+
+    /**
+     * Returns the weeks from a given week on that have a precomputed grocery
+     * list.
+     *
+     * @param userId     The owner of the meal plans
+     * @param fromWeekId The ID of the first week to include
+     * @return The week IDs
+     */
+    public List<String> getPrecomputedWeekIds(String userId, String fromWeekId) {
+        return groceryDao.getWeekIdsFrom(userId, fromWeekId);
+    }
+
+    private static List<GroceryItem> toGroceryItems(List<WeeklyGroceryItemEntity> entities) {
+        List<GroceryItem> items = new ArrayList<>();
+        for (WeeklyGroceryItemEntity entity : entities) {
+            items.add(entity.toGroceryItem());
+        }
+        return items;
+    }
+}
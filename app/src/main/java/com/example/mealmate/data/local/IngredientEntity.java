@@ -0,0 +1,87 @@
+package com.example.mealmate.data.local;
+
+import androidx.annotation.NonNull;
+import androidx.room.Entity;
+import androidx.room.ForeignKey;
+import androidx.room.Index;
+
+import com.example.mealmate.data.model.Ingredient;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Room entity for one ingredient of a cached recipe. Rows are keyed by the
+ * owning recipe and their position in the recipe's ingredient list.
+ */
+@Entity(tableName = "ingredients",
+        primaryKeys = {"recipeId", "position"},
+        foreignKeys = @ForeignKey(entity = RecipeEntity.class,
+                parentColumns = "recipeId",
+                childColumns = "recipeId",
+                onDelete = ForeignKey.CASCADE),
+        indices = {@Index("recipeId")})
+public class IngredientEntity {
+
+    @NonNull
+    public String recipeId = "";
+    public int position;
+    public String name;
+    public double quantity;
+    public String unit;
+    public String category;
+
+    /**
+     * Creates the ingredient rows for a recipe.
+     *
+     * @param recipeId    The ID of the owning recipe
+     * @param ingredients The recipe's ingredients (may be null)
+     * @return One entity per ingredient, in list order
+     */
+    public static List<IngredientEntity> fromIngredients(String recipeId, List<Ingredient> ingredients) {
+        List<IngredientEntity> entities = new ArrayList<>();
+        if (ingredients == null) {
+            return entities;
+        }
+        for (int i = 0; i < ingredients.size(); i++) {
+            Ingredient ingredient = ingredients.get(i);
+            IngredientEntity entity = new IngredientEntity();
+            entity.recipeId = recipeId;
+            entity.position = i;
+            entity.name = ingredient.getName();
+            entity.quantity = ingredient.getQuantity();
+            entity.unit = ingredient.getUnit();
+            entity.category = ingredient.getCategory();
+            entities.add(entity);
+        }
+        return entities;
+    }
+
+    /**
+     * Converts this entity back into an Ingredient model.
+     *
+     * @return The matching ingredient
+     */
+    public Ingredient toIngredient() {
+        return new Ingredient(name, quantity, unit, category);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof IngredientEntity)) return false;
+        IngredientEntity that = (IngredientEntity) o;
+        return position == that.position
+                && Double.compare(quantity, that.quantity) == 0
+                && recipeId.equals(that.recipeId)
+                && Objects.equals(name, that.name)
+                && Objects.equals(unit, that.unit)
+                && Objects.equals(category, that.category);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(recipeId, position);
+    }
+}
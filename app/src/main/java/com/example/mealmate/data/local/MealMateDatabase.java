@@ -0,0 +1,52 @@
+package com.example.mealmate.data.local;
+
+import android.content.Context;
+
+import androidx.room.Database;
+import androidx.room.Room;
+import androidx.room.RoomDatabase;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Local Room database used as an offline-first cache in front of Firestore.
+ * Its contents can always be rebuilt from Firestore, so schema changes use a
+ * destructive migration.
+ */
+@Database(entities = {RecipeEntity.class, IngredientEntity.class, SyncStateEntity.class,
+        WeeklyGroceryItemEntity.class}, version = 9, exportSchema = false)
+public abstract class MealMateDatabase extends RoomDatabase {
+
+    private static final String DATABASE_NAME = "mealmate_cache.db";
+    private static volatile MealMateDatabase instance;
+
+    /**
+     * Executor for all blocking database work.
+     */
+    public static final ExecutorService databaseExecutor = Executors.newFixedThreadPool(2);
+
+    public abstract RecipeDao recipeDao();
+
+    public abstract GroceryDao groceryDao();
+
+    /**
+     * Returns the process-wide database instance.
+     *
+     * @param context Any context; the application context is retained
+     * @return The database
+     */
+    public static MealMateDatabase getInstance(Context context) {
+        if (instance == null) {
+            synchronized (MealMateDatabase.class) {
+                if (instance == null) {
+                    instance = Room.databaseBuilder(context.getApplicationContext(),
+                                    MealMateDatabase.class, DATABASE_NAME)
+                            .fallbackToDestructiveMigration()
+                            .build();
+                }
+            }
+        }
+        return instance;
+    }
+}
@@ -0,0 +1,120 @@
+package com.example.mealmate.data.local;
+
+import androidx.room.Dao;
+import androidx.room.Insert;
+import androidx.room.Query;
+import androidx.room.Transaction;
+import androidx.room.Upsert;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Data access object for the cached recipe and ingredient tables.
+ * All methods are blocking and must be called off the main thread.
+ */
+@Dao
+public abstract class RecipeDao {
+
+    @Query("SELECT * FROM recipes WHERE userId = :userId ORDER BY createdAtSeconds DESC, createdAtNanos DESC")
+    public abstract List<RecipeEntity> getRecipesForUser(String userId);
+
+    @Query("SELECT * FROM recipes WHERE userId = :userId "
+            + "ORDER BY createdAtSeconds DESC, createdAtNanos DESC, recipeId DESC LIMIT :limit")
+    public abstract List<RecipeEntity> getRecipePage(String userId, int limit);
+
+    /**
+     * Returns the page of a user's recipes that follows a recipe in the order
+     * of {@link #getRecipePage}.
+     */
+    @Query("SELECT * FROM recipes WHERE userId = :userId AND (createdAtSeconds < :createdAtSeconds "
+            + "OR (createdAtSeconds = :createdAtSeconds AND (createdAtNanos < :createdAtNanos "
+            + "OR (createdAtNanos = :createdAtNanos AND recipeId < :recipeId)))) "
+            + "ORDER BY createdAtSeconds DESC, createdAtNanos DESC, recipeId DESC LIMIT :limit")
+    public abstract List<RecipeEntity> getRecipePageAfter(String userId, long createdAtSeconds, int createdAtNanos,
+                                                          String recipeId, int limit);
+
+    @Query("SELECT * FROM recipes WHERE recipeId = :recipeId")
+    public abstract RecipeEntity getRecipe(String recipeId);
+
+    @Query("SELECT * FROM recipes WHERE recipeId IN (:recipeIds)")
+    public abstract List<RecipeEntity> getRecipes(Collection<String> recipeIds);
+
+    @Query("SELECT * FROM ingredients WHERE recipeId = :recipeId ORDER BY position")
+    public abstract List<IngredientEntity> getIngredients(String recipeId);
+
+    @Query("SELECT ingredients.* FROM ingredients INNER JOIN recipes ON ingredients.recipeId = recipes.recipeId "
+            + "WHERE recipes.userId = :userId ORDER BY ingredients.recipeId, ingredients.position")
+    public abstract List<IngredientEntity> getIngredientsForUser(String userId);
+
+    @Upsert
+    public abstract void upsertRecipes(List<RecipeEntity> recipes);
+
+    @Query("SELECT * FROM sync_state WHERE userId = :userId")
+    public abstract SyncStateEntity getSyncState(String userId);
+
+    @Upsert
+    public abstract void upsertSyncState(SyncStateEntity syncState);
+
+    @Insert
+    public abstract void insertIngredients(List<IngredientEntity> ingredients);
+
+    @Query("DELETE FROM ingredients WHERE recipeId = :recipeId")
+    public abstract void deleteIngredients(String recipeId);
+
+    @Query("DELETE FROM recipes WHERE recipeId IN (:recipeIds)")
+    public abstract void deleteRecipes(List<String> recipeIds);
+
+    /**
+     * Replaces the ingredient rows of a recipe.
+     */
+    @Transaction
+    public void replaceIngredients(String recipeId, List<IngredientEntity> ingredients) {
+        deleteIngredients(recipeId);
+        insertIngredients(ingredients);
+    }
+
+    /**
+     * Applies a set of changed rows in a single transaction.
+     *
+     * @param changedRecipes     Recipe rows that are new or modified
+     * @param changedIngredients Ingredient rows of recipes whose ingredients
+     *                           changed, grouped by recipe ID
+     * @param removedRecipeIds   IDs of recipes that no longer exist (their
+     *                           ingredients are removed by cascade)
+     */
+    @Transaction
+    public void applyChanges(List<RecipeEntity> changedRecipes,
+                             Map<String, List<IngredientEntity>> changedIngredients,
+                             List<String> removedRecipeIds) {
+        if (!removedRecipeIds.isEmpty()) {
+            deleteRecipes(removedRecipeIds);
+        }
+        if (!changedRecipes.isEmpty()) {
+            upsertRecipes(changedRecipes);
+        }
+        for (Map.Entry<String, List<IngredientEntity>> entry : changedIngredients.entrySet()) {
+            replaceIngredients(entry.getKey(), entry.getValue());
+        }
+    }
+
+    /**
+     * Applies a set of changed rows and advances the sync watermark in a single
+     * transaction, so the watermark never gets ahead of the cached rows.
+     *
+     * @param changedRecipes     Recipe rows that are new or modified
+     * @param changedIngredients Ingredient rows of recipes whose ingredients
+     *                           changed, grouped by recipe ID
+     * @param removedRecipeIds   IDs of recipes that no longer exist
+     * @param syncState          The new sync state of the user
+     */
+    @Transaction
+    public void applyChanges(List<RecipeEntity> changedRecipes,
+                             Map<String, List<IngredientEntity>> changedIngredients,
+                             List<String> removedRecipeIds,
+                             SyncStateEntity syncState) {
+        applyChanges(changedRecipes, changedIngredients, removedRecipeIds);
+        upsertSyncState(syncState);
+    }
+}
@@ -0,0 +1,151 @@
+package com.example.mealmate.data.local;
+
+import androidx.annotation.NonNull;
+import androidx.room.Entity;
+import androidx.room.Index;
+import androidx.room.PrimaryKey;
+
+import com.example.mealmate.data.model.Ingredient;
+import com.example.mealmate.data.model.Recipe;
+import com.google.firebase.Timestamp;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Room entity mirroring a Recipe document (without its ingredients, which are
+ * stored as separate IngredientEntity rows).
+ */
+@Entity(tableName = "recipes",
+        indices = {@Index({"userId", "createdAtSeconds", "createdAtNanos", "recipeId"})})
+public class RecipeEntity {
+
+    @PrimaryKey
+    @NonNull
+    public String recipeId = "";
+    public String userId;
+    public String name;
+    public String instructions;
+    public String imageUrl;
+    public String thumbnailUrl;
+    public String mediumUrl;
+    public boolean imagePending;
+    public String pendingImageUri;
+    public String sourceUrl;
+    public String prepTime;
+    public String cookTime;
+    public int servings;
+    public String category;
+    public long createdAtSeconds;
+    public int createdAtNanos;
+    public long updatedAtSeconds;
+    public int updatedAtNanos;
+    public int ingredientCount;
+
+    /**
+     * Creates an entity from a Recipe model.
+     *
+     * @param recipe The recipe to convert
+     * @return The matching entity
+     */
+    public static RecipeEntity fromRecipe(Recipe recipe) {
+        RecipeEntity entity = new RecipeEntity();
+        entity.recipeId = recipe.getRecipeId();
+        entity.userId = recipe.getUserId();
+        entity.name = recipe.getName();
+        entity.instructions = recipe.getInstructions();
+        entity.imageUrl = recipe.getImageUrl();
+        entity.thumbnailUrl = recipe.getThumbnailUrl();
+        entity.mediumUrl = recipe.getMediumUrl();
+        entity.imagePending = recipe.isImagePending();
+        entity.pendingImageUri = recipe.getPendingImageUri();
+        entity.sourceUrl = recipe.getSourceUrl();
+        entity.prepTime = recipe.getPrepTime();
+        entity.cookTime = recipe.getCookTime();
+        entity.servings = recipe.getServings();
+        entity.category = recipe.getCategory();
+        entity.ingredientCount = recipe.getIngredientCount();
+        if (recipe.getCreatedAt() != null) {
+            entity.createdAtSeconds = recipe.getCreatedAt().getSeconds();
+            entity.createdAtNanos = recipe.getCreatedAt().getNanoseconds();
+        }
+        if (recipe.getUpdatedAt() != null) {
+            entity.updatedAtSeconds = recipe.getUpdatedAt().getSeconds();
+            entity.updatedAtNanos = recipe.getUpdatedAt().getNanoseconds();
+        }
+        return entity;
+    }
+
+    /**
+     * Converts this entity back into a Recipe model.
+     *
+     * @param ingredientEntities The ingredient rows belonging to this recipe, in
+     *                           display order
+     * @return The matching recipe. Its ingredients are null if only the
+     * recipe header was cached.
+     */
+    public Recipe toRecipe(List<IngredientEntity> ingredientEntities) {
+        // A recipe cached from its header only has a count but no ingredient rows
+        List<Ingredient> ingredients = null;
+        if (!ingredientEntities.isEmpty() || ingredientCount == 0) {
+            ingredients = new ArrayList<>();
+            for (IngredientEntity ingredientEntity : ingredientEntities) {
+                ingredients.add(ingredientEntity.toIngredient());
+            }
+        }
+        Timestamp createdAt = createdAtSeconds != 0 || createdAtNanos != 0
+                ? new Timestamp(createdAtSeconds, createdAtNanos)
+                : null;
+        Recipe recipe = new Recipe(recipeId, userId, name, ingredients, instructions, imageUrl, sourceUrl,
+                prepTime, cookTime, servings, category, createdAt);
+        recipe.setThumbnailUrl(thumbnailUrl);
+        recipe.setMediumUrl(mediumUrl);
+        recipe.setImagePending(imagePending);
+        recipe.setPendingImageUri(pendingImageUri);
+        recipe.setIngredientCount(ingredientCount);
+        recipe.setUpdatedAt(getUpdatedAt());
+        return recipe;
+    }
+
+    /**
+     * Returns the time the cached copy of the recipe was last written, or null
+     * if it is not known.
+     */
+    public Timestamp getUpdatedAt() {
+        return updatedAtSeconds != 0 || updatedAtNanos != 0
+                ? new Timestamp(updatedAtSeconds, updatedAtNanos)
+                : null;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof RecipeEntity)) return false;
+        RecipeEntity that = (RecipeEntity) o;
+        return servings == that.servings
+                && ingredientCount == that.ingredientCount
+                && createdAtSeconds == that.createdAtSeconds
+                && createdAtNanos == that.createdAtNanos
+                && updatedAtSeconds == that.updatedAtSeconds
+                && updatedAtNanos == that.updatedAtNanos
+                && recipeId.equals(that.recipeId)
+                && Objects.equals(userId, that.userId)
+                && Objects.equals(name, that.name)
+                && Objects.equals(instructions, that.instructions)
+                && Objects.equals(imageUrl, that.imageUrl)
+                && Objects.equals(thumbnailUrl, that.thumbnailUrl)
+                && Objects.equals(mediumUrl, that.mediumUrl)
+                && imagePending == that.imagePending
+                && Objects.equals(pendingImageUri, that.pendingImageUri)
+                && Objects.equals(sourceUrl, that.sourceUrl)
+                && Objects.equals(prepTime, that.prepTime)
+                && Objects.equals(cookTime, that.cookTime)
+                && Objects.equals(category, that.category);
+    }
+
+    @Override
+    public int hashCode() {
+        return recipeId.hashCode();
+    }
+}
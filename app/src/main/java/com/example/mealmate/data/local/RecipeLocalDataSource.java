@@ -0,0 +1,270 @@
+package com.example.mealmate.data.local;
+
+import com.example.mealmate.data.model.Recipe;
+import com.example.mealmate.data.model.RecipeSummary;
+import com.google.firebase.Timestamp;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Local data source for cached recipes. Converts between the Room entities and
+ * the Recipe model and computes row-level diffs so a revalidation only writes
+ * the rows that actually changed.
+ * All methods are blocking and must run on {@link MealMateDatabase#databaseExecutor}.
+ */
+public class RecipeLocalDataSource {
+
+    private final RecipeDao recipeDao;
+
+    public RecipeLocalDataSource(MealMateDatabase database) {
+        this.recipeDao = database.recipeDao();
+    }
+
+    /**
+     * Returns the summaries of all cached recipes of a user, newest first.
+     */
+    public List<RecipeSummary> getRecipeSummaries(String userId) {
+        return toSummaries(recipeDao.getRecipesForUser(userId));
+    }
+
+    /**
+     * Returns a page of the summaries of a user's cached recipes, newest first.
+     * Pages are chained by the creation time and ID of the last recipe of the
+     * previous page, so reading a page does not depend on the ones before it.
+     *
+     * @param userId         The owner of the recipes
+     * @param afterCreatedAt Creation time of the last recipe of the previous
+     *                       page (null if that recipe has none)
+     * @param afterRecipeId  ID of the last recipe of the previous page, or
+     *                       null for the first page
+     * @param limit          Maximum number of summaries
+     * @return The summaries
+     */
+    public List<RecipeSummary> getRecipeSummaryPage(String userId, Timestamp afterCreatedAt, String afterRecipeId,
+                                                    int limit) {
+        if (afterRecipeId == null) {
+            return toSummaries(recipeDao.getRecipePage(userId, limit));
+        }
+        // Recipes without a creation time are stored with zero and sort last
+        long seconds = afterCreatedAt != null ? afterCreatedAt.getSeconds() : 0;
+        int nanos = afterCreatedAt != null ? afterCreatedAt.getNanoseconds() : 0;
+        return toSummaries(recipeDao.getRecipePageAfter(userId, seconds, nanos, afterRecipeId, limit));
+    }
+
+    private static List<RecipeSummary> toSummaries(List<RecipeEntity> entities) {
+        List<RecipeSummary> summaries = new ArrayList<>();
+        for (RecipeEntity entity : entities) {
+            // Without ingredient rows the summary falls back to the stored ingredient count
+            summaries.add(RecipeSummary.fromRecipe(entity.toRecipe(Collections.emptyList())));
+        }
+        return summaries;
+    }
+
+    /**
+     * Returns a cached recipe, or null if it is not cached.
+     */
+    public Recipe getRecipe(String recipeId) {
+        RecipeEntity entity = recipeDao.getRecipe(recipeId);
+        return entity != null ? entity.toRecipe(recipeDao.getIngredients(recipeId)) : null;
+    }
+
+    /**
+     * Returns the time each cached recipe of a set was last written. Recipes
+     * that are not cached, or whose write time is not known, are left out.
+     */
+    public Map<String, Timestamp> getRecipeVersions(Collection<String> recipeIds) {
+        Map<String, Timestamp> versions = new HashMap<>();
+        for (RecipeEntity entity : recipeDao.getRecipes(recipeIds)) {
+            if (entity.getUpdatedAt() != null) {
+                versions.put(entity.recipeId, entity.getUpdatedAt());
+            }
+        }
+        return versions;
+    }
+
+    /**
+     * Returns the sync watermarks of the cached recipes of a user, or null if
+     * the cache has never been fully synced.
+     */
+    public SyncStateEntity getSyncState(String userId) {
+        return recipeDao.getSyncState(userId);
+    }
+
+    /**
+     * Reconciles the cached recipes of a user with a freshly fetched list,
+     * writing only new, modified and removed rows, and stores the sync
+     * watermark in the same transaction.
+     *
+     * @param userId    The owner of the recipes
+     * @param fresh     The complete, authoritative list of the user's recipes
+     * @param watermark The latest server change contained in the list
+     * @return The number of recipes that were added, modified or removed
+     */
+    public int syncRecipes(String userId, List<Recipe> fresh, Timestamp watermark) {
+        Map<String, RecipeEntity> cachedRecipes = new HashMap<>();
+        for (RecipeEntity entity : recipeDao.getRecipesForUser(userId)) {
+            cachedRecipes.put(entity.recipeId, entity);
+        }
+        Map<String, List<IngredientEntity>> cachedIngredients = groupByRecipe(recipeDao.getIngredientsForUser(userId));
+
+        List<RecipeEntity> changedRecipes = new ArrayList<>();
+        Map<String, List<IngredientEntity>> changedIngredients = new HashMap<>();
+        Set<String> freshIds = new HashSet<>();
+        int changedCount = 0;
+
+        for (Recipe recipe : fresh) {
+            freshIds.add(recipe.getRecipeId());
+            if (collectChanges(recipe, cachedRecipes.get(recipe.getRecipeId()),
+                    cachedIngredients.get(recipe.getRecipeId()), changedRecipes, changedIngredients)) {
+                changedCount++;
+            }
+        }
+
+        List<String> removedIds = new ArrayList<>();
+        for (String cachedId : cachedRecipes.keySet()) {
+            if (!freshIds.contains(cachedId)) {
+                removedIds.add(cachedId);
+            }
+        }
+
+        recipeDao.applyChanges(changedRecipes, changedIngredients, removedIds,
+                SyncStateEntity.forRecipes(userId, watermark));
+        return changedCount + removedIds.size();
+    }
+
+    /**
+     * Applies the recipes changed and deleted since the last sync to the cache
+     * and advances the sync watermarks in the same transaction.
+     *
+     * @param changed    Recipes created or modified since the last sync
+     * @param deletedIds IDs of recipes deleted since the last sync
+     * @param syncState  The owner's sync state covering the delta
+     * @return The number of recipes that were added, modified or removed
+     */
+    public int applyRecipeDelta(List<Recipe> changed, List<String> deletedIds, SyncStateEntity syncState) {
+        List<RecipeEntity> changedRecipes = new ArrayList<>();
+        Map<String, List<IngredientEntity>> changedIngredients = new HashMap<>();
+        int changedCount = 0;
+        for (Recipe recipe : changed) {
+            if (collectChanges(recipe, recipeDao.getRecipe(recipe.getRecipeId()),
+                    recipeDao.getIngredients(recipe.getRecipeId()), changedRecipes, changedIngredients)) {
+                changedCount++;
+            }
+        }
+
+        List<String> removedIds = new ArrayList<>();
+        for (String recipeId : deletedIds) {
+            if (recipeDao.getRecipe(recipeId) != null) {
+                removedIds.add(recipeId);
+            }
+        }
+
+        recipeDao.applyChanges(changedRecipes, changedIngredients, removedIds, syncState);
+        return changedCount + removedIds.size();
+    }
+
+    /**
+     * Writes a single recipe to the cache if it differs from the cached copy.
+     *
+     * @return True if the cache was changed
+     */
+    public boolean syncRecipe(Recipe recipe) {
+        RecipeEntity cached = recipeDao.getRecipe(recipe.getRecipeId());
+        RecipeEntity entity = withCachedFields(RecipeEntity.fromRecipe(recipe), cached);
+        boolean recipeChanged = !entity.equals(cached);
+
+        Map<String, List<IngredientEntity>> changedIngredients = new HashMap<>();
+        if (recipe.getIngredients() != null) {
+            List<IngredientEntity> ingredients = IngredientEntity.fromIngredients(recipe.getRecipeId(),
+                    recipe.getIngredients());
+            if (!ingredients.equals(recipeDao.getIngredients(recipe.getRecipeId()))) {
+                changedIngredients.put(recipe.getRecipeId(), ingredients);
+            }
+        }
+
+        if (!recipeChanged && changedIngredients.isEmpty()) {
+            return false;
+        }
+        recipeDao.applyChanges(Collections.singletonList(entity), changedIngredients, Collections.emptyList());
+        return true;
+    }
+
+    /**
+     * Removes a recipe and its ingredients from the cache.
+     */
+    public void removeRecipe(String recipeId) {
+        recipeDao.deleteRecipes(Collections.singletonList(recipeId));
+    }
+
+    /**
+     * Adds the rows of a recipe that differ from its cached copy to the change
+     * lists.
+     *
+     * @return True if the recipe or its ingredients changed
+     */
+    private static boolean collectChanges(Recipe recipe, RecipeEntity cached, List<IngredientEntity> cachedIngredients,
+                                          List<RecipeEntity> changedRecipes,
+                                          Map<String, List<IngredientEntity>> changedIngredients) {
+        String recipeId = recipe.getRecipeId();
+        boolean changed = false;
+
+        RecipeEntity entity = withCachedFields(RecipeEntity.fromRecipe(recipe), cached);
+        if (!entity.equals(cached)) {
+            changedRecipes.add(entity);
+            changed = true;
+        }
+
+        // Null ingredients means the source did not include them, so keep what is cached
+        if (recipe.getIngredients() != null) {
+            List<IngredientEntity> ingredients = IngredientEntity.fromIngredients(recipeId, recipe.getIngredients());
+            if (!ingredients.equals(cachedIngredients != null ? cachedIngredients : Collections.emptyList())) {
+                changedIngredients.put(recipeId, ingredients);
+                changed = true;
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Keeps the cached values of fields the fresh copy lacks: recipes read
+     * from their header only have no instructions, recipes read from the
+     * catalog have no write time, and recipes read from Firestore have no
+     * local URI of their pending image.
+     */
+    private static RecipeEntity withCachedFields(RecipeEntity entity, RecipeEntity cached) {
+        if (cached == null) {
+            return entity;
+        }
+        if (entity.instructions == null) {
+            entity.instructions = cached.instructions;
+        }
+        if (entity.updatedAtSeconds == 0 && entity.updatedAtNanos == 0) {
+            entity.updatedAtSeconds = cached.updatedAtSeconds;
+            entity.updatedAtNanos = cached.updatedAtNanos;
+        }
+        if (entity.imagePending && entity.pendingImageUri == null) {
+            entity.pendingImageUri = cached.pendingImageUri;
+        }
+        return entity;
+    }
+
+    private static Map<String, List<IngredientEntity>> groupByRecipe(List<IngredientEntity> ingredients) {
+        Map<String, List<IngredientEntity>> grouped = new HashMap<>();
+        for (IngredientEntity ingredient : ingredients) {
+            List<IngredientEntity> list = grouped.get(ingredient.recipeId);
+            if (list == null) {
+                list = new ArrayList<>();
+                grouped.put(ingredient.recipeId, list);
+            }
+            list.add(ingredient);
+        }
+        return grouped;
+    }
+}
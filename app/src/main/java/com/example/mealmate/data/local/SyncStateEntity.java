@@ -0,0 +1,88 @@
+package com.example.mealmate.data.local;
+
+import androidx.annotation.NonNull;
+import androidx.room.Entity;
+import androidx.room.PrimaryKey;
+
+import com.google.firebase.Timestamp;
+
+/**
+ * Room entity holding the per-user sync watermarks of the recipe cache: the
+ * latest server updatedAt and the latest tombstone deletedAt already applied
+ * to the cached rows. Recipes and tombstones are read by separate queries, so
+ * each keeps its own watermark. The time of the last sync tells whether
+ * tombstones the cache has not seen yet may already have been pruned. It lives in the same database as the rows, so
+ * both are wiped together and a lost cache always starts over with a full
+ * sync.
+ */
+@Entity(tableName = "sync_state")
+public class SyncStateEntity {
+
+    @PrimaryKey
+    @NonNull
+    public String userId = "";
+    public long recipesWatermarkSeconds;
+    public int recipesWatermarkNanos;
+    public long tombstonesWatermarkSeconds;
+    public int tombstonesWatermarkNanos;
+    public long syncedAtMillis;
+
+    /**
+     * Creates the sync state of a user after a full sync, which reflects every
+     * deletion up to the latest recipe change it read.
+     *
+     * @param userId    The owner of the cached recipes
+     * @param watermark The latest server change applied to the cache
+     * @return The entity
+     */
+    public static SyncStateEntity forRecipes(String userId, Timestamp watermark) {
+        return forRecipes(userId, watermark, watermark);
+    }
+
+    /**
+     * Creates the sync state of a user.
+     *
+     * @param userId              The owner of the cached recipes
+     * @param recipesWatermark    The latest recipe updatedAt applied to the cache
+     * @param tombstonesWatermark The latest tombstone deletedAt applied to the cache
+     * @return The entity
+     */
+    public static SyncStateEntity forRecipes(String userId, Timestamp recipesWatermark,
+                                             Timestamp tombstonesWatermark) {
+        SyncStateEntity entity = new SyncStateEntity();
+        entity.userId = userId;
+        entity.recipesWatermarkSeconds = recipesWatermark.getSeconds();
+        entity.recipesWatermarkNanos = recipesWatermark.getNanoseconds();
+        entity.tombstonesWatermarkSeconds = tombstonesWatermark.getSeconds();
+        entity.tombstonesWatermarkNanos = tombstonesWatermark.getNanoseconds();
+        entity.syncedAtMillis = System.currentTimeMillis();
+        return entity;
+    }
+
+    /**
+     * Gets the recipe watermark.
+     *
+     * @return The latest recipe updatedAt applied to the cache
+     */
+    public Timestamp getRecipesWatermark() {
+        return new Timestamp(recipesWatermarkSeconds, recipesWatermarkNanos);
+    }
+
+    /**
+     * Gets the tombstone watermark.
+     *
+     * @return The latest tombstone deletedAt applied to the cache
+     */
+    public Timestamp getTombstonesWatermark() {
+        return new Timestamp(tombstonesWatermarkSeconds, tombstonesWatermarkNanos);
+    }
+
+    /**
+     * Gets the time of the sync that stored this state.
+     *
+     * @return The device time in milliseconds since the epoch
+     */
+    public long getSyncedAtMillis() {
+        return syncedAtMillis;
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.mealmate.data.local;
+
+import androidx.annotation.NonNull;
+import androidx.room.Entity;
+
+import com.example.mealmate.data.model.GroceryItem;
+
+/**
+ * Room entity for one item of a precomputed weekly grocery list: the
+ * consolidated ingredients of all recipes planned for a week. Rows are keyed by
+ * user, week and the item's deterministic grocery item ID, and carry the
+ * signature of the plan they were computed from.
+ */
+@Entity(tableName = "weekly_grocery_items",
+        primaryKeys = {"userId", "weekId", "itemId"})
+public class WeeklyGroceryItemEntity {
+
+    @NonNull
+    public String userId = "";
+    @NonNull
+    public String weekId = "";
+    @NonNull
+    public String itemId = "";
+    public String planSignature;
+    public String name;
+    public double quantity;
+    public String unit;
+    public String category;
+
+    /**
+     * Creates the row of a consolidated item.
+     *
+     * @param userId        The owner of the meal plan
+     * @param weekId        The ID of the meal plan's week
+     * @param planSignature The signature of the plan the item was computed from
+     * @param item          The consolidated item; its ID must be set
+     * @return The entity
+     */
+    public static WeeklyGroceryItemEntity fromGroceryItem(String userId, String weekId, String planSignature,
+                                                          GroceryItem item) {
+        WeeklyGroceryItemEntity entity = new WeeklyGroceryItemEntity();
+        entity.userId = userId;
+        entity.weekId = weekId;
+        entity.planSignature = planSignature;
+        entity.itemId = item.getItemId();
+        entity.name = item.getName();
+        entity.quantity = item.getQuantity();
+        entity.unit = item.getUnit();
+        entity.category = item.getCategory();
+        return entity;
+    }
+
+    /**
+     * Converts this entity back into an unpurchased GroceryItem.
+     *
+     * @return The matching grocery item
+     */
+    public GroceryItem toGroceryItem() {
+        return new GroceryItem(itemId, name, quantity, unit, category, false, null, null);
+    }
+}
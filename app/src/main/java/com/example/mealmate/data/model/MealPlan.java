@@ -2,6 +2,8 @@ package com.example.mealmate.data.model;
 
 import com.google.firebase.Timestamp;
 import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.Map;
 import java.util.List;
 
@@ -58,6 +60,26 @@ public class MealPlan implements Serializable {
         this.weekStartDate = weekStartDate;
     }
 
+    /**
+     * Copy constructor. The days map and its recipe lists are copied, so the
+     * copy can be modified without affecting the original.
+     *
+     * @param other The meal plan to copy
+     */
+    public MealPlan(MealPlan other) {
+        this.planId = other.planId;
+        this.userId = other.userId;
+        this.name = other.name;
+        this.weekStartDate = other.weekStartDate;
+        if (other.days != null) {
+            this.days = new HashMap<>();
+            for (Map.Entry<String, List<String>> entry : other.days.entrySet()) {
+                this.days.put(entry.getKey(),
+                        entry.getValue() != null ? new ArrayList<>(entry.getValue()) : new ArrayList<>());
+            }
+        }
+    }
+
     /**
      * Gets the meal plan ID.
      *
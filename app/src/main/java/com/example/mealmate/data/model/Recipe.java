@@ -1,6 +1,7 @@
 package com.example.mealmate.data.model;
 
 import com.google.firebase.Timestamp;
+import com.google.firebase.firestore.Exclude;
 import java.util.List;
 
 /**
@@ -14,12 +15,18 @@ public class Recipe {
     private List<Ingredient> ingredients;
     private String instructions;
     private String imageUrl;
+    private String thumbnailUrl;
+    private String mediumUrl;
+    private boolean imagePending;
+    private String pendingImageUri;
     private String sourceUrl;
     private String prepTime;
     private String cookTime;
     private int servings;
     private String category;
     private Timestamp createdAt;
+    private int ingredientCount;
+    private Timestamp updatedAt;
 
     /**
      * Empty constructor required for Firebase Firestore deserialization.
@@ -186,6 +193,86 @@ public class Recipe {
         this.imageUrl = imageUrl;
     }
 
+    /**
+     * Gets the URL of the thumbnail rendition of the image, used by list rows.
+     *
+     * @return The thumbnail URL (may be null, e.g. for recipes stored before
+     * renditions were generated)
+     */
+    public String getThumbnailUrl() {
+        return thumbnailUrl;
+    }
+
+    /**
+     * Sets the URL of the thumbnail rendition of the image.
+     *
+     * @param thumbnailUrl The thumbnail URL to set
+     */
+    public void setThumbnailUrl(String thumbnailUrl) {
+        this.thumbnailUrl = thumbnailUrl;
+    }
+
+    /**
+     * Gets the URL of the medium rendition of the image, used by cards and
+     * headers.
+     *
+     * @return The medium image URL (may be null)
+     */
+    public String getMediumUrl() {
+        return mediumUrl;
+    }
+
+    /**
+     * Sets the URL of the medium rendition of the image.
+     *
+     * @param mediumUrl The medium image URL to set
+     */
+    public void setMediumUrl(String mediumUrl) {
+        this.mediumUrl = mediumUrl;
+    }
+
+    /**
+     * Checks whether a new image of the recipe is still being uploaded. The
+     * recipe is saved before its image, which a background upload attaches
+     * later.
+     *
+     * @return True if an image upload is pending
+     */
+    public boolean isImagePending() {
+        return imagePending;
+    }
+
+    /**
+     * Sets whether a new image of the recipe is still being uploaded.
+     *
+     * @param imagePending The pending state to set
+     */
+    public void setImagePending(boolean imagePending) {
+        this.imagePending = imagePending;
+    }
+
+    /**
+     * Gets the local URI of the image being uploaded, so the saving device can
+     * show it as a preview until the upload completes. The URI only exists on
+     * that device, so it is kept in the local cache and never in Firestore.
+     *
+     * @return The local image URI (null unless an upload is pending)
+     */
+    @Exclude
+    public String getPendingImageUri() {
+        return pendingImageUri;
+    }
+
+    /**
+     * Sets the local URI of the image being uploaded.
+     *
+     * @param pendingImageUri The local image URI to set
+     */
+    @Exclude
+    public void setPendingImageUri(String pendingImageUri) {
+        this.pendingImageUri = pendingImageUri;
+    }
+
     /**
      * Gets the source URL.
      *
@@ -293,4 +380,43 @@ public class Recipe {
     public void setCreatedAt(Timestamp createdAt) {
         this.createdAt = createdAt;
     }
-}
\ No newline at end of file
+
+    /**
+     * Gets the number of ingredients. Recipe headers carry this count so lists
+     * can show it without loading the ingredients themselves.
+     *
+     * @return The size of the ingredient list if it is loaded, otherwise the
+     * stored ingredient count
+     */
+    public int getIngredientCount() {
+        return ingredients != null ? ingredients.size() : ingredientCount;
+    }
+
+    /**
+     * Sets the stored number of ingredients.
+     *
+     * @param ingredientCount The ingredient count to set
+     */
+    public void setIngredientCount(int ingredientCount) {
+        this.ingredientCount = ingredientCount;
+    }
+
+    /**
+     * Gets the timestamp of the last write to the recipe. It is set by the
+     * server and drives the incremental sync of the local recipe cache.
+     *
+     * @return The last update timestamp, or null for recipes never synced
+     */
+    public Timestamp getUpdatedAt() {
+        return updatedAt;
+    }
+
+    /**
+     * Sets the timestamp of the last write to the recipe.
+     *
+     * @param updatedAt The last update timestamp to set
+     */
+    public void setUpdatedAt(Timestamp updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
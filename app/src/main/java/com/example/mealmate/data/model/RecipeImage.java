@@ -0,0 +1,194 @@
+package com.example.mealmate.data.model;
+
+import java.util.Objects;
+
+/**
+ * RecipeImage groups the renditions of a recipe image: a small thumbnail for
+ * list rows, a medium image for cards and a full-size image for the detail
+ * screen. It is the model that image loading uses, so each view can load the
+ * smallest rendition that covers its size. Recipes stored before renditions
+ * existed only have the full-size image. While a new image is still being
+ * uploaded, the device that saved the recipe shows its local copy instead.
+ */
+public class RecipeImage {
+
+    /**
+     * The renditions generated for each uploaded recipe image, from smallest
+     * to largest.
+     */
+    public enum Rendition {
+        THUMBNAIL(320, "_thumb"),
+        MEDIUM(800, "_medium"),
+        FULL(1600, "");
+
+        private final int maxEdge;
+        private final String nameSuffix;
+
+        Rendition(int maxEdge, String nameSuffix) {
+            this.maxEdge = maxEdge;
+            this.nameSuffix = nameSuffix;
+        }
+
+        /**
+         * Gets the maximum width and height of the rendition.
+         *
+         * @return The maximum edge, in pixels
+         */
+        public int getMaxEdge() {
+            return maxEdge;
+        }
+
+        /**
+         * Derives the Storage file name of this rendition from the file name of
+         * the full-size image.
+         *
+         * @param fullImageName The file name of the full-size image, e.g.
+         *                      "abc_123.jpg"
+         * @return The file name of the rendition, e.g. "abc_123_thumb.jpg"
+         */
+        public String fileName(String fullImageName) {
+            int extension = fullImageName.lastIndexOf('.');
+            return extension < 0
+                    ? fullImageName + nameSuffix
+                    : fullImageName.substring(0, extension) + nameSuffix + fullImageName.substring(extension);
+        }
+    }
+
+    private final String thumbnailUrl;
+    private final String mediumUrl;
+    private final String fullUrl;
+    private final String localUri;
+
+    /**
+     * Constructor with all renditions.
+     *
+     * @param thumbnailUrl URL to the thumbnail rendition (optional)
+     * @param mediumUrl    URL to the medium rendition (optional)
+     * @param fullUrl      URL to the full-size image (optional)
+     */
+    public RecipeImage(String thumbnailUrl, String mediumUrl, String fullUrl) {
+        this(thumbnailUrl, mediumUrl, fullUrl, null);
+    }
+
+    /**
+     * Constructor with all renditions and the local copy of a pending image.
+     *
+     * @param thumbnailUrl URL to the thumbnail rendition (optional)
+     * @param mediumUrl    URL to the medium rendition (optional)
+     * @param fullUrl      URL to the full-size image (optional)
+     * @param localUri     URI of the local copy of an image still being
+     *                     uploaded (optional); it takes precedence over the
+     *                     renditions, which belong to the previous image
+     */
+    public RecipeImage(String thumbnailUrl, String mediumUrl, String fullUrl, String localUri) {
+        this.thumbnailUrl = thumbnailUrl;
+        this.mediumUrl = mediumUrl;
+        this.fullUrl = fullUrl;
+        this.localUri = localUri;
+    }
+
+    /**
+     * Creates the image of a recipe.
+     *
+     * @param recipe The recipe
+     * @return The recipe's image renditions
+     */
+    public static RecipeImage of(Recipe recipe) {
+        return new RecipeImage(recipe.getThumbnailUrl(), recipe.getMediumUrl(), recipe.getImageUrl(),
+                recipe.isImagePending() ? recipe.getPendingImageUri() : null);
+    }
+
+    /**
+     * Creates the image of a recipe summary. Summaries only carry the
+     * thumbnail and the full-size image.
+     *
+     * @param summary The recipe summary
+     * @return The summarized recipe's image renditions
+     */
+    public static RecipeImage of(RecipeSummary summary) {
+        return new RecipeImage(summary.getThumbnailUrl(), null, summary.getImageUrl(),
+                summary.getPendingImageUri());
+    }
+
+    /**
+     * Checks whether the recipe has no image at all.
+     *
+     * @return True if neither a rendition nor a local copy is available
+     */
+    public boolean isEmpty() {
+        return isEmpty(thumbnailUrl) && isEmpty(mediumUrl) && isEmpty(fullUrl) && isEmpty(localUri);
+    }
+
+    /**
+     * Gets the URI of the local copy of an image still being uploaded.
+     *
+     * @return The local URI (null unless an upload is pending)
+     */
+    public String getLocalUri() {
+        return localUri;
+    }
+
+    /**
+     * Picks the URL of the smallest available rendition whose longer edge
+     * covers a target size, falling back to the largest available one.
+     *
+     * @param width  The target width in pixels, or a non-positive value if unknown
+     * @param height The target height in pixels, or a non-positive value if unknown
+     * @return The URL to load, or null if the recipe has no image
+     */
+    public String urlFor(int width, int height) {
+        int targetEdge = Math.max(width, height);
+        if (targetEdge > 0) {
+            for (Rendition rendition : Rendition.values()) {
+                String url = getUrl(rendition);
+                if (!isEmpty(url) && rendition.getMaxEdge() >= targetEdge) {
+                    return url;
+                }
+            }
+        }
+        for (int i = Rendition.values().length - 1; i >= 0; i--) {
+            String url = getUrl(Rendition.values()[i]);
+            if (!isEmpty(url)) {
+                return url;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Gets the URL of a rendition.
+     *
+     * @param rendition The rendition
+     * @return The URL (may be null)
+     */
+    public String getUrl(Rendition rendition) {
+        switch (rendition) {
+            case THUMBNAIL:
+                return thumbnailUrl;
+            case MEDIUM:
+                return mediumUrl;
+            default:
+                return fullUrl;
+        }
+    }
+
+    private static boolean isEmpty(String url) {
+        return url == null || url.isEmpty();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof RecipeImage)) return false;
+        RecipeImage that = (RecipeImage) o;
+        return Objects.equals(thumbnailUrl, that.thumbnailUrl)
+                && Objects.equals(mediumUrl, that.mediumUrl)
+                && Objects.equals(fullUrl, that.fullUrl)
+                && Objects.equals(localUri, that.localUri);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(thumbnailUrl, mediumUrl, fullUrl, localUri);
+    }
+}
@@ -0,0 +1,291 @@
+package com.example.mealmate.data.model;
+
+import com.google.firebase.Timestamp;
+
+/**
+ * RecipeSummary holds the fields of a recipe that list screens display. The
+ * summaries of all of a user's recipes are kept in a few catalog documents,
+ * so a complete recipe list can be rendered without reading every recipe
+ * document with its ingredients and instructions.
+ */
+public class RecipeSummary {
+    private String recipeId;
+    private String name;
+    private String category;
+    private String prepTime;
+    private String cookTime;
+    private int servings;
+    private String imageUrl;
+    private String thumbnailUrl;
+    private boolean imagePending;
+    private String pendingImageUri;
+    private int ingredientCount;
+    private Timestamp createdAt;
+
+    /**
+     * Empty constructor.
+     */
+    public RecipeSummary() {
+    }
+
+    /**
+     * Constructor with all fields.
+     *
+     * @param recipeId        The ID of the summarized recipe
+     * @param name            The name of the recipe
+     * @param category        Recipe category (optional)
+     * @param prepTime        Preparation time (optional, e.g., "15 minutes")
+     * @param cookTime        Cooking time (optional, e.g., "30 minutes")
+     * @param servings        Number of servings the recipe makes (optional)
+     * @param imageUrl        URL to the recipe image (optional)
+     * @param thumbnailUrl    URL to the thumbnail rendition of the image (optional)
+     * @param ingredientCount Number of ingredients of the recipe
+     * @param createdAt       Timestamp when the recipe was created
+     */
+    public RecipeSummary(String recipeId, String name, String category, String prepTime, String cookTime,
+                         int servings, String imageUrl, String thumbnailUrl, int ingredientCount,
+                         Timestamp createdAt) {
+        this.recipeId = recipeId;
+        this.name = name;
+        this.category = category;
+        this.prepTime = prepTime;
+        this.cookTime = cookTime;
+        this.servings = servings;
+        this.imageUrl = imageUrl;
+        this.thumbnailUrl = thumbnailUrl;
+        this.ingredientCount = ingredientCount;
+        this.createdAt = createdAt;
+    }
+
+    /**
+     * Creates the summary of a recipe.
+     *
+     * @param recipe The recipe to summarize
+     * @return The summary
+     */
+    public static RecipeSummary fromRecipe(Recipe recipe) {
+        RecipeSummary summary = new RecipeSummary(recipe.getRecipeId(), recipe.getName(), recipe.getCategory(),
+                recipe.getPrepTime(), recipe.getCookTime(), recipe.getServings(), recipe.getImageUrl(),
+                recipe.getThumbnailUrl(), recipe.getIngredientCount(), recipe.getCreatedAt());
+        summary.setImagePending(recipe.isImagePending());
+        summary.setPendingImageUri(recipe.isImagePending() ? recipe.getPendingImageUri() : null);
+        return summary;
+    }
+
+    /**
+     * Gets the ID of the summarized recipe.
+     *
+     * @return The recipe ID
+     */
+    public String getRecipeId() {
+        return recipeId;
+    }
+
+    /**
+     * Sets the ID of the summarized recipe.
+     *
+     * @param recipeId The recipe ID to set
+     */
+    public void setRecipeId(String recipeId) {
+        this.recipeId = recipeId;
+    }
+
+    /**
+     * Gets the recipe name.
+     *
+     * @return The recipe name
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Sets the recipe name.
+     *
+     * @param name The recipe name to set
+     */
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Gets the recipe category.
+     *
+     * @return The recipe category
+     */
+    public String getCategory() {
+        return category;
+    }
+
+    /**
+     * Sets the recipe category.
+     *
+     * @param category The recipe category to set
+     */
+    public void setCategory(String category) {
+        this.category = category;
+    }
+
+    /**
+     * Gets the preparation time.
+     *
+     * @return The preparation time
+     */
+    public String getPrepTime() {
+        return prepTime;
+    }
+
+    /**
+     * Sets the preparation time.
+     *
+     * @param prepTime The preparation time to set
+     */
+    public void setPrepTime(String prepTime) {
+        this.prepTime = prepTime;
+    }
+
+    /**
+     * Gets the cooking time.
+     *
+     * @return The cooking time
+     */
+    public String getCookTime() {
+        return cookTime;
+    }
+
+    /**
+     * Sets the cooking time.
+     *
+     * @param cookTime The cooking time to set
+     */
+    public void setCookTime(String cookTime) {
+        this.cookTime = cookTime;
+    }
+
+    /**
+     * Gets the number of servings.
+     *
+     * @return The number of servings
+     */
+    public int getServings() {
+        return servings;
+    }
+
+    /**
+     * Sets the number of servings.
+     *
+     * @param servings The number of servings to set
+     */
+    public void setServings(int servings) {
+        this.servings = servings;
+    }
+
+    /**
+     * Gets the image URL.
+     *
+     * @return The image URL
+     */
+    public String getImageUrl() {
+        return imageUrl;
+    }
+
+    /**
+     * Sets the image URL.
+     *
+     * @param imageUrl The image URL to set
+     */
+    public void setImageUrl(String imageUrl) {
+        this.imageUrl = imageUrl;
+    }
+
+    /**
+     * Gets the URL of the thumbnail rendition of the image.
+     *
+     * @return The thumbnail URL (may be null)
+     */
+    public String getThumbnailUrl() {
+        return thumbnailUrl;
+    }
+
+    /**
+     * Sets the URL of the thumbnail rendition of the image.
+     *
+     * @param thumbnailUrl The thumbnail URL to set
+     */
+    public void setThumbnailUrl(String thumbnailUrl) {
+        this.thumbnailUrl = thumbnailUrl;
+    }
+
+    /**
+     * Checks whether a new image of the recipe is still being uploaded.
+     *
+     * @return True if an image upload is pending
+     */
+    public boolean isImagePending() {
+        return imagePending;
+    }
+
+    /**
+     * Sets whether a new image of the recipe is still being uploaded.
+     *
+     * @param imagePending The pending state to set
+     */
+    public void setImagePending(boolean imagePending) {
+        this.imagePending = imagePending;
+    }
+
+    /**
+     * Gets the local URI of an image that is still being uploaded. Only the
+     * device that saved the image has it.
+     *
+     * @return The local image URI (null unless an upload is pending)
+     */
+    public String getPendingImageUri() {
+        return pendingImageUri;
+    }
+
+    /**
+     * Sets the local URI of an image that is still being uploaded.
+     *
+     * @param pendingImageUri The local image URI to set
+     */
+    public void setPendingImageUri(String pendingImageUri) {
+        this.pendingImageUri = pendingImageUri;
+    }
+
+    /**
+     * Gets the number of ingredients.
+     *
+     * @return The ingredient count
+     */
+    public int getIngredientCount() {
+        return ingredientCount;
+    }
+
+    /**
+     * Sets the number of ingredients.
+     *
+     * @param ingredientCount The ingredient count to set
+     */
+    public void setIngredientCount(int ingredientCount) {
+        this.ingredientCount = ingredientCount;
+    }
+
+    /**
+     * Gets the creation timestamp.
+     *
+     * @return The creation timestamp
+     */
+    public Timestamp getCreatedAt() {
+        return createdAt;
+    }
+
+    /**
+     * Sets the creation timestamp.
+     *
+     * @param createdAt The creation timestamp to set
+     */
+    public void setCreatedAt(Timestamp createdAt) {
+        this.createdAt = createdAt;
+    }
+}
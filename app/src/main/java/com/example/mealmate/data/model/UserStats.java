@@ -0,0 +1,109 @@
+package com.example.mealmate.data.model;
+
+import com.google.firebase.Timestamp;
+
+/**
+ * UserStats data model holding the per-user dashboard counters.
+ * The counters are kept up to date by the repositories' write paths so the
+ * Home screen can render them from a single document read.
+ */
+public class UserStats {
+    private long recipeCount;
+    private long mealPlanCount;
+    private long unpurchasedGroceryCount;
+    private Timestamp updatedAt;
+
+    /**
+     * Empty constructor required for Firebase Firestore deserialization.
+     */
+    public UserStats() {
+    }
+
+    /**
+     * Constructor with all fields.
+     *
+     * @param recipeCount             Number of recipes the user has saved
+     * @param mealPlanCount           Number of meal plans the user has saved
+     * @param unpurchasedGroceryCount Number of unpurchased items in the main
+     *                                grocery list
+     * @param updatedAt               Timestamp of the last counter change
+     */
+    public UserStats(long recipeCount, long mealPlanCount, long unpurchasedGroceryCount, Timestamp updatedAt) {
+        this.recipeCount = recipeCount;
+        this.mealPlanCount = mealPlanCount;
+        this.unpurchasedGroceryCount = unpurchasedGroceryCount;
+        this.updatedAt = updatedAt;
+    }
+
+    /**
+     * Gets the number of recipes.
+     *
+     * @return The recipe count
+     */
+    public long getRecipeCount() {
+        return recipeCount;
+    }
+
+    /**
+     * Sets the number of recipes.
+     *
+     * @param recipeCount The recipe count to set
+     */
+    public void setRecipeCount(long recipeCount) {
+        this.recipeCount = recipeCount;
+    }
+
+    /**
+     * Gets the number of meal plans.
+     *
+     * @return The meal plan count
+     */
+    public long getMealPlanCount() {
+        return mealPlanCount;
+    }
+
+    /**
+     * Sets the number of meal plans.
+     *
+     * @param mealPlanCount The meal plan count to set
+     */
+    public void setMealPlanCount(long mealPlanCount) {
+        this.mealPlanCount = mealPlanCount;
+    }
+
+    /**
+     * Gets the number of unpurchased items in the main grocery list.
+     *
+     * @return The unpurchased grocery item count
+     */
+    public long getUnpurchasedGroceryCount() {
+        return unpurchasedGroceryCount;
+    }
+
+    /**
+     * Sets the number of unpurchased items in the main grocery list.
+     *
+     * @param unpurchasedGroceryCount The unpurchased grocery item count to set
+     */
+    public void setUnpurchasedGroceryCount(long unpurchasedGroceryCount) {
+        this.unpurchasedGroceryCount = unpurchasedGroceryCount;
+    }
+
+    /**
+     * Gets the timestamp of the last counter change.
+     *
+     * @return The last-updated timestamp
+     */
+    public Timestamp getUpdatedAt() {
+        return updatedAt;
+    }
+
+    /**
+     * Sets the timestamp of the last counter change.
+     *
+     * @param updatedAt The last-updated timestamp to set
+     */
+    public void setUpdatedAt(Timestamp updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
@@ -1,5 +1,6 @@
 package com.example.mealmate.data.repository;
 
+import android.content.Context;
 import android.net.Uri;
 import android.util.Log;
 
@@ -16,6 +17,7 @@ import com.google.firebase.auth.FirebaseUser;
 import com.google.firebase.auth.UserProfileChangeRequest;
 import com.google.firebase.firestore.FirebaseFirestore;
 import com.google.firebase.storage.FirebaseStorage;
+import com.google.firebase.storage.StorageMetadata;
 import com.google.firebase.storage.StorageReference;
 
 import java.util.HashMap;
@@ -28,11 +30,13 @@ public class AuthRepository {
     private final FirebaseAuth firebaseAuth;
     private final FirebaseFirestore firestore;
     private final FirebaseStorage storage;
+    private final ImagePreparer imagePreparer;
 
-    public AuthRepository() {
+    public AuthRepository(Context context) {
         this.firebaseAuth = FirebaseAuth.getInstance();
         this.firestore = FirebaseFirestore.getInstance();
         this.storage = FirebaseStorage.getInstance();
+        this.imagePreparer = new ImagePreparer(context);
     }
 
     public void loginUser(String email, String password, MutableLiveData<AuthResource<FirebaseUser>> userAuthLiveData) {
@@ -136,11 +140,18 @@ public class AuthRepository {
 
     private void uploadProfilePhoto(String userId, Uri photoUri, OnPhotoUploadListener listener) {
         StorageReference photoRef = storage.getReference().child("profile_photos/" + userId);
-        photoRef.putFile(photoUri)
-                .addOnSuccessListener(taskSnapshot -> photoRef.getDownloadUrl()
-                        .addOnSuccessListener(uri -> listener.onSuccess(uri.toString()))
-                        .addOnFailureListener(e -> listener.onSuccess(null))) // Non-fatal if URL fetch fails
-                .addOnFailureListener(e -> listener.onSuccess(null)); // Non-fatal if upload fails
+        StorageMetadata metadata = new StorageMetadata.Builder()
+                .setContentType(ImagePreparer.CONTENT_TYPE)
+                .build();
+        imagePreparer.prepare(photoUri, ImagePreparer.PROFILE_MAX_EDGE)
+                .onSuccessTask(bytes -> photoRef.putBytes(bytes, metadata))
+                .onSuccessTask(taskSnapshot -> photoRef.getDownloadUrl())
+                .addOnSuccessListener(uri -> listener.onSuccess(uri.toString()))
+                .addOnFailureListener(e -> {
+                    // Non-fatal if the photo cannot be prepared or uploaded
+                    Log.e(TAG, "Failed to upload profile photo", e);
+                    listener.onSuccess(null);
+                });
     }
 
     private void updateFirebaseAndFirestoreProfiles(FirebaseUser firebaseUser, String displayName, @Nullable String photoUrl, MutableLiveData<AuthResource<Void>> updateResult) {
@@ -190,6 +201,7 @@ public class AuthRepository {
 
     public void logout() {
         firebaseAuth.signOut();
+        RecipeStore.getInstance().clear();
     }
 
     interface OnPhotoUploadListener {
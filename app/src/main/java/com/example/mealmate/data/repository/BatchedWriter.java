@@ -0,0 +1,343 @@
+package com.example.mealmate.data.repository;
+
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.TaskCompletionSource;
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.SetOptions;
+import com.google.firebase.firestore.WriteBatch;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Bulk write engine that splits an arbitrary number of Firestore write
+ * operations into batches of at most {@link #MAX_OPERATIONS_PER_BATCH}
+ * operations and commits a configurable number of them in parallel.
+ * <p>
+ * Each chunk is atomic on its own, but the write as a whole is not: if some
+ * chunks fail, the others stay committed. Failed chunks are remembered and can
+ * be committed again with {@link #retryFailed(ProgressListener)} without
+ * rewriting the chunks that already succeeded.
+ * <p>
+ * Not thread-safe; queue operations and commit from the main thread.
+ */
+public class BatchedWriter {
+
+    private static final String TAG = "BatchedWriter";
+
+    /**
+     * Maximum number of operations Firestore accepts in a single batch.
+     */
+    public static final int MAX_OPERATIONS_PER_BATCH = 500;
+
+    /**
+     * Default number of chunks committed at the same time.
+     */
+    public static final int DEFAULT_PARALLELISM = 4;
+
+    /**
+     * A single write operation, applied to the batch of the chunk it falls in.
+     */
+    public interface Operation {
+        void applyTo(@NonNull WriteBatch batch);
+    }
+
+    /**
+     * Receives per-chunk progress while a commit is running. Callbacks are
+     * delivered on the main thread.
+     */
+    public interface ProgressListener {
+        /**
+         * Called when a chunk has been committed.
+         *
+         * @param chunkIndex      The index of the committed chunk
+         * @param committedChunks The number of chunks committed so far
+         * @param totalChunks     The total number of chunks in this writer
+         */
+        void onChunkCommitted(int chunkIndex, int committedChunks, int totalChunks);
+
+        /**
+         * Called when a chunk failed to commit.
+         *
+         * @param chunkIndex The index of the failed chunk
+         * @param error      The cause of the failure
+         */
+        void onChunkFailed(int chunkIndex, @NonNull Exception error);
+    }
+
+    /**
+     * Thrown (as the failure of the commit task) when one or more chunks could
+     * not be committed.
+     */
+    public static class BatchWriteException extends Exception {
+        private final List<Integer> failedChunks;
+        private final int totalChunks;
+
+        BatchWriteException(List<Integer> failedChunks, int totalChunks, Exception firstError) {
+            super(failedChunks.size() + " of " + totalChunks + " write batches failed: "
+                    + firstError.getMessage(), firstError);
+            this.failedChunks = Collections.unmodifiableList(failedChunks);
+            this.totalChunks = totalChunks;
+        }
+
+        /**
+         * Gets the indexes of the chunks that failed.
+         *
+         * @return The failed chunk indexes, in ascending order
+         */
+        public List<Integer> getFailedChunks() {
+            return failedChunks;
+        }
+
+        /**
+         * Gets the total number of chunks in the write.
+         *
+         * @return The total number of chunks
+         */
+        public int getTotalChunks() {
+            return totalChunks;
+        }
+    }
+
+    private enum ChunkState { PENDING, COMMITTED, FAILED }
+
+    private final FirebaseFirestore firestore;
+    private final int chunkSize;
+    private final int parallelism;
+    private final List<Operation> operations = new ArrayList<>();
+
+    private List<List<Operation>> chunks;
+    private ChunkState[] chunkStates;
+    private boolean committing;
+
+    // State of the commit in progress
+    private List<Integer> queue;
+    private int nextInQueue;
+    private int running;
+    private int committedChunks;
+    private List<Integer> failedChunks;
+    private Exception firstError;
+    private ProgressListener listener;
+    private TaskCompletionSource<Void> completion;
+
+    /**
+     * Creates a writer with the maximum chunk size and the default parallelism.
+     */
+    public BatchedWriter(FirebaseFirestore firestore) {
+        this(firestore, MAX_OPERATIONS_PER_BATCH, DEFAULT_PARALLELISM);
+    }
+
+    /**
+     * @param firestore   The Firestore instance to write to
+     * @param chunkSize   The number of operations per batch (1 to
+     *                    {@link #MAX_OPERATIONS_PER_BATCH})
+     * @param parallelism The number of batches committed at the same time
+     */
+    public BatchedWriter(FirebaseFirestore firestore, int chunkSize, int parallelism) {
+        if (chunkSize < 1 || chunkSize > MAX_OPERATIONS_PER_BATCH) {
+            throw new IllegalArgumentException("chunkSize must be between 1 and " + MAX_OPERATIONS_PER_BATCH);
+        }
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("parallelism must be at least 1");
+        }
+        this.firestore = firestore;
+        this.chunkSize = chunkSize;
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Queues an arbitrary operation.
+     */
+    public BatchedWriter add(@NonNull Operation operation) {
+        if (chunks != null) {
+            throw new IllegalStateException("Operations cannot be added after the first commit");
+        }
+        operations.add(operation);
+        return this;
+    }
+
+    /**
+     * Queues a set of a document.
+     */
+    public BatchedWriter set(@NonNull DocumentReference document, @NonNull Object data) {
+        return add(batch -> batch.set(document, data));
+    }
+
+    /**
+     * Queues a set of a document with the given options (e.g. merge).
+     */
+    public BatchedWriter set(@NonNull DocumentReference document, @NonNull Object data,
+                             @NonNull SetOptions options) {
+        return add(batch -> batch.set(document, data, options));
+    }
+
+    /**
+     * Queues an update of an existing document.
+     */
+    public BatchedWriter update(@NonNull DocumentReference document, @NonNull Map<String, Object> data) {
+        return add(batch -> batch.update(document, data));
+    }
+
+    /**
+     * Queues a delete of a document.
+     */
+    public BatchedWriter delete(@NonNull DocumentReference document) {
+        return add(batch -> batch.delete(document));
+    }
+
+    /**
+     * Gets the number of queued operations.
+     */
+    public int size() {
+        return operations.size();
+    }
+
+    /**
+     * Gets the number of chunks the queued operations are split into.
+     */
+    public int getChunkCount() {
+        return (operations.size() + chunkSize - 1) / chunkSize;
+    }
+
+    /**
+     * Commits all queued operations. The returned task succeeds once every
+     * chunk is committed, or fails with a {@link BatchWriteException} listing
+     * the failed chunks after all chunks have been attempted.
+     *
+     * @param listener Optional listener for per-chunk progress
+     */
+    public Task<Void> commit(@Nullable ProgressListener listener) {
+        if (chunks == null) {
+            chunks = new ArrayList<>();
+            for (int start = 0; start < operations.size(); start += chunkSize) {
+                chunks.add(operations.subList(start, Math.min(start + chunkSize, operations.size())));
+            }
+            chunkStates = new ChunkState[chunks.size()];
+            for (int i = 0; i < chunkStates.length; i++) {
+                chunkStates[i] = ChunkState.PENDING;
+            }
+        }
+        return run(ChunkState.PENDING, listener);
+    }
+
+    /**
+     * Commits again only the chunks that failed in the previous commit.
+     *
+     * @param listener Optional listener for per-chunk progress
+     */
+    public Task<Void> retryFailed(@Nullable ProgressListener listener) {
+        if (chunks == null) {
+            throw new IllegalStateException("Nothing has been committed yet");
+        }
+        return run(ChunkState.FAILED, listener);
+    }
+
+    /**
+     * Returns whether any chunk failed in the last commit.
+     */
+    public boolean hasFailedChunks() {
+        if (chunkStates == null) {
+            return false;
+        }
+        for (ChunkState state : chunkStates) {
+            if (state == ChunkState.FAILED) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private Task<Void> run(ChunkState selectedState, @Nullable ProgressListener listener) {
+        if (committing) {
+            throw new IllegalStateException("A commit is already in progress");
+        }
+
+        queue = new ArrayList<>();
+        committedChunks = 0;
+        for (int i = 0; i < chunkStates.length; i++) {
+            if (chunkStates[i] == selectedState) {
+                queue.add(i);
+            } else if (chunkStates[i] == ChunkState.COMMITTED) {
+                committedChunks++;
+            }
+        }
+        nextInQueue = 0;
+        running = 0;
+        failedChunks = new ArrayList<>();
+        firstError = null;
+        this.listener = listener;
+        completion = new TaskCompletionSource<>();
+
+        if (queue.isEmpty()) {
+            completion.setResult(null);
+            return completion.getTask();
+        }
+
+        committing = true;
+        Log.d(TAG, "Committing " + queue.size() + " of " + chunks.size() + " chunks ("
+                + operations.size() + " operations)");
+        while (running < parallelism && nextInQueue < queue.size()) {
+            startNextChunk();
+        }
+        return completion.getTask();
+    }
+
+    private void startNextChunk() {
+        int chunkIndex = queue.get(nextInQueue++);
+        running++;
+
+        WriteBatch batch = firestore.batch();
+        for (Operation operation : chunks.get(chunkIndex)) {
+            operation.applyTo(batch);
+        }
+
+        batch.commit()
+                .addOnSuccessListener(aVoid -> {
+                    chunkStates[chunkIndex] = ChunkState.COMMITTED;
+                    committedChunks++;
+                    if (listener != null) {
+                        listener.onChunkCommitted(chunkIndex, committedChunks, chunks.size());
+                    }
+                    onChunkFinished();
+                })
+                .addOnFailureListener(e -> {
+                    Log.e(TAG, "Failed to commit chunk " + chunkIndex, e);
+                    chunkStates[chunkIndex] = ChunkState.FAILED;
+                    failedChunks.add(chunkIndex);
+                    if (firstError == null) {
+                        firstError = e;
+                    }
+                    if (listener != null) {
+                        listener.onChunkFailed(chunkIndex, e);
+                    }
+                    onChunkFinished();
+                });
+    }
+
+    private void onChunkFinished() {
+        running--;
+        if (nextInQueue < queue.size()) {
+            startNextChunk();
+            return;
+        }
+        if (running > 0) {
+            return;
+        }
+
+        committing = false;
+        if (failedChunks.isEmpty()) {
+            completion.setResult(null);
+        } else {
+            Collections.sort(failedChunks);
+            completion.setException(new BatchWriteException(failedChunks, chunks.size(), firstError));
+        }
+    }
+}
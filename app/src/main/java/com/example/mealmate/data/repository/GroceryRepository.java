@@ -2,19 +2,31 @@ package com.example.mealmate.data.repository;
 
 import android.util.Log;
 
+import androidx.annotation.NonNull;
 import androidx.lifecycle.MutableLiveData;
 
 import com.example.mealmate.data.model.AuthResource;
 import com.example.mealmate.data.model.GroceryItem;
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.auth.FirebaseUser;
-import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.FieldValue;
 import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.ListenerRegistration;
 import com.google.firebase.firestore.QueryDocumentSnapshot;
+import com.google.firebase.firestore.SetOptions;
+import com.google.firebase.firestore.Source;
+import com.google.firebase.firestore.WriteBatch;
 
+import java.io.UnsupportedEncodingException;
+import java.net.URLEncoder;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 
 /**
@@ -24,12 +36,15 @@ import java.util.Map;
 public class GroceryRepository {
 
     private static final String TAG = "GroceryRepository";
+    static final String MAIN_LIST_ID = "main_list";
     private final FirebaseFirestore firestore;
     private final FirebaseAuth firebaseAuth;
+    private final PurchasedWriteQueue purchasedWriteQueue;
 
     public GroceryRepository() {
         this.firestore = FirebaseFirestore.getInstance();
         this.firebaseAuth = FirebaseAuth.getInstance();
+        this.purchasedWriteQueue = new PurchasedWriteQueue(firestore);
     }
 
     /**
@@ -69,38 +84,103 @@ public class GroceryRepository {
     }
 
     /**
-     * Updates a single grocery item's state.
+     * Listens to a grocery list in real time. After the first snapshot, the
+     * server only sends the documents that changed (local writes are reported
+     * immediately), so mutations and edits from other devices never need a
+     * full re-read. Each snapshot delivers the complete list, which adapters
+     * diff against the displayed one.
      *
-     * @param listId         The ID of the grocery list
-     * @param item           The item to update
-     * @param resultLiveData LiveData to notify about the operation result
+     * @param listId   The ID of the grocery list to observe
+     * @param liveData LiveData to notify about each snapshot
+     * @return The registration to remove when the list is no longer observed,
+     * or null if no user is signed in
      */
-    public void updateGroceryItem(String listId, GroceryItem item, MutableLiveData<AuthResource<Void>> resultLiveData) {
+    public ListenerRegistration observeGroceryList(String listId,
+                                                   MutableLiveData<AuthResource<List<GroceryItem>>> liveData) {
         FirebaseUser currentUser = firebaseAuth.getCurrentUser();
         if (currentUser == null) {
-            resultLiveData.setValue(AuthResource.error("User not authenticated", null));
-            return;
+            liveData.setValue(AuthResource.error("User not authenticated", null));
+            return null;
         }
 
-        resultLiveData.setValue(AuthResource.loading(null));
+        liveData.setValue(AuthResource.loading(null));
 
-        firestore.collection("users")
+        return firestore.collection("users")
                 .document(currentUser.getUid())
                 .collection("groceryLists")
                 .document(listId)
                 .collection("items")
-                .document(item.getItemId())
-                .set(item)
-                .addOnSuccessListener(aVoid -> {
-                    Log.d(TAG, "Grocery item updated successfully: " + item.getItemId());
-                    resultLiveData.setValue(AuthResource.success(null));
-                })
-                .addOnFailureListener(e -> {
-                    Log.e(TAG, "Failed to update grocery item", e);
-                    resultLiveData.setValue(AuthResource.error("Failed to update item: " + e.getMessage(), null));
+                .addSnapshotListener((queryDocumentSnapshots, e) -> {
+                    if (e != null) {
+                        Log.e(TAG, "Grocery list listener failed", e);
+                        liveData.setValue(AuthResource.error("Failed to fetch grocery list: " + e.getMessage(), null));
+                        return;
+                    }
+                    if (queryDocumentSnapshots == null) {
+                        return;
+                    }
+
+                    List<GroceryItem> items = new ArrayList<>();
+                    for (QueryDocumentSnapshot document : queryDocumentSnapshots) {
+                        items.add(document.toObject(GroceryItem.class));
+                    }
+
+                    Log.d(TAG, "Grocery list snapshot with " + queryDocumentSnapshots.getDocumentChanges().size()
+                            + " changes (" + items.size() + " items)");
+                    liveData.setValue(AuthResource.success(items));
                 });
     }
 
+    /**
+     * Queues a change of an item's purchased flag in the write-behind queue.
+     * Repeated toggles of the same item are coalesced and the pending toggles
+     * are written together as field-level updates, see {@link PurchasedWriteQueue}.
+     *
+     * @param listId The ID of the grocery list
+     * @param item   The item, already carrying its new purchased state
+     * @return A task that completes when the queued toggle is written, or fails
+     * if its write fails
+     */
+    public Task<Void> queuePurchasedToggle(String listId, GroceryItem item) {
+        FirebaseUser currentUser = firebaseAuth.getCurrentUser();
+        if (currentUser == null) {
+            return Tasks.forException(new IllegalStateException("User not authenticated"));
+        }
+
+        DocumentReference statsDocument = MAIN_LIST_ID.equals(listId)
+                ? UserStatsRepository.statsDocument(firestore, currentUser.getUid())
+                : null;
+        return purchasedWriteQueue.enqueue(itemDocument(listId, item.getItemId()), item.isPurchased(),
+                statsDocument);
+    }
+
+    /**
+     * Writes all queued purchased toggles now.
+     */
+    public void flushPendingWrites() {
+        purchasedWriteQueue.flush();
+    }
+
+    /**
+     * Gets the number of purchased toggles that were coalesced into another
+     * toggle's write instead of being written on their own.
+     *
+     * @return The number of writes saved by the write-behind queue
+     */
+    public long getCoalescedWriteCount() {
+        return purchasedWriteQueue.getCoalescedWriteCount();
+    }
+
+    private DocumentReference itemDocument(String listId, String itemId) {
+        FirebaseUser currentUser = firebaseAuth.getCurrentUser();
+        return firestore.collection("users")
+                .document(currentUser != null ? currentUser.getUid() : "")
+                .collection("groceryLists")
+                .document(listId)
+                .collection("items")
+                .document(itemId);
+    }
+
     /**
      * Deletes an item from the grocery list.
      *
@@ -109,39 +189,77 @@ public class GroceryRepository {
      * @param resultLiveData LiveData to notify about the operation result
      */
     public void deleteGroceryItem(String listId, GroceryItem item, MutableLiveData<AuthResource<Void>> resultLiveData) {
-        FirebaseUser currentUser = firebaseAuth.getCurrentUser();
-        if (currentUser == null) {
+        if (firebaseAuth.getCurrentUser() == null) {
             resultLiveData.setValue(AuthResource.error("User not authenticated", null));
             return;
         }
 
         resultLiveData.setValue(AuthResource.loading(null));
 
-        firestore.collection("users")
-                .document(currentUser.getUid())
-                .collection("groceryLists")
-                .document(listId)
-                .collection("items")
-                .document(item.getItemId())
-                .delete()
-                .addOnSuccessListener(aVoid -> {
-                    Log.d(TAG, "Grocery item deleted successfully: " + item.getItemId());
-                    resultLiveData.setValue(AuthResource.success(null));
-                })
-                .addOnFailureListener(e -> {
-                    Log.e(TAG, "Failed to delete grocery item", e);
-                    resultLiveData.setValue(AuthResource.error("Failed to delete item: " + e.getMessage(), null));
-                });
+        deleteGroceryItem(listId, item)
+                .addOnSuccessListener(aVoid -> resultLiveData.setValue(AuthResource.success(null)))
+                .addOnFailureListener(e -> resultLiveData.setValue(
+                        AuthResource.error("Failed to delete item: " + e.getMessage(), null)));
     }
 
     /**
-     * Saves a newly generated grocery list to Firestore.
+     * Deletes an item from the grocery list. The delete and the unpurchased
+     * counter are written in one batch, so the delete is applied offline like
+     * any other write.
      *
-     * @param listId         The ID for the new grocery list
-     * @param items          The list of grocery items to save
+     * @param listId The ID of the grocery list
+     * @param item   The item to delete, as displayed
+     * @return A task that completes when the delete is committed
+     */
+    public Task<Void> deleteGroceryItem(String listId, GroceryItem item) {
+        FirebaseUser currentUser = firebaseAuth.getCurrentUser();
+        if (currentUser == null) {
+            return Tasks.forException(new IllegalStateException("User not authenticated"));
+        }
+
+        DocumentReference itemRef = itemDocument(listId, item.getItemId());
+
+        // A queued toggle would fail once the item is gone. Dropping it leaves the
+        // stored state the one the item had before the toggle.
+        Boolean storedPurchased = purchasedWriteQueue.discard(itemRef);
+        boolean wasPurchased = storedPurchased != null ? storedPurchased : item.isPurchased();
+
+        WriteBatch batch = firestore.batch();
+        batch.delete(itemRef);
+        if (MAIN_LIST_ID.equals(listId) && !wasPurchased) {
+            batch.set(UserStatsRepository.statsDocument(firestore, currentUser.getUid()),
+                    UserStatsRepository.increment(UserStatsRepository.FIELD_UNPURCHASED_GROCERY_COUNT, -1),
+                    SetOptions.merge());
+        }
+
+        return batch.commit()
+                .addOnSuccessListener(aVoid -> Log.d(TAG, "Grocery item deleted successfully: " + item.getItemId()))
+                .addOnFailureListener(e -> Log.e(TAG, "Failed to delete grocery item", e));
+    }
+
+    /**
+     * Adds items to a grocery list, consolidating them with existing items of
+     * the same name and unit. Item IDs are derived from the normalized name and
+     * unit, so each item is an upsert that adds its quantity on the server with
+     * {@code FieldValue.increment}: the list is never read from the server, the
+     * write costs one write per distinct item, and concurrent additions from
+     * several devices are all applied. An item the local cache shows as
+     * purchased is put back on the list with only the added quantity, as the
+     * bought quantity is no longer needed. Notes and recipe IDs are written if
+     * the added item has them.
+     * For the main list, the unpurchased counter is incremented in the same
+     * batches. Whether an item was already counted is taken from the local
+     * cache, which costs no server read; an item that is not cached is counted
+     * as new. A stale cache, e.g. of an item another device purchased or
+     * deleted, can therefore make the counter drift; it is corrected by
+     * {@link UserStatsRepository#rebuildStats(MutableLiveData)}, which the dashboard and the
+     * profile screen can run.
+     *
+     * @param listId         The ID of the grocery list
+     * @param items          The items to add (their IDs are ignored)
      * @param resultLiveData LiveData to notify about the operation result
      */
-    public void saveGroceryList(String listId, List<GroceryItem> items,
+    public void addGroceryItems(String listId, List<GroceryItem> items,
                                 MutableLiveData<AuthResource<Void>> resultLiveData) {
         FirebaseUser currentUser = firebaseAuth.getCurrentUser();
         if (currentUser == null) {
@@ -149,40 +267,207 @@ public class GroceryRepository {
             return;
         }
 
+        // Consolidate duplicates within this call so each document is written once
+        Map<String, GroceryItem> consolidatedItems = new LinkedHashMap<>();
+        for (GroceryItem item : items) {
+            if (item.getName() == null || item.getName().trim().isEmpty()) {
+                continue;
+            }
+            String itemId = itemIdFor(item.getName(), item.getUnit());
+            GroceryItem existingItem = consolidatedItems.get(itemId);
+            if (existingItem != null) {
+                existingItem.setQuantity(existingItem.getQuantity() + item.getQuantity());
+            } else {
+                GroceryItem copy = new GroceryItem(itemId, item.getName().trim(), item.getQuantity(),
+                        item.getUnit(), item.getCategory(), false, item.getNotes(), item.getRecipeId());
+                consolidatedItems.put(itemId, copy);
+            }
+        }
+
+        if (consolidatedItems.isEmpty()) {
+            resultLiveData.setValue(AuthResource.error("No items to add", null));
+            return;
+        }
+
         resultLiveData.setValue(AuthResource.loading(null));
 
-        // Create a batch write to save all items at once
-        firestore.runBatch(batch -> {
-            // First create the grocery list document with metadata
-            Map<String, Object> listData = new HashMap<>();
-            listData.put("listId", listId);
-            listData.put("userId", currentUser.getUid());
-            listData.put("createdAt", com.google.firebase.Timestamp.now());
-            listData.put("itemCount", items.size());
-
-            batch.set(firestore.collection("users")
-                    .document(currentUser.getUid())
-                    .collection("groceryLists")
-                    .document(listId), listData);
-
-            // Then add all the items
-            for (GroceryItem item : items) {
-                batch.set(firestore.collection("users")
-                        .document(currentUser.getUid())
-                        .collection("groceryLists")
-                        .document(listId)
-                        .collection("items")
-                        .document(item.getItemId()), item);
-            }
-        }).addOnSuccessListener(aVoid -> {
-            Log.d(TAG, "Grocery list saved successfully with " + items.size() + " items");
-            resultLiveData.setValue(AuthResource.success(null));
-        }).addOnFailureListener(e -> {
-            Log.e(TAG, "Failed to save grocery list", e);
-            resultLiveData.setValue(AuthResource.error("Failed to save grocery list: " + e.getMessage(), null));
+        DocumentReference listRef = firestore.collection("users")
+                .document(currentUser.getUid())
+                .collection("groceryLists")
+                .document(listId);
+        DocumentReference statsDocument = MAIN_LIST_ID.equals(listId)
+                ? UserStatsRepository.statsDocument(firestore, currentUser.getUid())
+                : null;
+
+        // Queued toggles reach the local cache once written, so the cache shows them
+        purchasedWriteQueue.flush();
+        cachedPurchasedStates(listRef).addOnCompleteListener(task -> {
+            BatchedWriter writer = upsertWriter(listRef, new ArrayList<>(consolidatedItems.values()),
+                    statsDocument, task.getResult());
+            commitBulkWrite(writer, resultLiveData, () -> {
+                Log.d(TAG, "Added " + consolidatedItems.size() + " grocery items to " + listId);
+                resultLiveData.setValue(AuthResource.success(null));
+            });
         });
     }
 
+    /**
+     * Builds the upserts of consolidated items. Items cached as unpurchased or
+     * not cached get their quantity incremented; items cached as purchased get
+     * it replaced. When a stats document is given, every chunk also increments
+     * the unpurchased counter by the number of its items that were not counted
+     * yet, so a chunk that fails leaves the counter consistent with the items
+     * that were written.
+     *
+     * @param purchasedStates The cached purchased state of each item by ID
+     */
+    private BatchedWriter upsertWriter(DocumentReference listRef, List<GroceryItem> items,
+                                       DocumentReference statsDocument, Map<String, Boolean> purchasedStates) {
+        // One operation of each chunk also writes the counter, so it stays within the batch limit
+        int itemsPerChunk = BatchedWriter.MAX_OPERATIONS_PER_BATCH - 1;
+        BatchedWriter writer = new BatchedWriter(firestore, itemsPerChunk, BatchedWriter.DEFAULT_PARALLELISM);
+        for (int start = 0; start < items.size(); start += itemsPerChunk) {
+            List<GroceryItem> chunk = items.subList(start, Math.min(start + itemsPerChunk, items.size()));
+            long newlyUnpurchased = 0;
+            for (int i = 0; i < chunk.size(); i++) {
+                GroceryItem item = chunk.get(i);
+                DocumentReference itemRef = listRef.collection("items").document(item.getItemId());
+                Map<String, Object> itemData = new HashMap<>();
+                itemData.put("itemId", item.getItemId());
+                itemData.put("name", item.getName());
+                itemData.put("unit", item.getUnit());
+                itemData.put("category", item.getCategory());
+                itemData.put("purchased", false);
+                if (item.getNotes() != null) {
+                    itemData.put("notes", item.getNotes());
+                }
+                if (item.getRecipeId() != null) {
+                    itemData.put("recipeId", item.getRecipeId());
+                }
+                Boolean purchased = purchasedStates.get(item.getItemId());
+                itemData.put("quantity", Boolean.TRUE.equals(purchased)
+                        ? item.getQuantity()
+                        : FieldValue.increment(item.getQuantity()));
+                if (!Boolean.FALSE.equals(purchased)) {
+                    newlyUnpurchased++;
+                }
+
+                long counterDelta = newlyUnpurchased;
+                if (statsDocument != null && i == chunk.size() - 1 && counterDelta > 0) {
+                    writer.add(batch -> {
+                        batch.set(itemRef, itemData, SetOptions.merge());
+                        batch.set(statsDocument, UserStatsRepository.increment(
+                                UserStatsRepository.FIELD_UNPURCHASED_GROCERY_COUNT, counterDelta), SetOptions.merge());
+                    });
+                } else {
+                    writer.set(itemRef, itemData, SetOptions.merge());
+                }
+            }
+        }
+        return writer;
+    }
+
+    /**
+     * Reads the purchased state of the items of a list from the local cache,
+     * by item ID. The task never fails; without a cache it yields an empty map.
+     */
+    private Task<Map<String, Boolean>> cachedPurchasedStates(DocumentReference listRef) {
+        return listRef.collection("items")
+                .get(Source.CACHE)
+                .continueWith(task -> {
+                    Map<String, Boolean> states = new HashMap<>();
+                    if (task.isSuccessful()) {
+                        for (QueryDocumentSnapshot document : task.getResult()) {
+                            states.put(document.getId(), Boolean.TRUE.equals(document.getBoolean("purchased")));
+                        }
+                    } else {
+                        Log.w(TAG, "Cached grocery items unavailable, counting all items as new",
+                                task.getException());
+                    }
+                    return states;
+                });
+    }
+
+    /**
+     * Commits a bulk write, retrying the failed chunks once before reporting an
+     * error. Chunks that were committed stay committed either way.
+     */
+    private void commitBulkWrite(BatchedWriter writer, MutableLiveData<AuthResource<Void>> resultLiveData,
+                                 Runnable onSuccess) {
+        BatchedWriter.ProgressListener progressListener = new BatchedWriter.ProgressListener() {
+            @Override
+            public void onChunkCommitted(int chunkIndex, int committedChunks, int totalChunks) {
+                Log.d(TAG, "Committed write batch " + committedChunks + "/" + totalChunks);
+            }
+
+            @Override
+            public void onChunkFailed(int chunkIndex, @NonNull Exception error) {
+                Log.w(TAG, "Write batch " + chunkIndex + " failed", error);
+            }
+        };
+
+        writer.commit(progressListener)
+                .continueWithTask(task -> writer.hasFailedChunks() ? writer.retryFailed(progressListener) : task)
+                .addOnSuccessListener(aVoid -> onSuccess.run())
+                .addOnFailureListener(e -> {
+                    Log.e(TAG, "Failed to save grocery items", e);
+                    resultLiveData.setValue(AuthResource.error("Failed to save grocery items: " + e.getMessage(), null));
+                });
+    }
+
+    /**
+     * Returns the deterministic document ID of a grocery item, derived from its
+     * normalized name and unit so the same ingredient always maps to the same
+     * document.
+     *
+     * @param name The item name
+     * @param unit The unit of measurement (may be null)
+     * @return A Firestore-safe document ID
+     */
+    public static String itemIdFor(String name, String unit) {
+        String key = normalize(name) + "|" + normalize(unit);
+        try {
+            // Encoding escapes "/" and other characters that are not allowed in document IDs
+            return URLEncoder.encode(key, "UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException("UTF-8 is not supported", e);
+        }
+    }
+
+    /**
+     * Returns the grocery category of an ingredient, based on keywords in its
+     * name (simple categorization, can be enhanced later).
+     *
+     * @param ingredientName The ingredient name
+     * @return The category, or "Other" if no keyword matches
+     */
+    public static String categoryFor(String ingredientName) {
+        String name = ingredientName.toLowerCase();
+
+        if (name.contains("milk") || name.contains("cheese") || name.contains("yogurt") ||
+                name.contains("butter") || name.contains("cream")) {
+            return "Dairy";
+        } else if (name.contains("apple") || name.contains("banana") || name.contains("orange") ||
+                name.contains("berry") || name.contains("fruit")) {
+            return "Fruits";
+        } else if (name.contains("potato") || name.contains("carrot") || name.contains("onion") ||
+                name.contains("tomato") || name.contains("lettuce") || name.contains("vegetable")) {
+            return "Vegetables";
+        } else if (name.contains("chicken") || name.contains("beef") || name.contains("pork") ||
+                name.contains("fish") || name.contains("meat")) {
+            return "Meat & Seafood";
+        } else if (name.contains("bread") || name.contains("pasta") || name.contains("rice") ||
+                name.contains("flour") || name.contains("cereal")) {
+            return "Grains & Bakery";
+        } else {
+            return "Other";
+        }
+    }
+
+    private static String normalize(String value) {
+        return value != null ? value.trim().toLowerCase(Locale.ROOT).replaceAll("\\s+", " ") : "";
+    }
+
     /**
      * Fetches the count of unpurchased grocery items in the main list.
      * @param countLiveData LiveData to notify about the fetched count.
@@ -198,7 +483,7 @@ public class GroceryRepository {
         firestore.collection("users")
                 .document(currentUser.getUid())
                 .collection("groceryLists")
-                .document("main_list") // Hardcoded main list ID
+                .document(MAIN_LIST_ID)
                 .collection("items")
                 .whereEqualTo("purchased", false)
                 .get()
@@ -0,0 +1,213 @@
+package com.example.mealmate.data.repository;
+
+import android.content.ContentResolver;
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.Matrix;
+import android.media.ExifInterface;
+import android.net.Uri;
+import android.util.Log;
+
+import com.example.mealmate.data.model.RecipeImage;
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+
+/**
+ * Prepares picked images for upload: decodes them with a sample size close to
+ * the target, scales them to a maximum edge or to each recipe image rendition,
+ * applies the EXIF orientation to the pixels and re-encodes them as JPEG. The
+ * encoded bytes carry no EXIF metadata, so location and camera details are
+ * never uploaded.
+ * All work runs on a dedicated background executor.
+ */
+public class ImagePreparer {
+
+    private static final String TAG = "ImagePreparer";
+
+    /** Maximum edge of an uploaded profile photo, in pixels. */
+    public static final int PROFILE_MAX_EDGE = 512;
+    /** Content type of the prepared images. */
+    public static final String CONTENT_TYPE = "image/jpeg";
+
+    private static final int JPEG_QUALITY = 85;
+
+    // Decoding is memory hungry, so images are prepared one at a time
+    private static final Executor imageExecutor = Executors.newSingleThreadExecutor();
+
+    private final ContentResolver contentResolver;
+
+    public ImagePreparer(Context context) {
+        this.contentResolver = context.getApplicationContext().getContentResolver();
+    }
+
+    /**
+     * Decodes, scales and re-encodes an image in the background.
+     *
+     * @param imageUri The picked image
+     * @param maxEdge  The maximum width and height of the result, in pixels
+     * @return A task with the encoded JPEG bytes
+     */
+    public Task<byte[]> prepare(Uri imageUri, int maxEdge) {
+        return Tasks.call(imageExecutor, () -> {
+            Bitmap bitmap = decode(imageUri, maxEdge);
+            try {
+                byte[] bytes = encode(bitmap);
+                Log.d(TAG, "Prepared " + bitmap.getWidth() + "x" + bitmap.getHeight()
+                        + " image of " + bytes.length + " bytes");
+                return bytes;
+            } finally {
+                bitmap.recycle();
+            }
+        });
+    }
+
+    /**
+     * Decodes an image once and encodes all recipe image renditions from it in
+     * the background.
+     *
+     * @param imageUri The picked image
+     * @return A task with the encoded JPEG bytes of each rendition
+     */
+    public Task<Map<RecipeImage.Rendition, byte[]>> prepareRenditions(Uri imageUri) {
+        return Tasks.call(imageExecutor, () -> {
+            Map<RecipeImage.Rendition, byte[]> renditions = new EnumMap<>(RecipeImage.Rendition.class);
+            Bitmap full = decode(imageUri, RecipeImage.Rendition.FULL.getMaxEdge());
+            try {
+                for (RecipeImage.Rendition rendition : RecipeImage.Rendition.values()) {
+                    Bitmap scaled = scaleDown(full, rendition.getMaxEdge());
+                    try {
+                        renditions.put(rendition, encode(scaled));
+                    } finally {
+                        if (scaled != full) {
+                            scaled.recycle();
+                        }
+                    }
+                }
+                Log.d(TAG, "Prepared renditions of " + full.getWidth() + "x" + full.getHeight() + " image");
+                return renditions;
+            } finally {
+                full.recycle();
+            }
+        });
+    }
+
+    /**
+     * Decodes an image scaled and rotated for display, with its longer edge at
+     * most maxEdge pixels.
+     */
+    private Bitmap decode(Uri imageUri, int maxEdge) throws IOException {
+        BitmapFactory.Options bounds = new BitmapFactory.Options();
+        bounds.inJustDecodeBounds = true;
+        try (InputStream in = open(contentResolver, imageUri)) {
+            BitmapFactory.decodeStream(in, null, bounds);
+        }
+        if (bounds.outWidth <= 0 || bounds.outHeight <= 0) {
+            throw new IOException("Unsupported image: " + imageUri);
+        }
+
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inSampleSize = sampleSize(bounds.outWidth, bounds.outHeight, maxEdge);
+        Bitmap sampled;
+        try (InputStream in = open(contentResolver, imageUri)) {
+            sampled = BitmapFactory.decodeStream(in, null, options);
+        }
+        if (sampled == null) {
+            throw new IOException("Failed to decode image: " + imageUri);
+        }
+
+        Matrix matrix = new Matrix();
+        float scale = Math.min(1f, (float) maxEdge / Math.max(sampled.getWidth(), sampled.getHeight()));
+        if (scale < 1f) {
+            matrix.postScale(scale, scale);
+        }
+        int rotation = readRotation(contentResolver, imageUri);
+        if (rotation != 0) {
+            matrix.postRotate(rotation);
+        }
+        if (matrix.isIdentity()) {
+            return sampled;
+        }
+
+        Bitmap transformed = Bitmap.createBitmap(sampled, 0, 0, sampled.getWidth(), sampled.getHeight(),
+                matrix, true);
+        if (transformed != sampled) {
+            sampled.recycle();
+        }
+        return transformed;
+    }
+
+    /**
+     * Encodes a bitmap as JPEG.
+     */
+    private static byte[] encode(Bitmap bitmap) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        bitmap.compress(Bitmap.CompressFormat.JPEG, JPEG_QUALITY, out);
+        return out.toByteArray();
+    }
+
+    /**
+     * Returns a copy of the bitmap scaled to a maximum edge, or the bitmap
+     * itself if it already fits.
+     */
+    private static Bitmap scaleDown(Bitmap bitmap, int maxEdge) {
+        int longEdge = Math.max(bitmap.getWidth(), bitmap.getHeight());
+        if (longEdge <= maxEdge) {
+            return bitmap;
+        }
+        float scale = (float) maxEdge / longEdge;
+        return Bitmap.createScaledBitmap(bitmap, Math.max(1, Math.round(bitmap.getWidth() * scale)),
+                Math.max(1, Math.round(bitmap.getHeight() * scale)), true);
+    }
+
+    /**
+     * Returns the largest power of two that keeps the decoded image's longer
+     * edge at or above maxEdge, so the final scaling step only shrinks it.
+     */
+    private static int sampleSize(int width, int height, int maxEdge) {
+        int longEdge = Math.max(width, height);
+        int sampleSize = 1;
+        while (longEdge / (sampleSize * 2) >= maxEdge) {
+            sampleSize *= 2;
+        }
+        return sampleSize;
+    }
+
+    private static int readRotation(ContentResolver contentResolver, Uri imageUri) {
+        try (InputStream in = open(contentResolver, imageUri)) {
+            int orientation = new ExifInterface(in).getAttributeInt(
+                    ExifInterface.TAG_ORIENTATION, ExifInterface.ORIENTATION_NORMAL);
+            switch (orientation) {
+                case ExifInterface.ORIENTATION_ROTATE_90:
+                    return 90;
+                case ExifInterface.ORIENTATION_ROTATE_180:
+                    return 180;
+                case ExifInterface.ORIENTATION_ROTATE_270:
+                    return 270;
+                default:
+                    return 0;
+            }
+        } catch (IOException e) {
+            // Formats without EXIF data are simply not rotated
+            Log.d(TAG, "No EXIF orientation for " + imageUri);
+            return 0;
+        }
+    }
+
+    private static InputStream open(ContentResolver contentResolver, Uri imageUri) throws IOException {
+        InputStream in = contentResolver.openInputStream(imageUri);
+        if (in == null) {
+            throw new FileNotFoundException("Cannot open image: " + imageUri);
+        }
+        return in;
+    }
+}
@@ -0,0 +1,259 @@
+package com.example.mealmate.data.repository;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.net.Uri;
+import android.util.Log;
+
+import com.example.mealmate.data.model.RecipeImage;
+import com.example.mealmate.data.work.RecipeImageUploadWorker;
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.storage.FirebaseStorage;
+import com.google.firebase.storage.StorageException;
+import com.google.firebase.storage.StorageMetadata;
+import com.google.firebase.storage.StorageReference;
+import com.google.firebase.storage.UploadTask;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+
+/**
+ * Uploads recipe images to Firebase Storage under content-addressed names:
+ * /recipe_images/{userId}/{sha256 of the full rendition}.jpg, plus the
+ * thumbnail and medium renditions next to it. An image that is already
+ * stored is not uploaded again.
+ * Uploads are resumable: the prepared renditions are staged in the cache
+ * directory and each upload's session URI is persisted, so an upload cut off
+ * by a dropped connection or process death continues where it stopped the
+ * next time the same image is saved.
+ * Recipes are saved before their image: the picked image is copied into app
+ * storage as a pending image, and {@link RecipeImageUploadWorker} uploads it
+ * in the background.
+ */
+public class ImageUploader {
+
+    private static final String TAG = "ImageUploader";
+    private static final String PREFS_NAME = "image_upload_sessions";
+    private static final String STAGING_DIR = "pending_uploads";
+    private static final String PENDING_IMAGES_DIR = "pending_images";
+
+    // Hashing and staging write whole images, so they run one at a time off the main thread
+    private static final Executor stagingExecutor = Executors.newSingleThreadExecutor();
+
+    private final Context context;
+    private final FirebaseStorage storage;
+    private final ImagePreparer imagePreparer;
+    private final SharedPreferences sessions;
+    private final File stagingDir;
+
+    public ImageUploader(Context context, FirebaseStorage storage) {
+        this.context = context.getApplicationContext();
+        this.storage = storage;
+        this.imagePreparer = new ImagePreparer(context);
+        this.sessions = this.context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        this.stagingDir = new File(this.context.getCacheDir(), STAGING_DIR);
+    }
+
+    /**
+     * Prepares the renditions of a picked image and uploads those not stored
+     * yet.
+     *
+     * @param userId   The owner of the image
+     * @param imageUri The picked image
+     * @return A task with the download URLs of all renditions
+     */
+    public Task<RecipeImage> uploadRecipeImage(String userId, Uri imageUri) {
+        StorageReference imageFolder = storage.getReference()
+                .child("recipe_images")
+                .child(userId);
+
+        return imagePreparer.prepareRenditions(imageUri)
+                .onSuccessTask(stagingExecutor, renditions -> Tasks.forResult(stage(renditions)))
+                .onSuccessTask(staged -> {
+                    String imageName = staged.hash + ".jpg";
+                    List<Task<Uri>> downloadUrls = new ArrayList<>();
+                    for (RecipeImage.Rendition rendition : RecipeImage.Rendition.values()) {
+                        downloadUrls.add(uploadIfMissing(imageFolder.child(rendition.fileName(imageName)),
+                                staged.files.get(rendition)));
+                    }
+                    return Tasks.<Uri>whenAllSuccess(downloadUrls);
+                })
+                .onSuccessTask(downloadUris -> Tasks.forResult(new RecipeImage(
+                        // Download URLs are in rendition order
+                        downloadUris.get(RecipeImage.Rendition.THUMBNAIL.ordinal()).toString(),
+                        downloadUris.get(RecipeImage.Rendition.MEDIUM.ordinal()).toString(),
+                        downloadUris.get(RecipeImage.Rendition.FULL.ordinal()).toString())));
+    }
+
+    /**
+     * Copies a picked image into app storage, so it can be previewed and
+     * uploaded even after the app lost its permission to read the picked URI.
+     * Copying is local and much faster than the upload.
+     *
+     * @param recipeId The recipe the image belongs to
+     * @param imageUri The picked image
+     * @return A task with the file URI of the copy
+     */
+    public Task<Uri> stagePendingImage(String recipeId, Uri imageUri) {
+        return Tasks.call(stagingExecutor, () -> {
+            File pendingDir = new File(context.getFilesDir(), PENDING_IMAGES_DIR);
+            if (!pendingDir.isDirectory() && !pendingDir.mkdirs()) {
+                throw new IOException("Cannot create " + pendingDir);
+            }
+            File file = new File(pendingDir, recipeId + "_" + System.currentTimeMillis() + ".jpg");
+            try (InputStream in = context.getContentResolver().openInputStream(imageUri);
+                 OutputStream out = new FileOutputStream(file)) {
+                if (in == null) {
+                    throw new FileNotFoundException("Cannot open image: " + imageUri);
+                }
+                byte[] buffer = new byte[8192];
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    out.write(buffer, 0, read);
+                }
+            }
+            return Uri.fromFile(file);
+        });
+    }
+
+    /**
+     * Schedules the background upload of a recipe's pending image.
+     *
+     * @param userId        The owner of the recipe
+     * @param recipeId      The recipe the image belongs to
+     * @param localImageUri The file URI returned by {@link #stagePendingImage}
+     */
+    public void schedulePendingUpload(String userId, String recipeId, Uri localImageUri) {
+        RecipeImageUploadWorker.enqueue(context, userId, recipeId, localImageUri);
+    }
+
+    /**
+     * Deletes the local copy of a pending image once it is uploaded.
+     *
+     * @param localImageUri The file URI returned by {@link #stagePendingImage}
+     */
+    public void deletePendingImage(Uri localImageUri) {
+        if (localImageUri.getPath() != null) {
+            deleteStagedFile(new File(localImageUri.getPath()));
+        }
+    }
+
+    /**
+     * Returns the download URL of a stored object, uploading the staged file
+     * first if the object does not exist yet.
+     */
+    private Task<Uri> uploadIfMissing(StorageReference ref, File stagedFile) {
+        return ref.getDownloadUrl().continueWithTask(task -> {
+            if (task.isSuccessful()) {
+                Log.d(TAG, "Skipping upload of existing " + ref.getPath());
+                deleteStagedFile(stagedFile);
+                return task;
+            }
+            Exception e = task.getException();
+            if (!(e instanceof StorageException)
+                    || ((StorageException) e).getErrorCode() != StorageException.ERROR_OBJECT_NOT_FOUND) {
+                return Tasks.forException(e);
+            }
+            return upload(ref, stagedFile).onSuccessTask(taskSnapshot -> ref.getDownloadUrl());
+        });
+    }
+
+    /**
+     * Uploads a staged file, resuming the persisted upload session of the same
+     * object if there is one.
+     */
+    private Task<UploadTask.TaskSnapshot> upload(StorageReference ref, File stagedFile) {
+        String sessionKey = ref.getPath();
+        String sessionUri = sessions.getString(sessionKey, null);
+        StorageMetadata metadata = new StorageMetadata.Builder()
+                .setContentType(ImagePreparer.CONTENT_TYPE)
+                .build();
+
+        UploadTask uploadTask = sessionUri != null
+                ? ref.putFile(Uri.fromFile(stagedFile), metadata, Uri.parse(sessionUri))
+                : ref.putFile(Uri.fromFile(stagedFile), metadata);
+        if (sessionUri != null) {
+            Log.d(TAG, "Resuming upload of " + sessionKey);
+        }
+        uploadTask.addOnProgressListener(snapshot -> {
+            Uri uploadSessionUri = snapshot.getUploadSessionUri();
+            if (uploadSessionUri != null && !uploadSessionUri.toString().equals(sessions.getString(sessionKey, null))) {
+                sessions.edit().putString(sessionKey, uploadSessionUri.toString()).apply();
+            }
+        });
+
+        return uploadTask.continueWithTask(task -> {
+            if (task.isSuccessful()) {
+                sessions.edit().remove(sessionKey).apply();
+                deleteStagedFile(stagedFile);
+            } else if (!(task.getException() instanceof StorageException)
+                    || !((StorageException) task.getException()).getIsRecoverableException()) {
+                // An expired or rejected session cannot be resumed, so the next attempt starts over
+                sessions.edit().remove(sessionKey).apply();
+            }
+            return task;
+        });
+    }
+
+    /**
+     * Hashes the full rendition and writes every rendition to the staging
+     * directory, keeping files staged by an earlier attempt.
+     */
+    private StagedImage stage(Map<RecipeImage.Rendition, byte[]> renditions)
+            throws IOException, NoSuchAlgorithmException {
+        String hash = sha256(renditions.get(RecipeImage.Rendition.FULL));
+        if (!stagingDir.isDirectory() && !stagingDir.mkdirs()) {
+            throw new IOException("Cannot create " + stagingDir);
+        }
+
+        Map<RecipeImage.Rendition, File> files = new EnumMap<>(RecipeImage.Rendition.class);
+        for (Map.Entry<RecipeImage.Rendition, byte[]> entry : renditions.entrySet()) {
+            File file = new File(stagingDir, entry.getKey().fileName(hash + ".jpg"));
+            if (file.length() != entry.getValue().length) {
+                try (OutputStream out = new FileOutputStream(file)) {
+                    out.write(entry.getValue());
+                }
+            }
+            files.put(entry.getKey(), file);
+        }
+        return new StagedImage(hash, files);
+    }
+
+    private static String sha256(byte[] bytes) throws NoSuchAlgorithmException {
+        byte[] digest = MessageDigest.getInstance("SHA-256").digest(bytes);
+        StringBuilder hex = new StringBuilder(digest.length * 2);
+        for (byte b : digest) {
+            hex.append(String.format("%02x", b));
+        }
+        return hex.toString();
+    }
+
+    private static void deleteStagedFile(File stagedFile) {
+        if (stagedFile.exists() && !stagedFile.delete()) {
+            Log.w(TAG, "Failed to delete staged file " + stagedFile);
+        }
+    }
+
+    private static class StagedImage {
+        final String hash;
+        final Map<RecipeImage.Rendition, File> files;
+
+        StagedImage(String hash, Map<RecipeImage.Rendition, File> files) {
+            this.hash = hash;
+            this.files = files;
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.example.mealmate.data.repository;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The net effect of a sequence of recipe assignments and removals on the days
+ * of a stored meal plan. Only the last edit of each recipe on each day counts,
+ * so e.g. an assignment followed by a removal of the same recipe only removes
+ * it. The patch is written with field-level array operations by
+ * {@link MealPlanRepository#patchMealPlanDays(String, MealPlanPatch)}.
+ * Not thread-safe.
+ */
+public class MealPlanPatch {
+
+    private static final String DAYS_FIELD = "days";
+
+    // The last edit per day and recipe: true for an assignment, false for a removal
+    private final Map<String, Map<String, Boolean>> editsByDay = new LinkedHashMap<>();
+
+    /**
+     * Records the assignment of a recipe to a day.
+     *
+     * @param day      The day name
+     * @param recipeId The ID of the assigned recipe
+     * @return This patch
+     */
+    public MealPlanPatch add(String day, String recipeId) {
+        return record(day, recipeId, true);
+    }
+
+    /**
+     * Records the removal of a recipe from a day.
+     *
+     * @param day      The day name
+     * @param recipeId The ID of the removed recipe
+     * @return This patch
+     */
+    public MealPlanPatch remove(String day, String recipeId) {
+        return record(day, recipeId, false);
+    }
+
+    private MealPlanPatch record(String day, String recipeId, boolean added) {
+        Map<String, Boolean> dayEdits = editsByDay.get(day);
+        if (dayEdits == null) {
+            dayEdits = new LinkedHashMap<>();
+            editsByDay.put(day, dayEdits);
+        }
+        // Re-inserting moves the recipe to the end, in the order of the last edits
+        dayEdits.remove(recipeId);
+        dayEdits.put(recipeId, added);
+        return this;
+    }
+
+    /**
+     * Checks whether the patch changes nothing.
+     *
+     * @return True if no edit was recorded
+     */
+    public boolean isEmpty() {
+        return editsByDay.isEmpty();
+    }
+
+    /**
+     * Gets the recipes to add with {@code arrayUnion}, keyed by the field path
+     * of their day (e.g. "days.Monday"). Days without additions are omitted.
+     *
+     * @return The recipe IDs to add per field path, in the order of the edits
+     */
+    public Map<String, List<String>> getAdditions() {
+        return fieldValues(true);
+    }
+
+    /**
+     * Gets the recipes to remove with {@code arrayRemove}, keyed by the field
+     * path of their day (e.g. "days.Monday"). Days without removals are
+     * omitted.
+     *
+     * @return The recipe IDs to remove per field path, in the order of the edits
+     */
+    public Map<String, List<String>> getRemovals() {
+        return fieldValues(false);
+    }
+
+    private Map<String, List<String>> fieldValues(boolean added) {
+        Map<String, List<String>> values = new LinkedHashMap<>();
+        for (Map.Entry<String, Map<String, Boolean>> dayEntry : editsByDay.entrySet()) {
+            List<String> recipeIds = new ArrayList<>();
+            for (Map.Entry<String, Boolean> edit : dayEntry.getValue().entrySet()) {
+                if (edit.getValue() == added) {
+                    recipeIds.add(edit.getKey());
+                }
+            }
+            if (!recipeIds.isEmpty()) {
+                values.put(DAYS_FIELD + "." + dayEntry.getKey(), recipeIds);
+            }
+        }
+        return values;
+    }
+}
@@ -1,22 +1,47 @@
 package com.example.mealmate.data.repository;
 
+import android.content.Context;
 import android.util.Log;
 
 import androidx.lifecycle.MutableLiveData;
 
 import com.example.mealmate.data.model.AuthResource;
 import com.example.mealmate.data.model.MealPlan;
+import com.example.mealmate.data.work.WeeklyGroceryWorker;
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
 import com.google.firebase.Timestamp;
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.auth.FirebaseUser;
+import com.google.firebase.firestore.CollectionReference;
+import com.google.firebase.firestore.DocumentReference;
 import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldValue;
 import com.google.firebase.firestore.FirebaseFirestore;
 import com.google.firebase.firestore.Query;
 import com.google.firebase.firestore.QueryDocumentSnapshot;
+import com.google.firebase.firestore.SetOptions;
+import com.google.firebase.firestore.Source;
+import com.google.firebase.firestore.WriteBatch;
 
+import java.time.DayOfWeek;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.IsoFields;
+import java.time.temporal.TemporalAdjusters;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.UUID;
+import java.util.Locale;
+import java.util.Map;
 
 /**
  * Repository class for handling meal plan-related operations with Firebase
@@ -25,12 +50,24 @@ import java.util.UUID;
 public class MealPlanRepository {
 
     private static final String TAG = "MealPlanRepository";
+    // Largest distance of a time zone from UTC
+    private static final int MAX_ZONE_OFFSET_HOURS = 14;
+    private final Context context;
     private final FirebaseFirestore firestore;
     private final FirebaseAuth firebaseAuth;
 
-    public MealPlanRepository() {
-        this.firestore = FirebaseFirestore.getInstance();
-        this.firebaseAuth = FirebaseAuth.getInstance();
+    public MealPlanRepository(Context context) {
+        this(context, FirebaseFirestore.getInstance(), FirebaseAuth.getInstance());
+    }
+
+    /**
+     * Constructor with explicit dependencies, e.g. Firestore and Auth instances
+     * connected to the emulators.
+     */
+    public MealPlanRepository(Context context, FirebaseFirestore firestore, FirebaseAuth firebaseAuth) {
+        this.context = context.getApplicationContext();
+        this.firestore = firestore;
+        this.firebaseAuth = firebaseAuth;
     }
 
     /**
@@ -40,33 +77,209 @@ public class MealPlanRepository {
      * @param resultLiveData LiveData to notify about the operation result
      */
     public void saveMealPlan(MealPlan mealPlan, MutableLiveData<AuthResource<MealPlan>> resultLiveData) {
-        FirebaseUser currentUser = firebaseAuth.getCurrentUser();
-        if (currentUser == null) {
+        if (firebaseAuth.getCurrentUser() == null) {
             resultLiveData.setValue(AuthResource.error("User not authenticated", null));
             return;
         }
 
         resultLiveData.setValue(AuthResource.loading(null));
 
-        // Set user ID and generate plan ID if not set
+        saveMealPlan(mealPlan)
+                .addOnSuccessListener(savedPlan -> resultLiveData.setValue(AuthResource.success(savedPlan)))
+                .addOnFailureListener(e -> resultLiveData.setValue(
+                        AuthResource.error("Failed to save meal plan: " + e.getMessage(), null)));
+    }
+
+    /**
+     * Saves a new meal plan to Firestore. The user ID is set on the plan, and
+     * the plan ID is derived from its week if the plan has none.
+     * Another device may have created the same week's plan in the meantime, so
+     * the plan is merged into the stored document with a per-day arrayUnion
+     * instead of overwriting it. No transaction is used, so the write is
+     * queued while offline like any other edit. The meal plan counter is only
+     * incremented if the week's plan is not known to exist, checking the local
+     * cache before the server; if neither can tell, the plan is counted as new
+     * and a wrong count is corrected by {@link UserStatsRepository#rebuildStats(MutableLiveData)}.
+     * The precomputation of the week's grocery list is scheduled with the write.
+     *
+     * @param mealPlan The meal plan to save
+     * @return A task that completes with the plan merged with the known stored
+     * one when the write is committed
+     */
+    public Task<MealPlan> saveMealPlan(MealPlan mealPlan) {
+        FirebaseUser currentUser = firebaseAuth.getCurrentUser();
+        if (currentUser == null) {
+            return Tasks.forException(new IllegalStateException("User not authenticated"));
+        }
+
+        // Set user ID and derive the plan ID from the week if not set
         mealPlan.setUserId(currentUser.getUid());
         if (mealPlan.getPlanId() == null) {
-            mealPlan.setPlanId(UUID.randomUUID().toString());
+            mealPlan.setPlanId(weekPlanId(mealPlan.getWeekStartDate().toDate()));
         }
 
-        firestore.collection("users")
+        DocumentReference planRef = firestore.collection("users")
                 .document(mealPlan.getUserId())
                 .collection("mealPlans")
-                .document(mealPlan.getPlanId())
-                .set(mealPlan)
-                .addOnSuccessListener(aVoid -> {
-                    Log.d(TAG, "Meal plan saved successfully: " + mealPlan.getPlanId());
-                    resultLiveData.setValue(AuthResource.success(mealPlan));
+                .document(mealPlan.getPlanId());
+
+        return planRef.get(Source.CACHE)
+                .continueWithTask(task -> task.isSuccessful() ? task : planRef.get())
+                .continueWithTask(task -> {
+                    DocumentSnapshot existing = task.isSuccessful() ? task.getResult() : null;
+                    if (existing == null) {
+                        Log.w(TAG, "Could not check for a stored plan of the week, counting it as new",
+                                task.getException());
+                    }
+                    MealPlan stored = new MealPlan(mealPlan);
+                    MealPlan existingPlan = existing != null && existing.exists()
+                            ? existing.toObject(MealPlan.class)
+                            : null;
+                    if (existingPlan != null) {
+                        stored.setDays(unionDays(existingPlan.getDays(), mealPlan.getDays()));
+                    }
+
+                    WriteBatch batch = firestore.batch();
+                    batch.set(planRef, mergeData(mealPlan), SetOptions.merge());
+                    if (existing == null || !existing.exists()) {
+                        batch.set(UserStatsRepository.statsDocument(firestore, mealPlan.getUserId()),
+                                UserStatsRepository.increment(UserStatsRepository.FIELD_MEAL_PLAN_COUNT, 1),
+                                SetOptions.merge());
+                    }
+                    Task<Void> commit = batch.commit();
+                    schedulePrecomputation(mealPlan.getPlanId());
+                    return commit.onSuccessTask(aVoid -> Tasks.forResult(stored));
                 })
-                .addOnFailureListener(e -> {
-                    Log.e(TAG, "Failed to save meal plan", e);
-                    resultLiveData.setValue(AuthResource.error("Failed to save meal plan: " + e.getMessage(), null));
-                });
+                .addOnSuccessListener(storedPlan -> Log.d(TAG, "Meal plan saved successfully: " + storedPlan.getPlanId()))
+                .addOnFailureListener(e -> Log.e(TAG, "Failed to save meal plan", e));
+    }
+
+    /**
+     * Builds the fields of a meal plan for a merge write. The recipes of each
+     * day are added with arrayUnion, so recipes stored by another device are
+     * kept; null fields are left out so they do not clear stored values.
+     */
+    private static Map<String, Object> mergeData(MealPlan mealPlan) {
+        Map<String, Object> data = new HashMap<>();
+        data.put("planId", mealPlan.getPlanId());
+        data.put("userId", mealPlan.getUserId());
+        if (mealPlan.getName() != null) {
+            data.put("name", mealPlan.getName());
+        }
+        if (mealPlan.getWeekStartDate() != null) {
+            data.put("weekStartDate", mealPlan.getWeekStartDate());
+        }
+        Map<String, Object> days = new HashMap<>();
+        if (mealPlan.getDays() != null) {
+            for (Map.Entry<String, List<String>> entry : mealPlan.getDays().entrySet()) {
+                List<String> recipes = entry.getValue() != null ? entry.getValue() : new ArrayList<>();
+                days.put(entry.getKey(), FieldValue.arrayUnion(recipes.toArray()));
+            }
+        }
+        data.put("days", days);
+        return data;
+    }
+
+    /**
+     * Merges the recipes planned per day of two plans of the same week. The
+     * recipes of the first plan keep their order and the recipes only planned
+     * in the second one follow them.
+     *
+     * @param days      The days of the first plan (may be null)
+     * @param otherDays The days of the second plan (may be null)
+     * @return The merged days
+     */
+    static Map<String, List<String>> unionDays(Map<String, List<String>> days,
+                                               Map<String, List<String>> otherDays) {
+        Map<String, List<String>> merged = new HashMap<>();
+        for (Map<String, List<String>> source : Arrays.asList(days, otherDays)) {
+            if (source == null) {
+                continue;
+            }
+            for (Map.Entry<String, List<String>> entry : source.entrySet()) {
+                List<String> recipes = merged.get(entry.getKey());
+                if (recipes == null) {
+                    recipes = new ArrayList<>();
+                    merged.put(entry.getKey(), recipes);
+                }
+                if (entry.getValue() == null) {
+                    continue;
+                }
+                for (String recipeId : entry.getValue()) {
+                    if (!recipes.contains(recipeId)) {
+                        recipes.add(recipeId);
+                    }
+                }
+            }
+        }
+        return merged;
+    }
+
+    /**
+     * Applies recipe assignments and removals to the days of a stored meal plan
+     * with field-level array operations ({@code days.<Day>} arrayUnion and
+     * arrayRemove), so edits made on other devices to the same plan are kept
+     * instead of being overwritten by a full-document write. The precomputation
+     * of the week's grocery list is scheduled with the write.
+     *
+     * @param planId The ID of the stored meal plan
+     * @param patch  The net recipe assignments and removals per day
+     * @return A task that completes when the patch is committed
+     */
+    public Task<Void> patchMealPlanDays(String planId, MealPlanPatch patch) {
+        FirebaseUser currentUser = firebaseAuth.getCurrentUser();
+        if (currentUser == null) {
+            return Tasks.forException(new IllegalStateException("User not authenticated"));
+        }
+
+        Map<String, Object> additions = new HashMap<>();
+        for (Map.Entry<String, List<String>> entry : patch.getAdditions().entrySet()) {
+            additions.put(entry.getKey(), FieldValue.arrayUnion(entry.getValue().toArray()));
+        }
+        Map<String, Object> removals = new HashMap<>();
+        for (Map.Entry<String, List<String>> entry : patch.getRemovals().entrySet()) {
+            removals.put(entry.getKey(), FieldValue.arrayRemove(entry.getValue().toArray()));
+        }
+        if (additions.isEmpty() && removals.isEmpty()) {
+            return Tasks.forResult(null);
+        }
+
+        DocumentReference planRef = firestore.collection("users")
+                .document(currentUser.getUid())
+                .collection("mealPlans")
+                .document(planId);
+
+        // A field takes one transform per update, so a day with both additions and
+        // removals needs a second update in the same batch
+        WriteBatch batch = firestore.batch();
+        if (!additions.isEmpty()) {
+            batch.update(planRef, additions);
+        }
+        if (!removals.isEmpty()) {
+            batch.update(planRef, removals);
+        }
+
+        Task<Void> commit = batch.commit();
+        schedulePrecomputation(planId);
+        return commit
+                .addOnSuccessListener(aVoid -> Log.d(TAG, "Meal plan patched: " + planId + " ("
+                        + additions.size() + " days with additions, " + removals.size() + " with removals)"))
+                .addOnFailureListener(e -> Log.e(TAG, "Failed to patch meal plan", e));
+    }
+
+    /**
+     * Schedules the precomputation of the grocery list of a written plan. It is
+     * scheduled with the local write rather than on the server acknowledgement,
+     * which may not come before the process dies while offline; the job waits
+     * for the network itself.
+     */
+    private void schedulePrecomputation(String planId) {
+        Timestamp weekStartDate = weekStartOfPlanId(planId);
+        if (weekStartDate != null) {
+            WeeklyGroceryWorker.enqueue(context, weekStartDate);
+        } else {
+            Log.w(TAG, "Not a week plan ID, grocery list not precomputed: " + planId);
+        }
     }
 
     /**
@@ -145,34 +358,179 @@ public class MealPlanRepository {
      * @param mealPlanLiveData LiveData to notify about the fetched meal plan.
      */
     public void getMealPlanForWeek(Timestamp weekStartDate, MutableLiveData<AuthResource<MealPlan>> mealPlanLiveData) {
-        FirebaseUser currentUser = firebaseAuth.getCurrentUser();
-        if (currentUser == null) {
+        if (firebaseAuth.getCurrentUser() == null) {
             mealPlanLiveData.setValue(AuthResource.error("User not authenticated", null));
             return;
         }
 
         mealPlanLiveData.setValue(AuthResource.loading(null));
 
-        firestore.collection("users")
+        getMealPlanForWeek(weekStartDate)
+                .addOnSuccessListener(mealPlan -> mealPlanLiveData.setValue(AuthResource.success(mealPlan)))
+                .addOnFailureListener(e -> mealPlanLiveData.setValue(
+                        AuthResource.error("Failed to fetch meal plan: " + e.getMessage(), null)));
+    }
+
+    /**
+     * Fetches the meal plan of a week with a direct document read, using the
+     * week's deterministic plan ID.
+     *
+     * @param weekStartDate The timestamp of the Monday of the week to fetch
+     * @return A task that completes with the plan, or with null if the week has
+     * no stored plan
+     */
+    public Task<MealPlan> getMealPlanForWeek(Timestamp weekStartDate) {
+        FirebaseUser currentUser = firebaseAuth.getCurrentUser();
+        if (currentUser == null) {
+            return Tasks.forException(new IllegalStateException("User not authenticated"));
+        }
+
+        return firestore.collection("users")
                 .document(currentUser.getUid())
                 .collection("mealPlans")
-                .whereEqualTo("weekStartDate", weekStartDate)
-                .limit(1)
+                .document(weekPlanId(weekStartDate.toDate()))
                 .get()
-                .addOnSuccessListener(queryDocumentSnapshots -> {
-                    if (queryDocumentSnapshots.isEmpty()) {
-                        // No plan found for this week
-                        mealPlanLiveData.setValue(AuthResource.success(null));
+                .addOnFailureListener(e -> Log.e(TAG, "Failed to fetch meal plan for week", e))
+                .onSuccessTask(documentSnapshot -> Tasks.forResult(documentSnapshot.exists()
+                        ? documentSnapshot.toObject(MealPlan.class)
+                        : null));
+    }
+
+    /**
+     * Returns the stored start of the week a local date falls in: midnight UTC
+     * of its Monday. Week starts are stored in UTC so that devices in different
+     * time zones, or a device that changes zone, agree on the week of a plan.
+     *
+     * @param localDay Any day of the week, in the device's calendar
+     * @return The timestamp to store as the week start
+     */
+    public static Timestamp weekStartOf(Calendar localDay) {
+        LocalDate monday = LocalDate.of(localDay.get(Calendar.YEAR), localDay.get(Calendar.MONTH) + 1,
+                        localDay.get(Calendar.DAY_OF_MONTH))
+                .with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+        return new Timestamp(Date.from(monday.atStartOfDay(ZoneOffset.UTC).toInstant()));
+    }
+
+    /**
+     * Returns the deterministic document ID of the meal plan of a week, in ISO
+     * week notation (e.g. "2026-W42"). The week is derived in UTC, independent
+     * of the device's time zone.
+     *
+     * @param weekStart The stored start of the week (see {@link #weekStartOf(Calendar)})
+     * @return The plan ID of that week
+     */
+    public static String weekPlanId(Date weekStart) {
+        // Week starts stored before they were normalized are local midnights, up to
+        // 14 hours either side of the UTC one; shifting by that much keeps them in the
+        // same week as the UTC Monday
+        LocalDate date = Instant.ofEpochMilli(weekStart.getTime())
+                .plus(MAX_ZONE_OFFSET_HOURS, ChronoUnit.HOURS)
+                .atZone(ZoneOffset.UTC)
+                .toLocalDate();
+        return String.format(Locale.ROOT, "%d-W%02d",
+                date.get(IsoFields.WEEK_BASED_YEAR), date.get(IsoFields.WEEK_OF_WEEK_BASED_YEAR));
+    }
+
+    /**
+     * Returns the stored start of the week of a plan ID, the inverse of
+     * {@link #weekPlanId(Date)}.
+     *
+     * @param planId A plan ID in ISO week notation (e.g. "2026-W42")
+     * @return Midnight UTC of the week's Monday, or null if the ID is not in
+     * ISO week notation (e.g. a plan not migrated yet)
+     */
+    public static Timestamp weekStartOfPlanId(String planId) {
+        try {
+            LocalDate monday = LocalDate.parse(planId + "-1", DateTimeFormatter.ISO_WEEK_DATE);
+            return new Timestamp(Date.from(monday.atStartOfDay(ZoneOffset.UTC).toInstant()));
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    /**
+     * One-time migration of meal plans stored under random IDs (before plans
+     * were keyed by ISO week) to their week's deterministic ID, so every plan
+     * can be fetched with a direct read. Plans that map to the same week,
+     * including a plan already stored under the week ID, are merged into one,
+     * and the meal plan counter is corrected by the number of documents that
+     * disappear. Each week is written atomically, so a failed commit leaves
+     * either the legacy plans or the merged one, and the migration can be run
+     * again.
+     *
+     * @return A task that completes with the number of migrated plans
+     */
+    public Task<Integer> migrateLegacyMealPlanIds() {
+        FirebaseUser currentUser = firebaseAuth.getCurrentUser();
+        if (currentUser == null) {
+            return Tasks.forException(new IllegalStateException("User not authenticated"));
+        }
+
+        CollectionReference mealPlans = firestore.collection("users")
+                .document(currentUser.getUid())
+                .collection("mealPlans");
+
+        return mealPlans.get().onSuccessTask(queryDocumentSnapshots -> {
+            // Plans already stored under their week ID, and the legacy plans of each week
+            Map<String, MealPlan> weekPlans = new HashMap<>();
+            Map<String, List<DocumentSnapshot>> legacyPlans = new LinkedHashMap<>();
+            for (QueryDocumentSnapshot document : queryDocumentSnapshots) {
+                MealPlan mealPlan = document.toObject(MealPlan.class);
+                if (mealPlan.getWeekStartDate() == null) {
+                    continue;
+                }
+                String planId = weekPlanId(mealPlan.getWeekStartDate().toDate());
+                if (planId.equals(document.getId())) {
+                    weekPlans.put(planId, mealPlan);
+                } else {
+                    List<DocumentSnapshot> documents = legacyPlans.get(planId);
+                    if (documents == null) {
+                        documents = new ArrayList<>();
+                        legacyPlans.put(planId, documents);
+                    }
+                    documents.add(document);
+                }
+            }
+
+            BatchedWriter writer = new BatchedWriter(firestore);
+            DocumentReference statsRef = UserStatsRepository.statsDocument(firestore, currentUser.getUid());
+            int migrated = 0;
+            for (Map.Entry<String, List<DocumentSnapshot>> entry : legacyPlans.entrySet()) {
+                MealPlan merged = weekPlans.get(entry.getKey());
+                List<DocumentReference> legacyRefs = new ArrayList<>();
+                for (DocumentSnapshot document : entry.getValue()) {
+                    MealPlan legacyPlan = document.toObject(MealPlan.class);
+                    if (merged == null) {
+                        merged = legacyPlan;
                     } else {
-                        // Plan found
-                        MealPlan mealPlan = queryDocumentSnapshots.getDocuments().get(0).toObject(MealPlan.class);
-                        mealPlanLiveData.setValue(AuthResource.success(mealPlan));
+                        merged.setDays(unionDays(merged.getDays(), legacyPlan.getDays()));
+                    }
+                    legacyRefs.add(document.getReference());
+                    migrated++;
+                }
+                merged.setPlanId(entry.getKey());
+                MealPlan weekPlan = merged;
+                DocumentReference weekRef = mealPlans.document(entry.getKey());
+                // All legacy documents of the week are replaced by a single one
+                long removedDocuments = legacyRefs.size() - (weekPlans.containsKey(entry.getKey()) ? 0 : 1);
+                // The merged plan, the deletes of its legacy documents and the counter
+                // correction go into the same batch, so a failed chunk leaves the week as it was
+                writer.add(batch -> {
+                    batch.set(weekRef, weekPlan);
+                    for (DocumentReference legacyRef : legacyRefs) {
+                        batch.delete(legacyRef);
+                    }
+                    if (removedDocuments > 0) {
+                        batch.set(statsRef,
+                                UserStatsRepository.increment(UserStatsRepository.FIELD_MEAL_PLAN_COUNT, -removedDocuments),
+                                SetOptions.merge());
                     }
-                })
-                .addOnFailureListener(e -> {
-                    Log.e(TAG, "Failed to fetch meal plan for week", e);
-                    mealPlanLiveData.setValue(AuthResource.error("Failed to fetch meal plan: " + e.getMessage(), null));
                 });
+            }
+            int migratedCount = migrated;
+            Log.d(TAG, "Migrating " + migratedCount + " meal plans to week IDs");
+            return writer.commit(null).onSuccessTask(aVoid -> Tasks.forResult(migratedCount));
+        });
     }
 
     /**
@@ -230,11 +588,16 @@ public class MealPlanRepository {
 
         resultLiveData.setValue(AuthResource.loading(null));
 
-        firestore.collection("users")
+        WriteBatch batch = firestore.batch();
+        batch.delete(firestore.collection("users")
                 .document(currentUser.getUid())
                 .collection("mealPlans")
-                .document(mealPlan.getPlanId())
-                .delete()
+                .document(mealPlan.getPlanId()));
+        batch.set(UserStatsRepository.statsDocument(firestore, currentUser.getUid()),
+                UserStatsRepository.increment(UserStatsRepository.FIELD_MEAL_PLAN_COUNT, -1),
+                SetOptions.merge());
+
+        batch.commit()
                 .addOnSuccessListener(aVoid -> {
                     Log.d(TAG, "Meal plan deleted successfully: " + mealPlan.getPlanId());
                     resultLiveData.setValue(AuthResource.success(null));
@@ -0,0 +1,163 @@
+package com.example.mealmate.data.repository;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Local log of optimistic mutations on top of the last known server state.
+ * A mutation is applied to the visible state as soon as it is logged and stays
+ * PENDING until its write is confirmed or fails. A failed mutation is removed
+ * and the visible state is recomputed from the server state and the remaining
+ * mutations, so only the failed change is rolled back.
+ * <p>
+ * Mutations must not modify the state they receive; they return a new state.
+ * They should also be idempotent with respect to the server state (e.g. "remove
+ * the item with ID x"), because a pending mutation is re-applied on top of
+ * every new server state until it is confirmed.
+ * Not thread-safe; use from the main thread.
+ *
+ * @param <S> The type of the state
+ */
+public class MutationLog<S> {
+
+    /**
+     * A change of the state.
+     */
+    public interface Mutation<S> {
+        S apply(S state);
+    }
+
+    /**
+     * The status of a logged mutation.
+     */
+    private enum Status { PENDING, CONFIRMED }
+
+    private static class Entry<S> {
+        final long id;
+        final Mutation<S> mutation;
+        Status status = Status.PENDING;
+
+        Entry(long id, Mutation<S> mutation) {
+            this.id = id;
+            this.mutation = mutation;
+        }
+    }
+
+    private final List<Entry<S>> entries = new ArrayList<>();
+    private S serverState;
+    private S state;
+    private long nextId = 1;
+
+    public MutationLog(S serverState) {
+        this.serverState = serverState;
+        this.state = serverState;
+    }
+
+    /**
+     * Applies a mutation to the visible state and logs it as pending.
+     *
+     * @return The ID of the mutation, used to confirm or fail it
+     */
+    public long apply(Mutation<S> mutation) {
+        Entry<S> entry = new Entry<>(nextId++, mutation);
+        entries.add(entry);
+        state = mutation.apply(state);
+        return entry.id;
+    }
+
+    /**
+     * Marks a mutation as written. It stays applied until the next server
+     * state, which is expected to contain it, replaces it.
+     */
+    public void confirm(long id) {
+        Entry<S> entry = find(id);
+        if (entry != null) {
+            entry.status = Status.CONFIRMED;
+        }
+    }
+
+    /**
+     * Marks a mutation as failed and rolls it back, keeping all other mutations.
+     */
+    public void fail(long id) {
+        Iterator<Entry<S>> iterator = entries.iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().id == id) {
+                iterator.remove();
+                recompute();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Replaces the server state. Confirmed mutations are dropped because the
+     * new server state includes them; pending mutations are re-applied.
+     */
+    public void rebase(S newServerState) {
+        Iterator<Entry<S>> iterator = entries.iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().status == Status.CONFIRMED) {
+                iterator.remove();
+            }
+        }
+        serverState = newServerState;
+        recompute();
+    }
+
+    /**
+     * Replaces the server state and discards every logged mutation, e.g. when
+     * switching to a different document.
+     */
+    public void reset(S newServerState) {
+        entries.clear();
+        serverState = newServerState;
+        state = newServerState;
+    }
+
+    /**
+     * Gets the visible state: the server state with all logged mutations applied.
+     */
+    public S getState() {
+        return state;
+    }
+
+    /**
+     * Gets the IDs of the mutations that are still waiting for their write.
+     */
+    public List<Long> getPendingIds() {
+        List<Long> ids = new ArrayList<>();
+        for (Entry<S> entry : entries) {
+            if (entry.status == Status.PENDING) {
+                ids.add(entry.id);
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * Returns whether any mutation is logged that the server state does not
+     * reflect yet.
+     */
+    public boolean hasUnsyncedMutations() {
+        return !entries.isEmpty();
+    }
+
+    private Entry<S> find(long id) {
+        for (Entry<S> entry : entries) {
+            if (entry.id == id) {
+                return entry;
+            }
+        }
+        return null;
+    }
+
+    private void recompute() {
+        S recomputed = serverState;
+        for (Entry<S> entry : entries) {
+            recomputed = entry.mutation.apply(recomputed);
+        }
+        state = recomputed;
+    }
+}
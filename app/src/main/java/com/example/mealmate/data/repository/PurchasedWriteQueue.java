@@ -0,0 +1,178 @@
+package com.example.mealmate.data.repository;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.TaskCompletionSource;
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.SetOptions;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Write-behind queue for the purchased flag of grocery items. Toggles are held
+ * in memory and coalesced per item, so only the last state of each item is
+ * written; an item toggled back to its original state is not written at all.
+ * Pending toggles are flushed as field-level updates in batches when no toggle
+ * has arrived for {@link #FLUSH_DELAY_MS}, when {@link #MAX_PENDING_ITEMS}
+ * items are pending, or when {@link #flush()} is called (e.g. on pause).
+ * Each toggle gets the outcome of the flush that carries it, so callers can
+ * roll back exactly the toggles whose write failed.
+ * Not thread-safe; use from the main thread.
+ */
+class PurchasedWriteQueue {
+
+    private static final String TAG = "PurchasedWriteQueue";
+
+    static final long FLUSH_DELAY_MS = 2000;
+    static final int MAX_PENDING_ITEMS = 25;
+
+    /**
+     * The pending state of one item.
+     */
+    private static class PendingToggle {
+        final boolean originalPurchased;
+        boolean purchased;
+        // The stats document whose unpurchased counter follows this item, or null
+        final DocumentReference statsDocument;
+
+        PendingToggle(boolean originalPurchased, boolean purchased, DocumentReference statsDocument) {
+            this.originalPurchased = originalPurchased;
+            this.purchased = purchased;
+            this.statsDocument = statsDocument;
+        }
+    }
+
+    private final FirebaseFirestore firestore;
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final Runnable flushRunnable = this::flush;
+    private final Map<DocumentReference, PendingToggle> pending = new LinkedHashMap<>();
+    // Completed by the next flush; shared by all toggles queued since the last one
+    private TaskCompletionSource<Void> nextFlush;
+
+    private long togglesQueued;
+    private long writesCommitted;
+
+    PurchasedWriteQueue(FirebaseFirestore firestore) {
+        this.firestore = firestore;
+    }
+
+    /**
+     * Queues a purchased toggle.
+     *
+     * @param itemRef       The grocery item document
+     * @param purchased     The new purchased state
+     * @param statsDocument The stats document whose unpurchased counter should
+     *                      follow the item, or null
+     * @return A task that completes when the flush carrying this toggle is
+     * written, or fails if that write fails
+     */
+    Task<Void> enqueue(DocumentReference itemRef, boolean purchased, DocumentReference statsDocument) {
+        togglesQueued++;
+        if (nextFlush == null) {
+            nextFlush = new TaskCompletionSource<>();
+        }
+        Task<Void> flushed = nextFlush.getTask();
+
+        PendingToggle toggle = pending.get(itemRef);
+        if (toggle == null) {
+            // The first toggle of an item flips the state it had before
+            pending.put(itemRef, new PendingToggle(!purchased, purchased, statsDocument));
+        } else {
+            toggle.purchased = purchased;
+        }
+
+        handler.removeCallbacks(flushRunnable);
+        if (pending.size() >= MAX_PENDING_ITEMS) {
+            flush();
+        } else {
+            handler.postDelayed(flushRunnable, FLUSH_DELAY_MS);
+        }
+        return flushed;
+    }
+
+    /**
+     * Drops the pending toggle of an item, e.g. because it is being deleted.
+     *
+     * @return The purchased state the item had before the dropped toggle, which
+     * is still its stored state, or null if no toggle was queued
+     */
+    Boolean discard(DocumentReference itemRef) {
+        PendingToggle toggle = pending.remove(itemRef);
+        return toggle != null ? toggle.originalPurchased : null;
+    }
+
+    /**
+     * Writes all pending toggles now.
+     */
+    void flush() {
+        handler.removeCallbacks(flushRunnable);
+        TaskCompletionSource<Void> flushed = nextFlush;
+        nextFlush = null;
+        if (pending.isEmpty()) {
+            // The queued toggles were all discarded
+            if (flushed != null) {
+                flushed.setResult(null);
+            }
+            return;
+        }
+
+        BatchedWriter writer = new BatchedWriter(firestore);
+        Map<DocumentReference, Long> statsDeltas = new HashMap<>();
+        int itemWrites = 0;
+        for (Map.Entry<DocumentReference, PendingToggle> entry : pending.entrySet()) {
+            PendingToggle toggle = entry.getValue();
+            if (toggle.purchased == toggle.originalPurchased) {
+                // Toggled back to where it started
+                continue;
+            }
+            writer.update(entry.getKey(), Collections.singletonMap("purchased", toggle.purchased));
+            itemWrites++;
+            if (toggle.statsDocument != null) {
+                long delta = toggle.purchased ? -1 : 1;
+                Long current = statsDeltas.get(toggle.statsDocument);
+                statsDeltas.put(toggle.statsDocument, (current != null ? current : 0) + delta);
+            }
+        }
+        for (Map.Entry<DocumentReference, Long> entry : statsDeltas.entrySet()) {
+            if (entry.getValue() != 0) {
+                writer.set(entry.getKey(), UserStatsRepository.increment(
+                        UserStatsRepository.FIELD_UNPURCHASED_GROCERY_COUNT, entry.getValue()), SetOptions.merge());
+            }
+        }
+        pending.clear();
+        writesCommitted += itemWrites;
+
+        if (writer.size() == 0) {
+            Log.d(TAG, "All pending toggles cancelled out (" + getCoalescedWriteCount() + " writes coalesced)");
+            flushed.setResult(null);
+            return;
+        }
+
+        int flushedItems = itemWrites;
+        writer.commit(null)
+                .addOnSuccessListener(aVoid -> {
+                    Log.d(TAG, "Flushed " + flushedItems + " purchased toggles ("
+                            + getCoalescedWriteCount() + " writes coalesced)");
+                    flushed.setResult(null);
+                })
+                .addOnFailureListener(e -> {
+                    Log.e(TAG, "Failed to flush purchased toggles", e);
+                    flushed.setException(e);
+                });
+    }
+
+    /**
+     * Gets the number of toggles that did not need their own write because a
+     * later toggle of the same item replaced them or cancelled them out.
+     */
+    long getCoalescedWriteCount() {
+        return togglesQueued - writesCommitted - pending.size();
+    }
+}
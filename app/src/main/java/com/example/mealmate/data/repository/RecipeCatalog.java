@@ -0,0 +1,337 @@
+package com.example.mealmate.data.repository;
+
+import com.example.mealmate.data.model.Recipe;
+import com.example.mealmate.data.model.RecipeImage;
+import com.example.mealmate.data.model.RecipeSummary;
+import com.google.firebase.Timestamp;
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldValue;
+import com.google.firebase.firestore.FirebaseFirestore;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Helpers for the per-user recipe catalog: {@link #SHARD_COUNT} documents at
+ * /users/{userId}/recipeCatalog/shard_{n}, each holding a map of recipe ID to
+ * {@link RecipeSummary} fields. A recipe always lives in the shard picked by
+ * its ID, so summaries can be added, replaced and removed with a merge write in
+ * the same batch as the recipe itself, and the whole list is read with
+ * {@link #SHARD_COUNT} document reads, e.g. to seed the local recipe cache.
+ * Shards created by a merge write may lack older recipes, so the catalog is
+ * only trusted once a full rebuild has stamped every shard with
+ * {@link #CATALOG_VERSION}.
+ */
+class RecipeCatalog {
+
+    // Each shard must stay below Firestore's 1 MiB document limit; at a few
+    // hundred bytes per summary three shards hold several thousand recipes
+    static final int SHARD_COUNT = 3;
+
+    // Leaves headroom below the 1 MiB limit for the estimate's inaccuracy
+    static final long SHARD_SIZE_LIMIT = 896 * 1024;
+
+    // Bump to have every client rebuild the catalog, e.g. after a format change
+    static final long CATALOG_VERSION = 1;
+
+    static final String FIELD_RECIPES = "recipes";
+    static final String FIELD_UPDATED_AT = "updatedAt";
+    static final String FIELD_CATALOG_VERSION = "catalogVersion";
+    static final String FIELD_IMAGE_PENDING = "imagePending";
+    // Only stored by earlier versions; deleted when an image is attached
+    static final String FIELD_PENDING_IMAGE_URI = "pendingImageUri";
+
+    private static final List<String> IMAGE_FIELDS = Arrays.asList("imageUrl", "thumbnailUrl", FIELD_IMAGE_PENDING);
+
+    // Newest first, with the recipe ID as tie-breaker so the order is stable
+    private static final Comparator<RecipeSummary> NEWEST_FIRST = (a, b) -> {
+        Timestamp first = a.getCreatedAt();
+        Timestamp second = b.getCreatedAt();
+        if (first != null && second != null && !first.equals(second)) {
+            return second.compareTo(first);
+        }
+        if (first == null && second != null) {
+            return 1;
+        }
+        if (first != null && second == null) {
+            return -1;
+        }
+        return b.getRecipeId().compareTo(a.getRecipeId());
+    };
+
+    private RecipeCatalog() {
+    }
+
+    /**
+     * Returns the references of all catalog shards of a user.
+     */
+    static List<DocumentReference> shardDocuments(FirebaseFirestore firestore, String userId) {
+        List<DocumentReference> shards = new ArrayList<>();
+        for (int shard = 0; shard < SHARD_COUNT; shard++) {
+            shards.add(shardDocument(firestore, userId, shard));
+        }
+        return shards;
+    }
+
+    /**
+     * Returns the reference of the catalog shard that holds a recipe.
+     */
+    static DocumentReference shardDocument(FirebaseFirestore firestore, String userId, String recipeId) {
+        return shardDocument(firestore, userId, shardOf(recipeId));
+    }
+
+    private static int shardOf(String recipeId) {
+        return Math.floorMod(recipeId.hashCode(), SHARD_COUNT);
+    }
+
+    private static DocumentReference shardDocument(FirebaseFirestore firestore, String userId, int shard) {
+        return firestore.collection("users")
+                .document(userId)
+                .collection("recipeCatalog")
+                .document("shard_" + shard);
+    }
+
+    /**
+     * Builds a merge payload that adds or replaces the summary of a recipe. Use
+     * with {@code SetOptions.merge()} so the shard is created on first use.
+     */
+    static Map<String, Object> upsert(Recipe recipe) {
+        return shardUpdate(recipe.getRecipeId(), toMap(RecipeSummary.fromRecipe(recipe)));
+    }
+
+    /**
+     * Builds a merge payload that replaces the summary of an edited recipe
+     * whose image did not change. The image fields are left out, so the merge
+     * keeps the stored image even if an upload attached it after the edited
+     * copy was read. Use with {@code SetOptions.merge()}.
+     */
+    static Map<String, Object> upsertKeepingImage(Recipe recipe) {
+        Map<String, Object> fields = toMap(RecipeSummary.fromRecipe(recipe));
+        fields.keySet().removeAll(IMAGE_FIELDS);
+        return shardUpdate(recipe.getRecipeId(), fields);
+    }
+
+    /**
+     * Builds a merge payload that attaches an uploaded image to the summary of
+     * a recipe and clears its pending image. Use with {@code SetOptions.merge()}.
+     */
+    static Map<String, Object> imageUpdate(String recipeId, RecipeImage recipeImage) {
+        Map<String, Object> fields = new HashMap<>();
+        fields.put("imageUrl", recipeImage.getUrl(RecipeImage.Rendition.FULL));
+        fields.put("thumbnailUrl", recipeImage.getUrl(RecipeImage.Rendition.THUMBNAIL));
+        fields.put(FIELD_IMAGE_PENDING, false);
+        fields.put(FIELD_PENDING_IMAGE_URI, FieldValue.delete());
+        return shardUpdate(recipeId, fields);
+    }
+
+    /**
+     * Builds a merge payload that removes the summary of a recipe. Use with
+     * {@code SetOptions.merge()}.
+     */
+    static Map<String, Object> removal(String recipeId) {
+        return shardUpdate(recipeId, FieldValue.delete());
+    }
+
+    /**
+     * Builds a merge payload that removes the summary of a recipe and marks the
+     * catalog as incomplete, for a summary that would not fit into its shard.
+     * Use with {@code SetOptions.merge()}.
+     */
+    static Map<String, Object> invalidation(String recipeId) {
+        Map<String, Object> update = shardUpdate(recipeId, FieldValue.delete());
+        update.put(FIELD_CATALOG_VERSION, FieldValue.delete());
+        return update;
+    }
+
+    /**
+     * Builds the complete content of a shard, e.g. when the catalog is rebuilt.
+     * The content is stamped with {@link #CATALOG_VERSION}.
+     */
+    static Map<String, Object> shardContent(List<Recipe> recipes) {
+        Map<String, Object> summaries = new HashMap<>();
+        for (Recipe recipe : recipes) {
+            summaries.put(recipe.getRecipeId(), toMap(RecipeSummary.fromRecipe(recipe)));
+        }
+        Map<String, Object> content = new HashMap<>();
+        content.put(FIELD_RECIPES, summaries);
+        content.put(FIELD_UPDATED_AT, FieldValue.serverTimestamp());
+        content.put(FIELD_CATALOG_VERSION, CATALOG_VERSION);
+        return content;
+    }
+
+    /**
+     * Returns whether the shards hold every recipe: all of them exist and were
+     * last rebuilt with the current {@link #CATALOG_VERSION}.
+     */
+    static boolean isComplete(List<DocumentSnapshot> shards) {
+        for (DocumentSnapshot shard : shards) {
+            Long catalogVersion = shard.getLong(FIELD_CATALOG_VERSION);
+            if (!shard.exists() || catalogVersion == null || catalogVersion != CATALOG_VERSION) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns whether the complete content of a shard stays below
+     * {@link #SHARD_SIZE_LIMIT}.
+     */
+    static boolean fits(Map<String, Object> shardContent) {
+        return estimatedSize(shardContent) <= SHARD_SIZE_LIMIT;
+    }
+
+    /**
+     * Returns whether a shard stays below {@link #SHARD_SIZE_LIMIT} after a
+     * merge payload is applied to it. The payload is counted in full, as if
+     * it replaced nothing.
+     *
+     * @param shard  The current shard, or null if its size is unknown
+     * @param update The merge payload
+     */
+    static boolean fits(DocumentSnapshot shard, Map<String, Object> update) {
+        long shardSize = shard != null && shard.exists() ? estimatedSize(shard.getData()) : 0;
+        return shardSize + estimatedSize(update) <= SHARD_SIZE_LIMIT;
+    }
+
+    /**
+     * Estimates the stored size of a Firestore value following the documented
+     * storage size rules. Sentinels such as server timestamps count as
+     * timestamps.
+     */
+    @SuppressWarnings("unchecked")
+    private static long estimatedSize(Object value) {
+        if (value == null || value instanceof Boolean) {
+            return 1;
+        }
+        if (value instanceof String) {
+            return ((String) value).getBytes(StandardCharsets.UTF_8).length + 1;
+        }
+        if (value instanceof Map) {
+            long size = 0;
+            for (Map.Entry<String, Object> entry : ((Map<String, Object>) value).entrySet()) {
+                size += estimatedSize(entry.getKey()) + estimatedSize(entry.getValue());
+            }
+            return size;
+        }
+        if (value instanceof List) {
+            long size = 0;
+            for (Object element : (List<Object>) value) {
+                size += estimatedSize(element);
+            }
+            return size;
+        }
+        // Numbers, timestamps and field value sentinels
+        return 8;
+    }
+
+    /**
+     * Reads the summaries of all shards, newest recipe first.
+     */
+    @SuppressWarnings("unchecked")
+    static List<RecipeSummary> readSummaries(List<DocumentSnapshot> shards) {
+        List<RecipeSummary> summaries = new ArrayList<>();
+        for (DocumentSnapshot shard : shards) {
+            Object recipes = shard.get(FIELD_RECIPES);
+            if (!(recipes instanceof Map)) {
+                continue;
+            }
+            for (Map.Entry<String, Object> entry : ((Map<String, Object>) recipes).entrySet()) {
+                if (entry.getValue() instanceof Map) {
+                    summaries.add(fromMap(entry.getKey(), (Map<String, Object>) entry.getValue()));
+                }
+            }
+        }
+        Collections.sort(summaries, NEWEST_FIRST);
+        return summaries;
+    }
+
+    /**
+     * Reads the summaries of all shards as header-only recipes of a user,
+     * newest first, e.g. to seed the local recipe cache. The recipes have no
+     * ingredients, instructions, source URL or medium image rendition.
+     */
+    static List<Recipe> readRecipeHeaders(List<DocumentSnapshot> shards, String userId) {
+        List<Recipe> recipes = new ArrayList<>();
+        for (RecipeSummary summary : readSummaries(shards)) {
+            Recipe recipe = new Recipe(summary.getRecipeId(), userId, summary.getName(), null, null,
+                    summary.getImageUrl(), null, summary.getPrepTime(), summary.getCookTime(),
+                    summary.getServings(), summary.getCategory(), summary.getCreatedAt());
+            recipe.setThumbnailUrl(summary.getThumbnailUrl());
+            recipe.setImagePending(summary.isImagePending());
+            recipe.setIngredientCount(summary.getIngredientCount());
+            recipes.add(recipe);
+        }
+        return recipes;
+    }
+
+    /**
+     * Returns the time up to which the shards reflect every recipe write and
+     * deletion: the oldest last update of any shard. A write missing from the
+     * read of a shard was committed after that shard's last update, so it is
+     * newer than the returned time.
+     *
+     * @return The time, or null if a shard has no server timestamp
+     */
+    static Timestamp syncedUntil(List<DocumentSnapshot> shards) {
+        Timestamp syncedUntil = null;
+        for (DocumentSnapshot shard : shards) {
+            Timestamp updatedAt = shard.getTimestamp(FIELD_UPDATED_AT);
+            if (updatedAt == null) {
+                return null;
+            }
+            if (syncedUntil == null || updatedAt.compareTo(syncedUntil) < 0) {
+                syncedUntil = updatedAt;
+            }
+        }
+        return syncedUntil;
+    }
+
+    private static Map<String, Object> shardUpdate(String recipeId, Object summary) {
+        Map<String, Object> update = new HashMap<>();
+        update.put(FIELD_RECIPES, Collections.singletonMap(recipeId, summary));
+        update.put(FIELD_UPDATED_AT, FieldValue.serverTimestamp());
+        return update;
+    }
+
+    private static Map<String, Object> toMap(RecipeSummary summary) {
+        Map<String, Object> fields = new HashMap<>();
+        fields.put("name", summary.getName());
+        fields.put("category", summary.getCategory());
+        fields.put("prepTime", summary.getPrepTime());
+        fields.put("cookTime", summary.getCookTime());
+        fields.put("servings", summary.getServings());
+        fields.put("imageUrl", summary.getImageUrl());
+        fields.put("thumbnailUrl", summary.getThumbnailUrl());
+        fields.put(FIELD_IMAGE_PENDING, summary.isImagePending());
+        fields.put("ingredientCount", summary.getIngredientCount());
+        fields.put("createdAt", summary.getCreatedAt());
+        return fields;
+    }
+
+    private static RecipeSummary fromMap(String recipeId, Map<String, Object> fields) {
+        RecipeSummary summary = new RecipeSummary(recipeId,
+                (String) fields.get("name"),
+                (String) fields.get("category"),
+                (String) fields.get("prepTime"),
+                (String) fields.get("cookTime"),
+                toInt(fields.get("servings")),
+                (String) fields.get("imageUrl"),
+                (String) fields.get("thumbnailUrl"),
+                toInt(fields.get("ingredientCount")),
+                (Timestamp) fields.get("createdAt"));
+        summary.setImagePending(Boolean.TRUE.equals(fields.get(FIELD_IMAGE_PENDING)));
+        return summary;
+    }
+
+    private static int toInt(Object value) {
+        return value instanceof Number ? ((Number) value).intValue() : 0;
+    }
+}
@@ -0,0 +1,177 @@
+package com.example.mealmate.data.repository;
+
+import com.example.mealmate.data.model.Recipe;
+import com.example.mealmate.data.model.RecipeImage;
+import com.google.firebase.firestore.CollectionReference;
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldValue;
+import com.google.firebase.firestore.FirebaseFirestore;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Helpers for the split recipe storage. The recipe document at
+ * /users/{userId}/recipes/{recipeId} is a header with the list-level fields
+ * and the ingredient count; the heavy fields (ingredients and instructions)
+ * live in the body document /users/{userId}/recipes/{recipeId}/body/content,
+ * which only the detail and edit screens read.
+ * Recipes stored before the split keep everything in the header until they
+ * are migrated.
+ */
+class RecipeDocuments {
+
+    static final String FIELD_INGREDIENTS = "ingredients";
+    static final String FIELD_INSTRUCTIONS = "instructions";
+    static final String FIELD_INGREDIENT_COUNT = "ingredientCount";
+    static final String FIELD_UPDATED_AT = "updatedAt";
+    static final String FIELD_DELETED_AT = "deletedAt";
+    static final String FIELD_IMAGE_PENDING = "imagePending";
+    // Only stored by earlier versions; deleted when an image is attached
+    static final String FIELD_PENDING_IMAGE_URI = "pendingImageUri";
+
+    private static final List<String> IMAGE_FIELDS = Arrays.asList(
+            "imageUrl", "thumbnailUrl", "mediumUrl", FIELD_IMAGE_PENDING);
+
+    // Tombstones are pruned after this long. A cache synced less recently than
+    // FULL_SYNC_AFTER_MS is seeded again instead of reading tombstones; the gap
+    // leaves room for clocks that are off between devices.
+    static final long TOMBSTONE_RETENTION_MS = TimeUnit.DAYS.toMillis(30);
+    static final long FULL_SYNC_AFTER_MS = TimeUnit.DAYS.toMillis(14);
+
+    private RecipeDocuments() {
+    }
+
+    /**
+     * Returns the reference of the body document of a recipe.
+     */
+    static DocumentReference bodyDocument(DocumentReference recipeDocument) {
+        return recipeDocument.collection("body").document("content");
+    }
+
+    /**
+     * Builds the complete header document of a recipe.
+     */
+    static Map<String, Object> header(Recipe recipe) {
+        Map<String, Object> header = new HashMap<>();
+        header.put("recipeId", recipe.getRecipeId());
+        header.put("userId", recipe.getUserId());
+        header.put("name", recipe.getName());
+        header.put("imageUrl", recipe.getImageUrl());
+        header.put("thumbnailUrl", recipe.getThumbnailUrl());
+        header.put("mediumUrl", recipe.getMediumUrl());
+        header.put(FIELD_IMAGE_PENDING, recipe.isImagePending());
+        header.put("sourceUrl", recipe.getSourceUrl());
+        header.put("prepTime", recipe.getPrepTime());
+        header.put("cookTime", recipe.getCookTime());
+        header.put("servings", recipe.getServings());
+        header.put("category", recipe.getCategory());
+        header.put("createdAt", recipe.getCreatedAt());
+        header.put(FIELD_INGREDIENT_COUNT, recipe.getIngredientCount());
+        header.put(FIELD_UPDATED_AT, FieldValue.serverTimestamp());
+        return header;
+    }
+
+    /**
+     * Builds the header of an edited recipe whose image did not change. Use
+     * with {@code SetOptions.merge()}: the image fields are left out, so the
+     * stored image is kept even if an upload attached it after the edited copy
+     * was read. A merge keeps the fields it does not mention, so the heavy
+     * fields of a header stored before the split are deleted explicitly.
+     */
+    static Map<String, Object> headerKeepingImage(Recipe recipe) {
+        Map<String, Object> header = header(recipe);
+        header.keySet().removeAll(IMAGE_FIELDS);
+        header.put(FIELD_INGREDIENTS, FieldValue.delete());
+        header.put(FIELD_INSTRUCTIONS, FieldValue.delete());
+        return header;
+    }
+
+    /**
+     * Builds the complete body document of a recipe.
+     */
+    static Map<String, Object> body(Recipe recipe) {
+        Map<String, Object> body = new HashMap<>();
+        body.put(FIELD_INGREDIENTS, recipe.getIngredients());
+        body.put(FIELD_INSTRUCTIONS, recipe.getInstructions());
+        return body;
+    }
+
+    /**
+     * Returns the collection of the tombstones of a user's deleted recipes.
+     */
+    static CollectionReference tombstonesCollection(FirebaseFirestore firestore, String userId) {
+        return firestore.collection("users")
+                .document(userId)
+                .collection("recipeTombstones");
+    }
+
+    /**
+     * Returns the reference of the tombstone that records the deletion of a
+     * recipe, so incremental syncs on other devices can drop their cached copy.
+     */
+    static DocumentReference tombstoneDocument(FirebaseFirestore firestore, String userId, String recipeId) {
+        return tombstonesCollection(firestore, userId).document(recipeId);
+    }
+
+    /**
+     * Builds the update that attaches an uploaded image to a recipe header and
+     * clears its pending state.
+     */
+    static Map<String, Object> imageUpdate(RecipeImage recipeImage) {
+        Map<String, Object> update = new HashMap<>();
+        update.put("imageUrl", recipeImage.getUrl(RecipeImage.Rendition.FULL));
+        update.put("thumbnailUrl", recipeImage.getUrl(RecipeImage.Rendition.THUMBNAIL));
+        update.put("mediumUrl", recipeImage.getUrl(RecipeImage.Rendition.MEDIUM));
+        update.put(FIELD_IMAGE_PENDING, false);
+        update.put(FIELD_PENDING_IMAGE_URI, FieldValue.delete());
+        update.put(FIELD_UPDATED_AT, FieldValue.serverTimestamp());
+        return update;
+    }
+
+    /**
+     * Builds the tombstone document of a deleted recipe.
+     */
+    static Map<String, Object> tombstone() {
+        Map<String, Object> tombstone = new HashMap<>();
+        tombstone.put(FIELD_DELETED_AT, FieldValue.serverTimestamp());
+        return tombstone;
+    }
+
+    /**
+     * Builds the update that removes the heavy fields from a header stored
+     * before the split. The body must be written in the same batch.
+     */
+    static Map<String, Object> legacyHeaderCleanup(Recipe recipe) {
+        Map<String, Object> update = new HashMap<>();
+        update.put(FIELD_INGREDIENTS, FieldValue.delete());
+        update.put(FIELD_INSTRUCTIONS, FieldValue.delete());
+        update.put(FIELD_INGREDIENT_COUNT, recipe.getIngredientCount());
+        update.put(FIELD_UPDATED_AT, FieldValue.serverTimestamp());
+        return update;
+    }
+
+    /**
+     * Returns whether a recipe document was stored before the split, i.e. still
+     * holds the heavy fields itself.
+     */
+    static boolean isLegacyHeader(DocumentSnapshot recipeDocument) {
+        return recipeDocument.contains(FIELD_INGREDIENTS) || recipeDocument.contains(FIELD_INSTRUCTIONS);
+    }
+
+    /**
+     * Copies the heavy fields of a body document into a recipe read from its
+     * header.
+     */
+    static void applyBody(Recipe recipe, DocumentSnapshot body) {
+        Recipe content = body.toObject(Recipe.class);
+        if (content != null) {
+            recipe.setIngredients(content.getIngredients());
+            recipe.setInstructions(content.getInstructions());
+        }
+    }
+}
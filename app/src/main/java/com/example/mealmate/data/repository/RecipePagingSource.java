@@ -0,0 +1,137 @@
+package com.example.mealmate.data.repository;
+
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.concurrent.futures.CallbackToFutureAdapter;
+import androidx.paging.ListenableFuturePagingSource;
+import androidx.paging.PagingState;
+
+import com.example.mealmate.data.model.RecipeSummary;
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.firebase.Timestamp;
+
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+
+/**
+ * PagingSource over a user's recipe summaries, newest first, read page by page
+ * from the local recipe cache. The first load is stale-while-revalidate: the
+ * cached page is returned at once and the cache is synced in the background,
+ * which reads only what changed since the last sync; if that changed any
+ * cached recipe, the source is invalidated so the list reloads. Only an empty
+ * cache waits for the sync, so a first start does not flash the empty state.
+ * Pages are chained with cursors on (createdAt, recipeId), so only the loaded
+ * pages are held in memory regardless of the number of recipes.
+ */
+public class RecipePagingSource extends ListenableFuturePagingSource<RecipePagingSource.Cursor, RecipeSummary> {
+
+    private static final String TAG = "RecipePagingSource";
+
+    private final Supplier<Task<Boolean>> cacheSync;
+    private final PageReader pageReader;
+    private final Executor databaseExecutor;
+
+    /**
+     * Position after which the next page starts.
+     */
+    public static class Cursor {
+        final Timestamp createdAt;
+        final String recipeId;
+
+        Cursor(Timestamp createdAt, String recipeId) {
+            this.createdAt = createdAt;
+            this.recipeId = recipeId;
+        }
+    }
+
+    /**
+     * Reads a page of summaries from the local recipe cache. Called on the
+     * database executor.
+     */
+    interface PageReader {
+        List<RecipeSummary> read(@Nullable Cursor after, int limit);
+    }
+
+    /**
+     * @param cacheSync        Brings the local recipe cache up to date and reports
+     *                         whether it changed
+     * @param pageReader       Reads a page from the local recipe cache
+     * @param databaseExecutor Executor for the blocking page reads
+     */
+    RecipePagingSource(Supplier<Task<Boolean>> cacheSync, PageReader pageReader, Executor databaseExecutor) {
+        this.cacheSync = cacheSync;
+        this.pageReader = pageReader;
+        this.databaseExecutor = databaseExecutor;
+    }
+
+    @NonNull
+    @Override
+    public ListenableFuture<LoadResult<Cursor, RecipeSummary>> loadFuture(@NonNull LoadParams<Cursor> params) {
+        return CallbackToFutureAdapter.getFuture(completer -> {
+            Cursor cursor = params.getKey();
+            int loadSize = params.getLoadSize();
+
+            Tasks.call(databaseExecutor, () -> pageReader.read(cursor, loadSize))
+                    .continueWithTask(databaseExecutor, read -> {
+                        if (cursor != null || !read.isSuccessful()) {
+                            return read;
+                        }
+                        if (!read.getResult().isEmpty()) {
+                            revalidate();
+                            return read;
+                        }
+                        // Nothing cached to show yet, so wait for the sync
+                        return cacheSync.get().continueWith(databaseExecutor, sync -> {
+                            List<RecipeSummary> summaries = pageReader.read(null, loadSize);
+                            if (!sync.isSuccessful() && summaries.isEmpty()) {
+                                throw sync.getException();
+                            }
+                            return summaries;
+                        });
+                    })
+                    .addOnSuccessListener(summaries -> {
+                        // A short page means the end of the cached recipes was reached
+                        Cursor nextCursor = null;
+                        if (summaries.size() == loadSize) {
+                            RecipeSummary last = summaries.get(summaries.size() - 1);
+                            nextCursor = new Cursor(last.getCreatedAt(), last.getRecipeId());
+                        }
+                        Log.d(TAG, "Loaded page of " + summaries.size() + " recipes");
+                        completer.set(new LoadResult.Page<>(summaries, null, nextCursor));
+                    })
+                    .addOnFailureListener(e -> {
+                        Log.e(TAG, "Failed to load recipe page", e);
+                        completer.set(new LoadResult.Error<>(e));
+                    });
+            return "RecipePagingSource.load";
+        });
+    }
+
+    /**
+     * Syncs the cache in the background and invalidates this source if the
+     * sync changed any cached recipe. The next source finds the sync fresh in
+     * the {@link RecipeStore}, so it does not sync again.
+     */
+    private void revalidate() {
+        cacheSync.get()
+                .addOnSuccessListener(changed -> {
+                    if (changed) {
+                        Log.d(TAG, "Recipes changed, reloading");
+                        invalidate();
+                    }
+                })
+                .addOnFailureListener(e -> Log.w(TAG, "Failed to sync recipes, showing cached recipes", e));
+    }
+
+    @Nullable
+    @Override
+    public Cursor getRefreshKey(@NonNull PagingState<Cursor, RecipeSummary> state) {
+        // Cursors only page forward, so a refresh always restarts from the newest recipe
+        return null;
+    }
+}
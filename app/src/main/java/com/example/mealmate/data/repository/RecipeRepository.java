@@ -1,45 +1,102 @@
 package com.example.mealmate.data.repository;
 
+import android.content.Context;
 import android.net.Uri;
 import android.util.Log;
 
+import androidx.annotation.Nullable;
 import androidx.lifecycle.MutableLiveData;
+import androidx.paging.Pager;
+import androidx.paging.PagingConfig;
 
+import com.example.mealmate.data.local.MealMateDatabase;
+import com.example.mealmate.data.local.RecipeLocalDataSource;
+import com.example.mealmate.data.local.SyncStateEntity;
 import com.example.mealmate.data.model.AuthResource;
+import com.example.mealmate.data.model.Ingredient;
 import com.example.mealmate.data.model.Recipe;
+import com.example.mealmate.data.model.RecipeImage;
+import com.example.mealmate.data.model.RecipeSummary;
+import com.example.mealmate.data.work.WeeklyGroceryWorker;
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.Timestamp;
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.auth.FirebaseUser;
+import com.google.firebase.firestore.CollectionReference;
+import com.google.firebase.firestore.DocumentReference;
 import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldPath;
 import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.FirebaseFirestoreException;
 import com.google.firebase.firestore.Query;
 import com.google.firebase.firestore.QueryDocumentSnapshot;
+import com.google.firebase.firestore.QuerySnapshot;
+import com.google.firebase.firestore.SetOptions;
+import com.google.firebase.firestore.Source;
+import com.google.firebase.firestore.WriteBatch;
 import com.google.firebase.storage.FirebaseStorage;
 import com.google.firebase.storage.StorageReference;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.Executor;
 
 /**
  * Repository class for handling recipe-related operations with Firebase
  * Firestore and Storage.
+ * Reads are offline-first: the locally cached copy is published immediately
+ * and then revalidated against Firestore in the background.
  */
 public class RecipeRepository {
 
     private static final String TAG = "RecipeRepository";
+    // Firestore accepts at most 30 values in a whereIn filter
+    private static final int WHERE_IN_LIMIT = 30;
+
+    private final Context context;
     private final FirebaseFirestore firestore;
     private final FirebaseStorage storage;
     private final FirebaseAuth firebaseAuth;
+    private final RecipeLocalDataSource localDataSource;
+    private final Executor databaseExecutor;
+    private final RecipeStore recipeStore;
+    private final ImageUploader imageUploader;
 
-    public RecipeRepository() {
-        this.firestore = FirebaseFirestore.getInstance();
-        this.storage = FirebaseStorage.getInstance();
-        this.firebaseAuth = FirebaseAuth.getInstance();
+    public RecipeRepository(Context context) {
+        this(context, FirebaseFirestore.getInstance(), FirebaseStorage.getInstance(), FirebaseAuth.getInstance(),
+                new RecipeLocalDataSource(MealMateDatabase.getInstance(context)),
+                new ImageUploader(context, FirebaseStorage.getInstance()));
     }
 
     /**
-     * Saves a recipe to Firestore. If the recipe has an image URI, uploads it
-     * first.
+     * Constructor with explicit dependencies, e.g. a Firestore instance connected
+     * to the emulator and a local data source backed by an in-memory database.
+     */
+    public RecipeRepository(Context context, FirebaseFirestore firestore, FirebaseStorage storage,
+                            FirebaseAuth firebaseAuth, RecipeLocalDataSource localDataSource,
+                            ImageUploader imageUploader) {
+        this.context = context.getApplicationContext();
+        this.firestore = firestore;
+        this.storage = storage;
+        this.firebaseAuth = firebaseAuth;
+        this.localDataSource = localDataSource;
+        this.databaseExecutor = MealMateDatabase.databaseExecutor;
+        this.recipeStore = RecipeStore.getInstance();
+        this.imageUploader = imageUploader;
+    }
+
+    /**
+     * Saves a recipe to Firestore. If the recipe has an image URI, the recipe
+     * is saved with the image pending and the image is uploaded in the
+     * background.
      *
      * @param recipe         The recipe to save
      * @param imageUri       The local image URI (optional)
@@ -64,17 +121,18 @@ public class RecipeRepository {
         recipe.setCreatedAt(com.google.firebase.Timestamp.now());
 
         if (imageUri != null) {
-            // Upload image first, then save recipe
-            uploadImage(imageUri, recipe, resultLiveData);
+            // Save recipe with a pending image, then upload it in the background
+            saveWithPendingImage(imageUri, recipe, true, resultLiveData);
         } else {
             // Save recipe directly
-            saveRecipeToFirestore(recipe, resultLiveData);
+            saveRecipeToFirestore(recipe, true, null, resultLiveData);
         }
     }
 
     /**
      * Updates an existing recipe in Firestore. If a new image URI is provided,
-     * uploads it first.
+     * the recipe is saved with the image pending and the image is uploaded in
+     * the background.
      *
      * @param recipe         The recipe to update
      * @param imageUri       The new local image URI (optional, null to keep
@@ -99,50 +157,183 @@ public class RecipeRepository {
         recipe.setUserId(currentUser.getUid());
 
         if (imageUri != null) {
-            // Upload new image first, then update recipe
-            uploadImage(imageUri, recipe, resultLiveData);
+            // Update recipe with a pending image, then upload it in the background
+            saveWithPendingImage(imageUri, recipe, false, resultLiveData);
         } else {
-            // Update recipe directly (keep existing image)
-            saveRecipeToFirestore(recipe, resultLiveData);
+            // Update recipe directly, keeping the stored image. The edited copy may
+            // have been read before a background upload attached its image, so take
+            // the image from the cached copy, which the upload updated
+            Tasks.call(databaseExecutor, () -> localDataSource.getRecipe(recipe.getRecipeId()))
+                    .addOnCompleteListener(task -> {
+                        Recipe cached = task.isSuccessful() ? task.getResult() : null;
+                        if (cached != null) {
+                            copyImage(cached, recipe);
+                        }
+                        saveRecipeToFirestore(recipe, false, null, resultLiveData);
+                    });
         }
     }
 
     /**
-     * Uploads an image to Firebase Storage and then saves the recipe.
+     * Copies the picked image into app storage and saves the recipe with the
+     * copy as its pending image. The upload is scheduled with the recipe
+     * write, so the save only waits for the document write.
      */
-    private void uploadImage(Uri imageUri, Recipe recipe, MutableLiveData<AuthResource<Recipe>> resultLiveData) {
-        StorageReference imageRef = storage.getReference()
-                .child("recipe_images")
-                .child(recipe.getUserId())
-                .child(recipe.getRecipeId() + "_" + System.currentTimeMillis() + ".jpg");
-
-        imageRef.putFile(imageUri)
-                .addOnSuccessListener(taskSnapshot -> {
-                    imageRef.getDownloadUrl().addOnSuccessListener(downloadUri -> {
-                        recipe.setImageUrl(downloadUri.toString());
-                        saveRecipeToFirestore(recipe, resultLiveData);
-                    }).addOnFailureListener(e -> {
-                        Log.e(TAG, "Failed to get download URL", e);
-                        resultLiveData.setValue(AuthResource.error("Failed to upload image: " + e.getMessage(), null));
-                    });
+    private void saveWithPendingImage(Uri imageUri, Recipe recipe, boolean isNewRecipe,
+                                      MutableLiveData<AuthResource<Recipe>> resultLiveData) {
+        imageUploader.stagePendingImage(recipe.getRecipeId(), imageUri)
+                .addOnSuccessListener(localImageUri -> {
+                    recipe.setImagePending(true);
+                    recipe.setPendingImageUri(localImageUri.toString());
+                    saveRecipeToFirestore(recipe, isNewRecipe, localImageUri, resultLiveData);
                 })
                 .addOnFailureListener(e -> {
-                    Log.e(TAG, "Failed to upload image", e);
-                    resultLiveData.setValue(AuthResource.error("Failed to upload image: " + e.getMessage(), null));
+                    Log.e(TAG, "Failed to read image", e);
+                    resultLiveData.setValue(AuthResource.error("Failed to read image: " + e.getMessage(), null));
                 });
     }
 
     /**
-     * Saves recipe data to Firestore.
+     * Uploads the pending image of a saved recipe and attaches it: the recipe
+     * header gets the URL of each rendition and loses its pending state, and
+     * the catalog summary and cached copies are updated to match. Blocking
+     * callers such as workers may await the returned task.
+     *
+     * @param userId        The owner of the recipe
+     * @param recipeId      The recipe the image belongs to
+     * @param localImageUri The file URI of the local copy of the image
+     * @return A task with the uploaded image; it fails with NOT_FOUND if the
+     * recipe was deleted meanwhile
+     */
+    public Task<RecipeImage> attachPendingImage(String userId, String recipeId, Uri localImageUri) {
+        DocumentReference recipeDocument = recipesCollection(userId).document(recipeId);
+        return imageUploader.uploadRecipeImage(userId, localImageUri)
+                .onSuccessTask(recipeImage -> {
+                    // Updating the header fails if the recipe is gone, so no summary is resurrected
+                    WriteBatch batch = firestore.batch();
+                    batch.update(recipeDocument, RecipeDocuments.imageUpdate(recipeImage));
+                    return addCatalogUpdate(batch, userId, recipeId, RecipeCatalog.imageUpdate(recipeId, recipeImage))
+                            .onSuccessTask(aVoid -> batch.commit())
+                            .onSuccessTask(databaseExecutor, aVoid -> {
+                                Recipe cached = localDataSource.getRecipe(recipeId);
+                                if (cached != null) {
+                                    applyImage(cached, recipeImage);
+                                    localDataSource.syncRecipe(cached);
+                                }
+                                Recipe stored = recipeStore.getRecipe(userId, recipeId);
+                                if (stored != null) {
+                                    applyImage(stored, recipeImage);
+                                    recipeStore.onRecipeSaved(stored);
+                                }
+                                return Tasks.forResult(recipeImage);
+                            });
+                })
+                .addOnCompleteListener(task -> {
+                    Exception e = task.getException();
+                    if (task.isSuccessful() || (e instanceof FirebaseFirestoreException
+                            && ((FirebaseFirestoreException) e).getCode() == FirebaseFirestoreException.Code.NOT_FOUND)) {
+                        imageUploader.deletePendingImage(localImageUri);
+                    }
+                });
+    }
+
+    private static void copyImage(Recipe source, Recipe target) {
+        target.setThumbnailUrl(source.getThumbnailUrl());
+        target.setMediumUrl(source.getMediumUrl());
+        target.setImageUrl(source.getImageUrl());
+        target.setImagePending(source.isImagePending());
+        target.setPendingImageUri(source.getPendingImageUri());
+    }
+
+    private static void applyImage(Recipe recipe, RecipeImage recipeImage) {
+        recipe.setThumbnailUrl(recipeImage.getUrl(RecipeImage.Rendition.THUMBNAIL));
+        recipe.setMediumUrl(recipeImage.getUrl(RecipeImage.Rendition.MEDIUM));
+        recipe.setImageUrl(recipeImage.getUrl(RecipeImage.Rendition.FULL));
+        recipe.setImagePending(false);
+        recipe.setPendingImageUri(null);
+    }
+
+    /**
+     * Adds the catalog update of a recipe to a batch. If the cached copy of the
+     * recipe's shard shows that the update would not fit, the summary is left
+     * out and the catalog is marked incomplete instead, so the batch cannot
+     * fail on Firestore's document size limit. A shard that is not cached is
+     * assumed to have room.
+     *
+     * @return A task that completes once the update is added
+     */
+    private Task<Void> addCatalogUpdate(WriteBatch batch, String userId, String recipeId,
+                                        Map<String, Object> update) {
+        DocumentReference shard = RecipeCatalog.shardDocument(firestore, userId, recipeId);
+        return shard.get(Source.CACHE).continueWith(task -> {
+            DocumentSnapshot cachedShard = task.isSuccessful() ? task.getResult() : null;
+            if (RecipeCatalog.fits(cachedShard, update)) {
+                batch.set(shard, update, SetOptions.merge());
+            } else {
+                Log.w(TAG, "Recipe catalog shard is full, leaving out recipe " + recipeId);
+                batch.set(shard, RecipeCatalog.invalidation(recipeId), SetOptions.merge());
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Saves recipe data to Firestore as a header and a body document, together
+     * with its summary in the recipe catalog. New recipes also increment the
+     * recipe counter in the user's stats document within the same batch.
+     * Edits without a new image leave the stored image fields untouched.
+     *
+     * @param stagedImageUri The file URI of a newly picked image to upload, or
+     *                       null if the image did not change
      */
-    private void saveRecipeToFirestore(Recipe recipe, MutableLiveData<AuthResource<Recipe>> resultLiveData) {
-        firestore.collection("users")
+    private void saveRecipeToFirestore(Recipe recipe, boolean isNewRecipe, @Nullable Uri stagedImageUri,
+                                       MutableLiveData<AuthResource<Recipe>> resultLiveData) {
+        DocumentReference recipeDocument = firestore.collection("users")
                 .document(recipe.getUserId())
                 .collection("recipes")
-                .document(recipe.getRecipeId())
-                .set(recipe)
+                .document(recipe.getRecipeId());
+        boolean keepStoredImage = !isNewRecipe && stagedImageUri == null;
+        WriteBatch batch = firestore.batch();
+        if (keepStoredImage) {
+            batch.set(recipeDocument, RecipeDocuments.headerKeepingImage(recipe), SetOptions.merge());
+        } else {
+            batch.set(recipeDocument, RecipeDocuments.header(recipe));
+        }
+        batch.set(RecipeDocuments.bodyDocument(recipeDocument), RecipeDocuments.body(recipe));
+        if (isNewRecipe) {
+            batch.set(UserStatsRepository.statsDocument(firestore, recipe.getUserId()),
+                    UserStatsRepository.increment(UserStatsRepository.FIELD_RECIPE_COUNT, 1),
+                    SetOptions.merge());
+        }
+
+        Map<String, Object> catalogUpdate = keepStoredImage
+                ? RecipeCatalog.upsertKeepingImage(recipe)
+                : RecipeCatalog.upsert(recipe);
+        addCatalogUpdate(batch, recipe.getUserId(), recipe.getRecipeId(), catalogUpdate)
+                .onSuccessTask(aVoid -> {
+                    Task<Void> commit = batch.commit();
+                    // The batch is applied locally as soon as it is committed, so schedule the
+                    // upload now: offline, the server acknowledgement may never come before the
+                    // process dies, and the image would stay pending forever
+                    if (stagedImageUri != null) {
+                        imageUploader.schedulePendingUpload(recipe.getUserId(), recipe.getRecipeId(),
+                                stagedImageUri);
+                    }
+                    return commit;
+                })
                 .addOnSuccessListener(aVoid -> {
                     Log.d(TAG, "Recipe saved successfully: " + recipe.getRecipeId());
+                    // The stored write time is set by the server; until the next sync brings
+                    // it, the cached copy carries the local one so it differs from the old copy
+                    recipe.setUpdatedAt(Timestamp.now());
+                    recipeStore.onRecipeSaved(recipe);
+                    databaseExecutor.execute(() -> {
+                        localDataSource.syncRecipe(recipe);
+                        if (!isNewRecipe) {
+                            // Precomputed grocery lists may contain the old ingredients
+                            WeeklyGroceryWorker.enqueuePrecomputedWeeks(context, recipe.getUserId());
+                        }
+                    });
                     resultLiveData.setValue(AuthResource.success(recipe));
                 })
                 .addOnFailureListener(e -> {
@@ -152,41 +343,277 @@ public class RecipeRepository {
     }
 
     /**
-     * Fetches all recipes for the current user.
+     * Brings the local cache of the user's recipes up to date with Firestore.
+     * The first sync seeds the cache from the recipe catalog; later syncs only
+     * read the recipes and tombstones written after the watermarks stored with
+     * the cache. Syncs read from the server only, as a result served from
+     * Firestore's offline cache is no consistent snapshot to advance a
+     * watermark with. A cache not synced for {@link RecipeDocuments#FULL_SYNC_AFTER_MS}
+     * is seeded again, as the tombstones of deletions it missed may have been
+     * pruned since.
+     * Syncs are shared process-wide through the {@link RecipeStore}, so the
+     * recipe list, the recipe picker and any other caller started at the same
+     * time all wait for one sync.
      *
-     * @param recipesLiveData LiveData to notify about the fetched recipes
+     * @return A task with whether the sync changed any cached recipe
      */
-    public void getUserRecipes(MutableLiveData<AuthResource<List<Recipe>>> recipesLiveData) {
-        FirebaseUser currentUser = firebaseAuth.getCurrentUser();
-        if (currentUser == null) {
-            recipesLiveData.setValue(AuthResource.error("User not authenticated", null));
-            return;
-        }
+    private Task<Boolean> syncRecipeCache(String userId) {
+        return recipeStore.syncRecipes(userId, () -> startRecipeSync(userId));
+    }
 
-        recipesLiveData.setValue(AuthResource.loading(null));
+    private Task<Boolean> startRecipeSync(String userId) {
+        return Tasks.call(databaseExecutor, () -> localDataSource.getSyncState(userId))
+                .onSuccessTask(syncState -> syncState == null
+                        || System.currentTimeMillis() - syncState.getSyncedAtMillis() > RecipeDocuments.FULL_SYNC_AFTER_MS
+                        ? seedRecipeCache(userId)
+                        : fetchRecipeChanges(userId, syncState))
+                .addOnFailureListener(e -> Log.e(TAG, "Failed to sync recipes", e));
+    }
 
-        firestore.collection("users")
-                .document(currentUser.getUid())
-                .collection("recipes")
+    /**
+     * Fills the cache of a user that has never been synced, or not recently,
+     * from the recipe catalog, with one read per shard. If the catalog is incomplete, every
+     * recipe is read instead and the catalog is rebuilt from them.
+     */
+    private Task<Boolean> seedRecipeCache(String userId) {
+        List<Task<DocumentSnapshot>> shardReads = new ArrayList<>();
+        for (DocumentReference shard : RecipeCatalog.shardDocuments(firestore, userId)) {
+            shardReads.add(shard.get(Source.SERVER));
+        }
+        return Tasks.<DocumentSnapshot>whenAllSuccess(shardReads)
+                .onSuccessTask(databaseExecutor, shards -> {
+                    Timestamp watermark = RecipeCatalog.syncedUntil(shards);
+                    if (!RecipeCatalog.isComplete(shards) || watermark == null) {
+                        return fetchAllUserRecipes(userId);
+                    }
+                    List<Recipe> recipes = RecipeCatalog.readRecipeHeaders(shards, userId);
+                    int changedRows = localDataSource.syncRecipes(userId, recipes, watermark);
+                    Log.d(TAG, "Seeded recipe cache from " + recipes.size() + " catalog summaries, "
+                            + changedRows + " recipes changed");
+                    return Tasks.forResult(changedRows > 0);
+                });
+    }
+
+    /**
+     * Reads all of the user's recipes, replaces the cached list with them and
+     * rebuilds the catalog from them.
+     *
+     * @return A task with whether any cached recipe changed
+     */
+    private Task<Boolean> fetchAllUserRecipes(String userId) {
+        return recipesCollection(userId)
                 .orderBy("createdAt", Query.Direction.DESCENDING)
-                .get()
-                .addOnSuccessListener(queryDocumentSnapshots -> {
+                .get(Source.SERVER)
+                .onSuccessTask(databaseExecutor, queryDocumentSnapshots -> {
                     List<Recipe> recipes = new ArrayList<>();
+                    List<DocumentSnapshot> legacyDocuments = new ArrayList<>();
+                    Timestamp watermark = new Timestamp(0, 0);
                     for (QueryDocumentSnapshot document : queryDocumentSnapshots) {
                         Recipe recipe = document.toObject(Recipe.class);
                         recipes.add(recipe);
+                        watermark = latest(watermark, recipe.getUpdatedAt());
+                        if (RecipeDocuments.isLegacyHeader(document)) {
+                            legacyDocuments.add(document);
+                        }
                     }
                     Log.d(TAG, "Fetched " + recipes.size() + " recipes");
-                    recipesLiveData.setValue(AuthResource.success(recipes));
-                })
-                .addOnFailureListener(e -> {
-                    Log.e(TAG, "Failed to fetch recipes", e);
-                    recipesLiveData.setValue(AuthResource.error("Failed to fetch recipes: " + e.getMessage(), null));
+                    if (!legacyDocuments.isEmpty()) {
+                        migrateLegacyRecipes(legacyDocuments);
+                    }
+
+                    int changedRows = localDataSource.syncRecipes(userId, recipes, watermark);
+                    Log.d(TAG, "Recipe cache revalidated, " + changedRows + " recipes changed");
+                    return rebuildRecipeCatalog(userId, recipes)
+                            .onSuccessTask(aVoid -> Tasks.forResult(changedRows > 0));
+                });
+    }
+
+    /**
+     * Reads the recipes written and deleted after their watermarks and applies
+     * them to the cache. Each query is a consistent snapshot of its own
+     * collection taken at its own time, so each advances its own watermark: a
+     * write one query missed is newer than everything that query returned, but
+     * not necessarily newer than what the other query returned.
+     */
+    private Task<Boolean> fetchRecipeChanges(String userId, SyncStateEntity syncState) {
+        Task<QuerySnapshot> changedRead = recipesCollection(userId)
+                .whereGreaterThan(RecipeDocuments.FIELD_UPDATED_AT, syncState.getRecipesWatermark())
+                .get(Source.SERVER);
+        Task<QuerySnapshot> deletedRead = RecipeDocuments.tombstonesCollection(firestore, userId)
+                .whereGreaterThan(RecipeDocuments.FIELD_DELETED_AT, syncState.getTombstonesWatermark())
+                .get(Source.SERVER);
+
+        return Tasks.whenAllSuccess(changedRead, deletedRead)
+                .onSuccessTask(databaseExecutor, results -> {
+                    List<Recipe> changed = new ArrayList<>();
+                    List<DocumentSnapshot> legacyDocuments = new ArrayList<>();
+                    Timestamp recipesWatermark = syncState.getRecipesWatermark();
+                    for (QueryDocumentSnapshot document : changedRead.getResult()) {
+                        Recipe recipe = document.toObject(Recipe.class);
+                        changed.add(recipe);
+                        recipesWatermark = latest(recipesWatermark, recipe.getUpdatedAt());
+                        if (RecipeDocuments.isLegacyHeader(document)) {
+                            legacyDocuments.add(document);
+                        }
+                    }
+                    List<String> deletedIds = new ArrayList<>();
+                    Timestamp tombstonesWatermark = syncState.getTombstonesWatermark();
+                    for (QueryDocumentSnapshot document : deletedRead.getResult()) {
+                        deletedIds.add(document.getId());
+                        tombstonesWatermark = latest(tombstonesWatermark,
+                                document.getTimestamp(RecipeDocuments.FIELD_DELETED_AT));
+                    }
+                    // A recipe deleted after the changes were read would otherwise be cached again
+                    changed.removeIf(recipe -> deletedIds.contains(recipe.getRecipeId()));
+                    if (!legacyDocuments.isEmpty()) {
+                        migrateLegacyRecipes(legacyDocuments);
+                    }
+
+                    int changedRows = localDataSource.applyRecipeDelta(changed, deletedIds,
+                            SyncStateEntity.forRecipes(userId, recipesWatermark, tombstonesWatermark));
+                    Log.d(TAG, "Fetched " + changed.size() + " changed and " + deletedIds.size()
+                            + " deleted recipes, " + changedRows + " cached recipes changed");
+                    return Tasks.forResult(changedRows > 0);
+                });
+    }
+
+    private CollectionReference recipesCollection(String userId) {
+        return firestore.collection("users")
+                .document(userId)
+                .collection("recipes");
+    }
+
+    private static Timestamp latest(Timestamp current, Timestamp candidate) {
+        return candidate != null && candidate.compareTo(current) > 0 ? candidate : current;
+    }
+
+    /**
+     * Creates a Pager over the current user's recipe summaries, newest first.
+     * Each refresh pages the local recipe cache from the database at once and
+     * syncs it in the background; see {@link RecipePagingSource}.
+     *
+     * @param pageSize         Number of recipes per page (also the initial load size)
+     * @param prefetchDistance How many items from the end of the loaded list the
+     *                         next page is requested
+     * @return The pager
+     */
+    public Pager<RecipePagingSource.Cursor, RecipeSummary> createRecipePager(int pageSize, int prefetchDistance) {
+        PagingConfig config = new PagingConfig(pageSize, prefetchDistance, false, pageSize);
+        return new Pager<>(config, () -> {
+            FirebaseUser currentUser = firebaseAuth.getCurrentUser();
+            String userId = currentUser != null ? currentUser.getUid() : null;
+            return new RecipePagingSource(
+                    () -> userId != null
+                            ? syncRecipeCache(userId)
+                            : Tasks.forException(new IllegalStateException("User not authenticated")),
+                    (after, limit) -> userId != null
+                            ? localDataSource.getRecipeSummaryPage(userId,
+                                    after != null ? after.createdAt : null, after != null ? after.recipeId : null, limit)
+                            : Collections.emptyList(),
+                    databaseExecutor);
+        });
+    }
+
+    /**
+     * Fetches the summaries of all of the current user's recipes, newest first.
+     * Cached summaries are published at once; the cache is then synced in the
+     * background and the summaries are published again only if the sync
+     * changed them. If the sync fails (e.g. offline), the cached summaries
+     * stand, unless there are none.
+     *
+     * @param summariesLiveData LiveData to notify about the fetched summaries
+     */
+    public void getRecipeSummaries(MutableLiveData<AuthResource<List<RecipeSummary>>> summariesLiveData) {
+        FirebaseUser currentUser = firebaseAuth.getCurrentUser();
+        if (currentUser == null) {
+            summariesLiveData.setValue(AuthResource.error("User not authenticated", null));
+            return;
+        }
+
+        String userId = currentUser.getUid();
+        summariesLiveData.setValue(AuthResource.loading(null));
+        databaseExecutor.execute(() -> {
+            List<RecipeSummary> cachedSummaries = localDataSource.getRecipeSummaries(userId);
+            boolean servedFromCache = !cachedSummaries.isEmpty();
+            if (servedFromCache) {
+                summariesLiveData.postValue(AuthResource.success(cachedSummaries));
+            }
+            syncRecipeCache(userId)
+                    .addOnSuccessListener(databaseExecutor, changed -> {
+                        if (changed || !servedFromCache) {
+                            summariesLiveData.postValue(AuthResource.success(
+                                    localDataSource.getRecipeSummaries(userId)));
+                        }
+                    })
+                    .addOnFailureListener(e -> {
+                        if (!servedFromCache) {
+                            summariesLiveData.setValue(
+                                    AuthResource.error("Failed to fetch recipes: " + e.getMessage(), null));
+                        }
+                    });
+        });
+    }
+
+    /**
+     * Syncs the local cache of the current user's recipes in the background,
+     * e.g. when a screen showing them is resumed, so edits made on other
+     * devices show up. Syncs within the {@link RecipeStore} TTL are skipped.
+     *
+     * @param changedLiveData LiveData that is set to true if the sync changed
+     *                        any cached recipe
+     */
+    public void revalidateRecipes(MutableLiveData<Boolean> changedLiveData) {
+        FirebaseUser currentUser = firebaseAuth.getCurrentUser();
+        if (currentUser == null) {
+            return;
+        }
+        syncRecipeCache(currentUser.getUid())
+                .addOnSuccessListener(changed -> {
+                    if (changed) {
+                        changedLiveData.setValue(true);
+                    }
                 });
     }
 
     /**
-     * Fetches a specific recipe by ID.
+     * Makes the next recipe sync read from Firestore even if the cache was
+     * synced recently, e.g. when the user pulls to refresh.
+     */
+    public void expireRecipeSync() {
+        recipeStore.expireSync();
+    }
+
+    /**
+     * Writes every catalog shard from the user's complete recipe list. If a
+     * shard would not fit into a document, nothing is written and new caches
+     * keep being seeded by reading every recipe.
+     */
+    private Task<Void> rebuildRecipeCatalog(String userId, List<Recipe> recipes) {
+        Map<DocumentReference, List<Recipe>> recipesByShard = new HashMap<>();
+        for (DocumentReference shard : RecipeCatalog.shardDocuments(firestore, userId)) {
+            recipesByShard.put(shard, new ArrayList<>());
+        }
+        for (Recipe recipe : recipes) {
+            recipesByShard.get(RecipeCatalog.shardDocument(firestore, userId, recipe.getRecipeId())).add(recipe);
+        }
+
+        WriteBatch batch = firestore.batch();
+        for (Map.Entry<DocumentReference, List<Recipe>> entry : recipesByShard.entrySet()) {
+            Map<String, Object> content = RecipeCatalog.shardContent(entry.getValue());
+            if (!RecipeCatalog.fits(content)) {
+                Log.w(TAG, "Recipe catalog of " + recipes.size() + " recipes does not fit into "
+                        + RecipeCatalog.SHARD_COUNT + " shards, not writing it");
+                return Tasks.forResult(null);
+            }
+            batch.set(entry.getKey(), content);
+        }
+        Log.d(TAG, "Rebuilding recipe catalog from " + recipes.size() + " recipes");
+        return batch.commit();
+    }
+
+    /**
+     * Fetches a specific recipe by ID. A cached copy is published first and
+     * replaced only if the Firestore version differs.
      *
      * @param recipeId       The ID of the recipe to fetch
      * @param recipeLiveData LiveData to notify about the fetched recipe
@@ -198,27 +625,202 @@ public class RecipeRepository {
             return;
         }
 
+        String userId = currentUser.getUid();
         recipeLiveData.setValue(AuthResource.loading(null));
 
-        firestore.collection("users")
-                .document(currentUser.getUid())
+        databaseExecutor.execute(() -> {
+            Recipe cachedRecipe = localDataSource.getRecipe(recipeId);
+            boolean servedFromCache = cachedRecipe != null && userId.equals(cachedRecipe.getUserId());
+            if (servedFromCache) {
+                recipeLiveData.postValue(AuthResource.success(cachedRecipe));
+            }
+            revalidateRecipe(userId, recipeId, servedFromCache, recipeLiveData);
+        });
+    }
+
+    /**
+     * Fetches a recipe's header and body from Firestore in parallel and updates
+     * the local cache if it changed. A recipe stored before the header/body
+     * split is migrated on the way.
+     */
+    private void revalidateRecipe(String userId, String recipeId, boolean servedFromCache,
+                                  MutableLiveData<AuthResource<Recipe>> recipeLiveData) {
+        DocumentReference recipeDocument = firestore.collection("users")
+                .document(userId)
                 .collection("recipes")
-                .document(recipeId)
-                .get()
-                .addOnSuccessListener(documentSnapshot -> {
-                    if (documentSnapshot.exists()) {
-                        Recipe recipe = documentSnapshot.toObject(Recipe.class);
-                        recipeLiveData.setValue(AuthResource.success(recipe));
+                .document(recipeId);
+        Task<DocumentSnapshot> headerRead = recipeDocument.get();
+        Task<DocumentSnapshot> bodyRead = RecipeDocuments.bodyDocument(recipeDocument).get();
+
+        Tasks.whenAllSuccess(headerRead, bodyRead)
+                .addOnSuccessListener(results -> {
+                    DocumentSnapshot header = headerRead.getResult();
+                    DocumentSnapshot body = bodyRead.getResult();
+                    if (header.exists()) {
+                        Recipe recipe = header.toObject(Recipe.class);
+                        if (body.exists()) {
+                            RecipeDocuments.applyBody(recipe, body);
+                        } else if (RecipeDocuments.isLegacyHeader(header)) {
+                            migrateLegacyRecipes(Collections.singletonList(header));
+                        }
+                        recipeStore.putRecipe(recipe);
+                        databaseExecutor.execute(() -> {
+                            boolean changed = localDataSource.syncRecipe(recipe);
+                            if (changed || !servedFromCache) {
+                                recipeLiveData.postValue(AuthResource.success(recipe));
+                            }
+                        });
                     } else {
+                        recipeStore.onRecipeDeleted(recipeId);
+                        databaseExecutor.execute(() -> localDataSource.removeRecipe(recipeId));
                         recipeLiveData.setValue(AuthResource.error("Recipe not found", null));
                     }
                 })
                 .addOnFailureListener(e -> {
                     Log.e(TAG, "Failed to fetch recipe", e);
-                    recipeLiveData.setValue(AuthResource.error("Failed to fetch recipe: " + e.getMessage(), null));
+                    if (!servedFromCache) {
+                        recipeLiveData.setValue(AuthResource.error("Failed to fetch recipe: " + e.getMessage(), null));
+                    }
+                });
+    }
+
+    /**
+     * Moves the ingredients and instructions of recipes stored before the
+     * header/body split into body documents. Runs in the background; a recipe
+     * that fails to migrate is retried the next time it is read.
+     *
+     * @param legacyDocuments Recipe documents that still hold the heavy fields
+     */
+    private void migrateLegacyRecipes(List<DocumentSnapshot> legacyDocuments) {
+        BatchedWriter writer = new BatchedWriter(firestore);
+        for (DocumentSnapshot document : legacyDocuments) {
+            Recipe recipe = document.toObject(Recipe.class);
+            if (recipe == null) {
+                continue;
+            }
+            // Both writes of a recipe must land in the same batch
+            writer.set(RecipeDocuments.bodyDocument(document.getReference()), RecipeDocuments.body(recipe));
+            writer.update(document.getReference(), RecipeDocuments.legacyHeaderCleanup(recipe));
+        }
+        writer.commit(null)
+                .addOnSuccessListener(aVoid -> Log.d(TAG, "Split " + legacyDocuments.size()
+                        + " legacy recipes into header and body"))
+                .addOnFailureListener(e -> Log.e(TAG, "Failed to migrate legacy recipes", e));
+    }
+
+    /**
+     * Fetches only the given recipes, e.g. the ones a meal plan references.
+     * Recipes resolved before are served from the shared {@link RecipeStore};
+     * the rest are fetched with whereIn queries of up to
+     * {@link #WHERE_IN_LIMIT} IDs that run in parallel. Only recipe headers
+     * are read, so the recipes come without ingredients and instructions.
+     *
+     * @param recipeIds The IDs of the recipes to fetch; duplicates are ignored
+     * @return A task with the found recipes by ID. Recipes that no longer exist
+     * are missing from the map.
+     */
+    public Task<Map<String, Recipe>> getRecipesByIds(Collection<String> recipeIds) {
+        FirebaseUser currentUser = firebaseAuth.getCurrentUser();
+        if (currentUser == null) {
+            return Tasks.forException(new IllegalStateException("User not authenticated"));
+        }
+
+        String userId = currentUser.getUid();
+        Map<String, Recipe> recipes = new HashMap<>();
+        List<String> missingIds = new ArrayList<>();
+        for (String recipeId : new LinkedHashSet<>(recipeIds)) {
+            Recipe cachedRecipe = recipeStore.getRecipe(userId, recipeId);
+            if (cachedRecipe != null) {
+                recipes.put(recipeId, cachedRecipe);
+            } else {
+                missingIds.add(recipeId);
+            }
+        }
+        if (missingIds.isEmpty()) {
+            return Tasks.forResult(recipes);
+        }
+
+        CollectionReference recipesCollection = recipesCollection(userId);
+        List<Task<QuerySnapshot>> chunkTasks = new ArrayList<>();
+        for (int start = 0; start < missingIds.size(); start += WHERE_IN_LIMIT) {
+            List<String> chunk = new ArrayList<>(
+                    missingIds.subList(start, Math.min(start + WHERE_IN_LIMIT, missingIds.size())));
+            chunkTasks.add(recipesCollection.whereIn(FieldPath.documentId(), chunk).get());
+        }
+
+        return Tasks.<QuerySnapshot>whenAllSuccess(chunkTasks)
+                .onSuccessTask(snapshots -> {
+                    int fetched = 0;
+                    for (QuerySnapshot snapshot : snapshots) {
+                        for (QueryDocumentSnapshot document : snapshot) {
+                            Recipe recipe = document.toObject(Recipe.class);
+                            recipeStore.putRecipe(recipe);
+                            recipes.put(document.getId(), recipe);
+                            fetched++;
+                        }
+                    }
+                    Log.d(TAG, "Resolved " + recipes.size() + " recipes, " + fetched + " fetched in "
+                            + chunkTasks.size() + " queries");
+                    return Tasks.forResult(recipes);
+                });
+    }
+
+    /**
+     * Fetches the ingredients of the given recipes, e.g. to build a grocery list
+     * for a meal plan. The body documents are read in parallel, one read per
+     * distinct recipe; recipes stored before the header/body split are read from
+     * their header instead.
+     *
+     * @param recipeIds The IDs of the recipes; duplicates are ignored
+     * @return A task with the ingredients by recipe ID. Recipes that no longer
+     * exist are missing from the map.
+     */
+    public Task<Map<String, List<Ingredient>>> getRecipeIngredients(Collection<String> recipeIds) {
+        FirebaseUser currentUser = firebaseAuth.getCurrentUser();
+        if (currentUser == null) {
+            return Tasks.forException(new IllegalStateException("User not authenticated"));
+        }
+
+        CollectionReference recipesCollection = recipesCollection(currentUser.getUid());
+        List<String> distinctIds = new ArrayList<>(new LinkedHashSet<>(recipeIds));
+        List<Task<List<Ingredient>>> reads = new ArrayList<>();
+        for (String recipeId : distinctIds) {
+            DocumentReference recipeDocument = recipesCollection.document(recipeId);
+            reads.add(RecipeDocuments.bodyDocument(recipeDocument).get()
+                    .onSuccessTask(body -> body.exists()
+                            ? Tasks.forResult(ingredientsOf(body))
+                            : recipeDocument.get().onSuccessTask(header ->
+                                    Tasks.forResult(header.exists() ? ingredientsOf(header) : null))));
+        }
+
+        return Tasks.<List<Ingredient>>whenAllSuccess(reads)
+                .onSuccessTask(results -> {
+                    Map<String, List<Ingredient>> ingredients = new HashMap<>();
+                    for (int i = 0; i < distinctIds.size(); i++) {
+                        if (results.get(i) != null) {
+                            ingredients.put(distinctIds.get(i), results.get(i));
+                        }
+                    }
+                    Log.d(TAG, "Fetched the ingredients of " + ingredients.size() + " recipes");
+                    return Tasks.forResult(ingredients);
                 });
     }
 
+    private static List<Ingredient> ingredientsOf(DocumentSnapshot document) {
+        Recipe content = document.toObject(Recipe.class);
+        return content != null && content.getIngredients() != null
+                ? content.getIngredients()
+                : Collections.<Ingredient>emptyList();
+    }
+
+    /**
+     * Gets a number that changes whenever any recipe is saved or deleted in this
+     * process. See {@link RecipeStore#getVersion()}.
+     */
+    public long getRecipesVersion() {
+        return recipeStore.getVersion();
+    }
+
     /**
      * Deletes a recipe from Firestore and its associated image from Storage.
      *
@@ -226,6 +828,17 @@ public class RecipeRepository {
      * @param resultLiveData LiveData to notify about the operation result
      */
     public void deleteRecipe(Recipe recipe, MutableLiveData<AuthResource<Void>> resultLiveData) {
+        deleteRecipe(recipe.getRecipeId(), recipe.getImageUrl(), resultLiveData);
+    }
+
+    /**
+     * Deletes a recipe, its catalog summary and its image.
+     *
+     * @param recipeId       The ID of the recipe to delete
+     * @param imageUrl       The URL of the recipe image in Storage (optional)
+     * @param resultLiveData LiveData to notify about the operation result
+     */
+    public void deleteRecipe(String recipeId, String imageUrl, MutableLiveData<AuthResource<Void>> resultLiveData) {
         FirebaseUser currentUser = firebaseAuth.getCurrentUser();
         if (currentUser == null) {
             resultLiveData.setValue(AuthResource.error("User not authenticated", null));
@@ -234,18 +847,36 @@ public class RecipeRepository {
 
         resultLiveData.setValue(AuthResource.loading(null));
 
-        // Delete from Firestore first
-        firestore.collection("users")
+        // Delete from Firestore first, removing the summary, leaving a tombstone for
+        // incremental syncs and decrementing the recipe counter atomically
+        DocumentReference recipeDocument = firestore.collection("users")
                 .document(currentUser.getUid())
                 .collection("recipes")
-                .document(recipe.getRecipeId())
-                .delete()
+                .document(recipeId);
+        WriteBatch batch = firestore.batch();
+        batch.delete(recipeDocument);
+        batch.delete(RecipeDocuments.bodyDocument(recipeDocument));
+        batch.set(RecipeDocuments.tombstoneDocument(firestore, currentUser.getUid(), recipeId),
+                RecipeDocuments.tombstone());
+        batch.set(RecipeCatalog.shardDocument(firestore, currentUser.getUid(), recipeId),
+                RecipeCatalog.removal(recipeId), SetOptions.merge());
+        batch.set(UserStatsRepository.statsDocument(firestore, currentUser.getUid()),
+                UserStatsRepository.increment(UserStatsRepository.FIELD_RECIPE_COUNT, -1),
+                SetOptions.merge());
+
+        batch.commit()
                 .addOnSuccessListener(aVoid -> {
-                    Log.d(TAG, "Recipe deleted from Firestore: " + recipe.getRecipeId());
+                    Log.d(TAG, "Recipe deleted from Firestore: " + recipeId);
+                    recipeStore.onRecipeDeleted(recipeId);
+                    databaseExecutor.execute(() -> {
+                        localDataSource.removeRecipe(recipeId);
+                        WeeklyGroceryWorker.enqueuePrecomputedWeeks(context, currentUser.getUid());
+                    });
+                    pruneTombstones(currentUser.getUid());
 
-                    // Delete image from Storage if it exists
-                    if (recipe.getImageUrl() != null && !recipe.getImageUrl().isEmpty()) {
-                        deleteImageFromStorage(recipe.getImageUrl(), resultLiveData);
+                    // Delete image from Storage if it exists and no other recipe shares it
+                    if (imageUrl != null && !imageUrl.isEmpty()) {
+                        deleteImageIfUnused(currentUser.getUid(), imageUrl, resultLiveData);
                     } else {
                         resultLiveData.setValue(AuthResource.success(null));
                     }
@@ -257,24 +888,88 @@ public class RecipeRepository {
     }
 
     /**
-     * Deletes an image from Firebase Storage.
+     * Deletes the user's tombstones older than {@link RecipeDocuments#TOMBSTONE_RETENTION_MS}.
+     * Runs after each deletion, so tombstones are pruned as often as they are
+     * written; a failure only delays the pruning until the next deletion.
+     */
+    private void pruneTombstones(String userId) {
+        Timestamp cutoff = new Timestamp(new Date(System.currentTimeMillis() - RecipeDocuments.TOMBSTONE_RETENTION_MS));
+        RecipeDocuments.tombstonesCollection(firestore, userId)
+                .whereLessThan(RecipeDocuments.FIELD_DELETED_AT, cutoff)
+                .get()
+                .onSuccessTask(tombstones -> {
+                    if (tombstones.isEmpty()) {
+                        return Tasks.forResult(null);
+                    }
+                    BatchedWriter writer = new BatchedWriter(firestore);
+                    for (DocumentSnapshot tombstone : tombstones) {
+                        writer.delete(tombstone.getReference());
+                    }
+                    Log.d(TAG, "Pruning " + writer.size() + " expired recipe tombstones");
+                    return writer.commit(null);
+                })
+                .addOnFailureListener(e -> Log.w(TAG, "Failed to prune recipe tombstones", e));
+    }
+
+    /**
+     * Deletes an image unless another recipe still uses it. Images are stored
+     * by content hash, so recipes saved with the same photo share one image.
+     */
+    private void deleteImageIfUnused(String userId, String imageUrl,
+                                     MutableLiveData<AuthResource<Void>> resultLiveData) {
+        recipesCollection(userId)
+                .whereEqualTo("imageUrl", imageUrl)
+                .limit(1)
+                .get()
+                .addOnSuccessListener(querySnapshot -> {
+                    if (querySnapshot.isEmpty()) {
+                        deleteImageFromStorage(imageUrl, resultLiveData);
+                    } else {
+                        Log.d(TAG, "Keeping recipe image shared with another recipe");
+                        resultLiveData.setValue(AuthResource.success(null));
+                    }
+                })
+                .addOnFailureListener(e -> {
+                    // Keep the image rather than risk deleting a shared one
+                    Log.w(TAG, "Failed to check image usage, keeping image", e);
+                    resultLiveData.setValue(AuthResource.success(null));
+                });
+    }
+
+    /**
+     * Deletes an image and its renditions from Firebase Storage.
      */
     private void deleteImageFromStorage(String imageUrl, MutableLiveData<AuthResource<Void>> resultLiveData) {
+        StorageReference imageRef;
         try {
-            StorageReference imageRef = storage.getReferenceFromUrl(imageUrl);
-            imageRef.delete()
-                    .addOnSuccessListener(aVoid -> {
-                        Log.d(TAG, "Recipe image deleted from Storage");
-                        resultLiveData.setValue(AuthResource.success(null));
-                    })
-                    .addOnFailureListener(e -> {
-                        Log.w(TAG, "Failed to delete image from Storage (recipe still deleted from Firestore)", e);
-                        // Still consider it success since the recipe is deleted from Firestore
-                        resultLiveData.setValue(AuthResource.success(null));
-                    });
+            imageRef = storage.getReferenceFromUrl(imageUrl);
         } catch (IllegalArgumentException e) {
             Log.w(TAG, "Invalid image URL, skipping image deletion", e);
             resultLiveData.setValue(AuthResource.success(null));
+            return;
         }
+
+        // Images uploaded before renditions existed have none, so failed deletions are expected
+        Task<Void> imageDeletion = imageRef.delete();
+        List<Task<Void>> deletions = new ArrayList<>();
+        deletions.add(imageDeletion);
+        StorageReference imageFolder = imageRef.getParent();
+        if (imageFolder != null) {
+            for (RecipeImage.Rendition rendition : RecipeImage.Rendition.values()) {
+                if (rendition != RecipeImage.Rendition.FULL) {
+                    deletions.add(imageFolder.child(rendition.fileName(imageRef.getName())).delete());
+                }
+            }
+        }
+        Tasks.whenAllComplete(deletions).addOnCompleteListener(task -> {
+            if (imageDeletion.isSuccessful()) {
+                Log.d(TAG, "Recipe image deleted from Storage");
+            } else {
+                Log.w(TAG, "Failed to delete image from Storage (recipe still deleted from Firestore)",
+                        imageDeletion.getException());
+            }
+            // Still consider it success since the recipe is deleted from Firestore
+            resultLiveData.setValue(AuthResource.success(null));
+        });
     }
-}
\ No newline at end of file
+}
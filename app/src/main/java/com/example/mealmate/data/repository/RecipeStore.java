@@ -0,0 +1,200 @@
+package com.example.mealmate.data.repository;
+
+import android.os.SystemClock;
+import android.util.Log;
+
+import com.example.mealmate.data.model.Recipe;
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Process-wide in-memory store of the current user's recipes, shared by every
+ * RecipeRepository. Syncs of the local recipe cache with Firestore are shared:
+ * concurrent requests for a user join a single in-flight sync, and a sync
+ * that succeeded within {@link #DEFAULT_TTL_MS} is not repeated. Single
+ * recipes resolved by ID are kept until they are written or deleted.
+ * Hit, miss and dedup counters are kept for diagnostics.
+ */
+public class RecipeStore {
+
+    private static final String TAG = "RecipeStore";
+
+    public static final long DEFAULT_TTL_MS = 60 * 1000;
+
+    /**
+     * Brings the local recipe cache of a user up to date with the backend.
+     */
+    public interface Sync {
+        /**
+         * @return A task with whether any cached recipe was added, modified or
+         * removed
+         */
+        Task<Boolean> start();
+    }
+
+    private static volatile RecipeStore instance;
+
+    private final long ttlMillis;
+
+    private String syncedUserId;
+    private long syncedAtMillis;
+    private Task<Boolean> inFlightSync;
+    private String inFlightUserId;
+    private final Map<String, Recipe> recipesById = new HashMap<>();
+    // Incremented on every write, so syncs that overlap a write or sign-out are not recorded as fresh
+    private long version;
+
+    private long hitCount;
+    private long missCount;
+    private long dedupCount;
+
+    RecipeStore(long ttlMillis) {
+        this.ttlMillis = ttlMillis;
+    }
+
+    /**
+     * Returns the process-wide store.
+     */
+    public static RecipeStore getInstance() {
+        if (instance == null) {
+            synchronized (RecipeStore.class) {
+                if (instance == null) {
+                    instance = new RecipeStore(DEFAULT_TTL_MS);
+                }
+            }
+        }
+        return instance;
+    }
+
+    /**
+     * Syncs the local recipe cache of a user. If the cache was synced within
+     * the TTL, an already completed task reporting no changes is returned; if
+     * a sync for the user is in flight, its task is shared; otherwise the sync
+     * is started.
+     *
+     * @param userId The owner of the recipes
+     * @param sync   Syncs the cache if it is neither fresh nor being synced
+     * @return A task with whether the sync changed any cached recipe
+     */
+    public synchronized Task<Boolean> syncRecipes(String userId, Sync sync) {
+        if (userId.equals(syncedUserId) && SystemClock.elapsedRealtime() - syncedAtMillis < ttlMillis) {
+            hitCount++;
+            Log.d(TAG, "Recipe sync hit (" + describeCounters() + ")");
+            return Tasks.forResult(false);
+        }
+        if (inFlightSync != null && userId.equals(inFlightUserId)) {
+            dedupCount++;
+            Log.d(TAG, "Joined in-flight recipe sync (" + describeCounters() + ")");
+            return inFlightSync;
+        }
+
+        missCount++;
+        Log.d(TAG, "Recipe sync miss (" + describeCounters() + ")");
+        long syncVersion = version;
+        Task<Boolean> task = sync.start()
+                .addOnCompleteListener(completed -> onSyncComplete(userId, syncVersion, completed));
+        inFlightSync = task;
+        inFlightUserId = userId;
+        return task;
+    }
+
+    private synchronized void onSyncComplete(String userId, long syncVersion, Task<Boolean> task) {
+        if (task == inFlightSync) {
+            inFlightSync = null;
+            inFlightUserId = null;
+        }
+        if (task.isSuccessful() && syncVersion == version) {
+            syncedUserId = userId;
+            syncedAtMillis = SystemClock.elapsedRealtime();
+        }
+    }
+
+    /**
+     * Makes the next sync read from the backend even within the TTL, e.g. when
+     * the user pulls to refresh.
+     */
+    public synchronized void expireSync() {
+        syncedUserId = null;
+    }
+
+    /**
+     * Returns a known recipe of a user, or null if it is not in the store.
+     */
+    public synchronized Recipe getRecipe(String userId, String recipeId) {
+        Recipe recipe = recipesById.get(recipeId);
+        if (recipe != null && userId.equals(recipe.getUserId())) {
+            hitCount++;
+            return recipe;
+        }
+        missCount++;
+        return null;
+    }
+
+    /**
+     * Stores a recipe that was read from the backend.
+     */
+    public synchronized void putRecipe(Recipe recipe) {
+        recipesById.put(recipe.getRecipeId(), recipe);
+    }
+
+    /**
+     * Records a written recipe.
+     */
+    public synchronized void onRecipeSaved(Recipe recipe) {
+        recipesById.put(recipe.getRecipeId(), recipe);
+        version++;
+    }
+
+    /**
+     * Forgets a recipe that was deleted or no longer exists.
+     */
+    public synchronized void onRecipeDeleted(String recipeId) {
+        recipesById.remove(recipeId);
+        version++;
+    }
+
+    /**
+     * Drops everything, e.g. when the user signs out.
+     */
+    public synchronized void clear() {
+        recipesById.clear();
+        syncedUserId = null;
+        version++;
+    }
+
+    /**
+     * Gets a number that changes whenever recipes are written, so screens can
+     * tell whether their data is stale.
+     */
+    public synchronized long getVersion() {
+        return version;
+    }
+
+    /**
+     * Gets the number of requests served from memory.
+     */
+    public synchronized long getHitCount() {
+        return hitCount;
+    }
+
+    /**
+     * Gets the number of requests that needed a load.
+     */
+    public synchronized long getMissCount() {
+        return missCount;
+    }
+
+    /**
+     * Gets the number of sync requests that joined a sync already in flight.
+     */
+    public synchronized long getDedupCount() {
+        return dedupCount;
+    }
+
+    private String describeCounters() {
+        return hitCount + " hits, " + missCount + " misses, " + dedupCount + " deduplicated";
+    }
+}
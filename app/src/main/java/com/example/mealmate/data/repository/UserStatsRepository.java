@@ -0,0 +1,194 @@
+package com.example.mealmate.data.repository;
+
+import android.util.Log;
+
+import androidx.lifecycle.MutableLiveData;
+
+import com.example.mealmate.data.model.AuthResource;
+import com.example.mealmate.data.model.UserStats;
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.Timestamp;
+import com.google.firebase.auth.FirebaseAuth;
+import com.google.firebase.auth.FirebaseUser;
+import com.google.firebase.firestore.AggregateQuerySnapshot;
+import com.google.firebase.firestore.AggregateSource;
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldValue;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.Source;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Repository class for the per-user dashboard counters document stored at
+ * /users/{userId}/meta/stats.
+ * The other repositories update the counters in the same batch or transaction
+ * as the write that changes them, using the helpers in this class. Counters
+ * that drift, e.g. because a writer relied on its local cache, are repaired
+ * by {@link #rebuildStats(MutableLiveData)}.
+ */
+public class UserStatsRepository {
+
+    private static final String TAG = "UserStatsRepository";
+
+    static final String FIELD_RECIPE_COUNT = "recipeCount";
+    static final String FIELD_MEAL_PLAN_COUNT = "mealPlanCount";
+    static final String FIELD_UNPURCHASED_GROCERY_COUNT = "unpurchasedGroceryCount";
+    static final String FIELD_UPDATED_AT = "updatedAt";
+    // Rebuilds whose counts were overtaken by counter updates are started over this often
+    private static final int MAX_REBUILD_ATTEMPTS = 3;
+
+    private final FirebaseFirestore firestore;
+    private final FirebaseAuth firebaseAuth;
+
+    public UserStatsRepository() {
+        this.firestore = FirebaseFirestore.getInstance();
+        this.firebaseAuth = FirebaseAuth.getInstance();
+    }
+
+    /**
+     * Returns the reference of the stats document for a user.
+     */
+    static DocumentReference statsDocument(FirebaseFirestore firestore, String userId) {
+        return firestore.collection("users")
+                .document(userId)
+                .collection("meta")
+                .document("stats");
+    }
+
+    /**
+     * Builds a merge payload that atomically adds {@code delta} to a counter and
+     * stamps the last-updated time. Use with {@code SetOptions.merge()} so the
+     * document is created on first use.
+     */
+    static Map<String, Object> increment(String field, long delta) {
+        Map<String, Object> update = new HashMap<>();
+        update.put(field, FieldValue.increment(delta));
+        update.put(FIELD_UPDATED_AT, FieldValue.serverTimestamp());
+        return update;
+    }
+
+    /**
+     * Fetches the dashboard counters for the current user. If the stats document
+     * does not exist yet (e.g. data created before the counters were introduced),
+     * the counters are rebuilt from the collections first.
+     *
+     * @param statsLiveData LiveData to notify about the fetched counters
+     */
+    public void getUserStats(MutableLiveData<AuthResource<UserStats>> statsLiveData) {
+        FirebaseUser currentUser = firebaseAuth.getCurrentUser();
+        if (currentUser == null) {
+            statsLiveData.setValue(AuthResource.error("User not authenticated", null));
+            return;
+        }
+
+        statsLiveData.setValue(AuthResource.loading(null));
+
+        statsDocument(firestore, currentUser.getUid())
+                .get()
+                .addOnSuccessListener(documentSnapshot -> {
+                    if (documentSnapshot.exists()) {
+                        UserStats stats = documentSnapshot.toObject(UserStats.class);
+                        statsLiveData.setValue(AuthResource.success(stats));
+                    } else {
+                        Log.d(TAG, "Stats document missing, rebuilding counters");
+                        rebuildStats(statsLiveData);
+                    }
+                })
+                .addOnFailureListener(e -> {
+                    Log.e(TAG, "Failed to fetch user stats", e);
+                    statsLiveData.setValue(AuthResource.error("Failed to fetch stats: " + e.getMessage(), null));
+                });
+    }
+
+    /**
+     * Repair job: recounts recipes, meal plans and unpurchased main list items
+     * with server-side count aggregations and overwrites the stats document.
+     * Counters that drifted, e.g. because a write decided from a stale local
+     * cache whether to count an item, are corrected this way; it runs when the
+     * stats document is missing and can be started from the dashboard and the
+     * profile screen.
+     *
+     * @param statsLiveData LiveData to notify about the rebuilt counters
+     */
+    public void rebuildStats(MutableLiveData<AuthResource<UserStats>> statsLiveData) {
+        FirebaseUser currentUser = firebaseAuth.getCurrentUser();
+        if (currentUser == null) {
+            statsLiveData.setValue(AuthResource.error("User not authenticated", null));
+            return;
+        }
+
+        statsLiveData.setValue(AuthResource.loading(null));
+
+        rebuildStats(currentUser.getUid(), 1)
+                .addOnSuccessListener(stats -> {
+                    Log.d(TAG, "User stats rebuilt successfully");
+                    statsLiveData.setValue(AuthResource.success(stats));
+                })
+                .addOnFailureListener(e -> {
+                    Log.e(TAG, "Failed to rebuild user stats", e);
+                    statsLiveData.setValue(AuthResource.error("Failed to rebuild stats: " + e.getMessage(), null));
+                });
+    }
+
+    /**
+     * Counts the collections and writes the counts, unless a counter changed
+     * while counting. Every counter update stamps {@link #FIELD_UPDATED_AT}, so
+     * the stamp is read before the counts and checked again in the transaction
+     * that writes them: an increment committed in between would otherwise be
+     * overwritten, or counted twice. The rebuild is then started over.
+     */
+    private Task<UserStats> rebuildStats(String userId, int attempt) {
+        DocumentReference statsRef = statsDocument(firestore, userId);
+        DocumentReference userDocument = firestore.collection("users").document(userId);
+
+        return statsRef.get(Source.SERVER)
+                .onSuccessTask(statsBefore -> {
+                    Timestamp updatedAtBefore = statsBefore.getTimestamp(FIELD_UPDATED_AT);
+
+                    Task<AggregateQuerySnapshot> recipeCountTask = userDocument.collection("recipes")
+                            .count()
+                            .get(AggregateSource.SERVER);
+                    Task<AggregateQuerySnapshot> mealPlanCountTask = userDocument.collection("mealPlans")
+                            .count()
+                            .get(AggregateSource.SERVER);
+                    Task<AggregateQuerySnapshot> groceryCountTask = userDocument.collection("groceryLists")
+                            .document(GroceryRepository.MAIN_LIST_ID)
+                            .collection("items")
+                            .whereEqualTo("purchased", false)
+                            .count()
+                            .get(AggregateSource.SERVER);
+
+                    return Tasks.whenAllSuccess(recipeCountTask, mealPlanCountTask, groceryCountTask)
+                            .onSuccessTask(results -> {
+                                UserStats stats = new UserStats(
+                                        recipeCountTask.getResult().getCount(),
+                                        mealPlanCountTask.getResult().getCount(),
+                                        groceryCountTask.getResult().getCount(),
+                                        Timestamp.now());
+                                return firestore.runTransaction(transaction -> {
+                                    DocumentSnapshot current = transaction.get(statsRef);
+                                    if (!Objects.equals(current.getTimestamp(FIELD_UPDATED_AT), updatedAtBefore)) {
+                                        return null;
+                                    }
+                                    transaction.set(statsRef, stats);
+                                    return stats;
+                                });
+                            });
+                })
+                .onSuccessTask(stats -> {
+                    if (stats != null) {
+                        return Tasks.forResult(stats);
+                    }
+                    if (attempt >= MAX_REBUILD_ATTEMPTS) {
+                        return Tasks.forException(new IllegalStateException("Counters kept changing while counting"));
+                    }
+                    Log.d(TAG, "Counters changed during rebuild attempt " + attempt + ", counting again");
+                    return rebuildStats(userId, attempt + 1);
+                });
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.mealmate.data.repository;
+
+import com.example.mealmate.data.model.GroceryItem;
+import com.example.mealmate.data.model.Ingredient;
+import com.example.mealmate.data.model.MealPlan;
+import com.google.firebase.Timestamp;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Builds the grocery list of a week's meal plan: the ingredients of all
+ * planned recipes, with each recipe counted once per day it is planned for and
+ * items of the same name and unit consolidated.
+ */
+public class WeeklyGroceryList {
+
+    private WeeklyGroceryList() {
+    }
+
+    /**
+     * Counts how often each recipe is planned in a meal plan.
+     *
+     * @param mealPlan The meal plan (may be null)
+     * @return The number of planned days by recipe ID, in plan order
+     */
+    public static Map<String, Integer> countPlannedRecipes(MealPlan mealPlan) {
+        Map<String, Integer> plannedCounts = new LinkedHashMap<>();
+        if (mealPlan == null || mealPlan.getDays() == null) {
+            return plannedCounts;
+        }
+        for (List<String> dayRecipes : mealPlan.getDays().values()) {
+            if (dayRecipes == null) continue;
+            for (String recipeId : dayRecipes) {
+                plannedCounts.merge(recipeId, 1, Integer::sum);
+            }
+        }
+        return plannedCounts;
+    }
+
+    /**
+     * Returns a signature of the planned recipes and the versions their
+     * ingredients were read in, so a list computed from a plan can be matched
+     * against the plan, and the recipes, later.
+     *
+     * @param plannedCounts  The number of planned days by recipe ID
+     * @param recipeVersions The last write time by recipe ID; recipes without
+     *                       a known version are signed as such
+     * @return The signature; equal for plans with the same recipe counts whose
+     * recipes have not been written since
+     */
+    public static String signature(Map<String, Integer> plannedCounts, Map<String, Timestamp> recipeVersions) {
+        StringBuilder signature = new StringBuilder();
+        for (Map.Entry<String, Integer> entry : new TreeMap<>(plannedCounts).entrySet()) {
+            Timestamp version = recipeVersions.get(entry.getKey());
+            if (signature.length() > 0) {
+                signature.append(',');
+            }
+            signature.append(entry.getKey()).append('=').append(entry.getValue()).append('@');
+            if (version != null) {
+                signature.append(version.getSeconds()).append('.').append(version.getNanoseconds());
+            } else {
+                signature.append('-');
+            }
+        }
+        return signature.toString();
+    }
+
+    /**
+     * Consolidates the ingredients of the planned recipes in a single pass.
+     *
+     * @param plannedCounts       The number of planned days by recipe ID
+     * @param ingredientsByRecipe The ingredients by recipe ID; recipes missing
+     *                            from the map are skipped
+     * @return One item per distinct name and unit, with its ID set
+     */
+    public static List<GroceryItem> build(Map<String, Integer> plannedCounts,
+                                          Map<String, List<Ingredient>> ingredientsByRecipe) {
+        Map<String, GroceryItem> items = new LinkedHashMap<>();
+        for (Map.Entry<String, Integer> entry : plannedCounts.entrySet()) {
+            List<Ingredient> ingredients = ingredientsByRecipe.get(entry.getKey());
+            if (ingredients == null) continue;
+            for (Ingredient ingredient : ingredients) {
+                if (ingredient.getName() == null || ingredient.getName().trim().isEmpty()) continue;
+
+                double quantity = ingredient.getQuantity() * entry.getValue();
+                String itemId = GroceryRepository.itemIdFor(ingredient.getName(), ingredient.getUnit());
+                GroceryItem item = items.get(itemId);
+                if (item != null) {
+                    item.setQuantity(item.getQuantity() + quantity);
+                } else {
+                    item = new GroceryItem(ingredient.getName().trim(), quantity, ingredient.getUnit());
+                    item.setItemId(itemId);
+                    item.setCategory(GroceryRepository.categoryFor(ingredient.getName()));
+                    items.put(itemId, item);
+                }
+            }
+        }
+        return new ArrayList<>(items.values());
+    }
+}
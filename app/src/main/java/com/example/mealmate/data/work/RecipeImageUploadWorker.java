@@ -0,0 +1,103 @@
+package com.example.mealmate.data.work;
+
+import android.content.Context;
+import android.net.Uri;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.work.BackoffPolicy;
+import androidx.work.Constraints;
+import androidx.work.Data;
+import androidx.work.ExistingWorkPolicy;
+import androidx.work.NetworkType;
+import androidx.work.OneTimeWorkRequest;
+import androidx.work.WorkManager;
+import androidx.work.Worker;
+import androidx.work.WorkerParameters;
+
+import com.example.mealmate.data.repository.RecipeRepository;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.firestore.FirebaseFirestoreException;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Background job that uploads the pending image of a saved recipe and attaches
+ * it to the recipe. Recipes are written before their image, so a slow or
+ * failing upload never delays or loses the recipe itself; failed uploads are
+ * retried with exponential backoff and resume their upload session.
+ */
+public class RecipeImageUploadWorker extends Worker {
+
+    private static final String TAG = "RecipeImageUploadWorker";
+    private static final String KEY_USER_ID = "userId";
+    private static final String KEY_RECIPE_ID = "recipeId";
+    private static final String KEY_IMAGE_URI = "imageUri";
+    private static final String UNIQUE_WORK_PREFIX = "recipe_image_";
+    private static final int MAX_ATTEMPTS = 8;
+
+    public RecipeImageUploadWorker(@NonNull Context context, @NonNull WorkerParameters params) {
+        super(context, params);
+    }
+
+    /**
+     * Schedules the upload of a recipe's pending image once the device is
+     * online. A pending upload for the same recipe is replaced, since only the
+     * newest image is kept.
+     *
+     * @param context       Any context
+     * @param userId        The owner of the recipe
+     * @param recipeId      The recipe the image belongs to
+     * @param localImageUri The file URI of the local copy of the image
+     */
+    public static void enqueue(Context context, String userId, String recipeId, Uri localImageUri) {
+        Constraints constraints = new Constraints.Builder()
+                .setRequiredNetworkType(NetworkType.CONNECTED)
+                .build();
+        OneTimeWorkRequest request = new OneTimeWorkRequest.Builder(RecipeImageUploadWorker.class)
+                .setConstraints(constraints)
+                .setInputData(new Data.Builder()
+                        .putString(KEY_USER_ID, userId)
+                        .putString(KEY_RECIPE_ID, recipeId)
+                        .putString(KEY_IMAGE_URI, localImageUri.toString())
+                        .build())
+                .setBackoffCriteria(BackoffPolicy.EXPONENTIAL, 30, TimeUnit.SECONDS)
+                .build();
+
+        WorkManager.getInstance(context)
+                .enqueueUniqueWork(UNIQUE_WORK_PREFIX + recipeId, ExistingWorkPolicy.REPLACE, request);
+        Log.d(TAG, "Scheduled image upload for recipe " + recipeId);
+    }
+
+    @NonNull
+    @Override
+    public Result doWork() {
+        String userId = getInputData().getString(KEY_USER_ID);
+        String recipeId = getInputData().getString(KEY_RECIPE_ID);
+        String imageUri = getInputData().getString(KEY_IMAGE_URI);
+        if (userId == null || recipeId == null || imageUri == null) {
+            return Result.failure();
+        }
+
+        try {
+            // Worker threads may block, so the Firebase tasks are awaited directly
+            Tasks.await(new RecipeRepository(getApplicationContext())
+                    .attachPendingImage(userId, recipeId, Uri.parse(imageUri)));
+            Log.d(TAG, "Attached uploaded image to recipe " + recipeId);
+            return Result.success();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof FirebaseFirestoreException
+                    && ((FirebaseFirestoreException) e.getCause()).getCode() == FirebaseFirestoreException.Code.NOT_FOUND) {
+                // The recipe was deleted while its image was uploading
+                Log.d(TAG, "Recipe " + recipeId + " no longer exists, dropping its image");
+                return Result.success();
+            }
+            Log.e(TAG, "Failed to upload image for recipe " + recipeId, e);
+            return getRunAttemptCount() + 1 < MAX_ATTEMPTS ? Result.retry() : Result.failure();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return Result.retry();
+        }
+    }
+}
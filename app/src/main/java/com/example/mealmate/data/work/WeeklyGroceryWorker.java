@@ -0,0 +1,152 @@
+package com.example.mealmate.data.work;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.work.BackoffPolicy;
+import androidx.work.Constraints;
+import androidx.work.Data;
+import androidx.work.ExistingWorkPolicy;
+import androidx.work.NetworkType;
+import androidx.work.OneTimeWorkRequest;
+import androidx.work.WorkManager;
+import androidx.work.Worker;
+import androidx.work.WorkerParameters;
+
+import com.example.mealmate.data.local.GroceryLocalDataSource;
+import com.example.mealmate.data.local.MealMateDatabase;
+import com.example.mealmate.data.model.GroceryItem;
+import com.example.mealmate.data.model.Ingredient;
+import com.example.mealmate.data.model.MealPlan;
+import com.example.mealmate.data.repository.MealPlanRepository;
+import com.example.mealmate.data.repository.RecipeRepository;
+import com.example.mealmate.data.repository.WeeklyGroceryList;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.Timestamp;
+import com.google.firebase.auth.FirebaseAuth;
+import com.google.firebase.auth.FirebaseUser;
+
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Background job that precomputes the grocery list of a week's meal plan after
+ * the plan is saved or one of its recipes is edited: it reads the stored plan,
+ * fetches the ingredients of the planned recipes and caches the consolidated
+ * list in the local database, so the grocery screen and the meal plan's
+ * grocery action can use it without fetching any recipe.
+ */
+public class WeeklyGroceryWorker extends Worker {
+
+    private static final String TAG = "WeeklyGroceryWorker";
+    private static final String KEY_WEEK_START = "weekStart";
+    private static final String UNIQUE_WORK_PREFIX = "weekly_grocery_";
+    private static final int MAX_ATTEMPTS = 3;
+
+    public WeeklyGroceryWorker(@NonNull Context context, @NonNull WorkerParameters params) {
+        super(context, params);
+    }
+
+    /**
+     * Schedules the precomputation of a week's grocery list once the device is
+     * online. A job for the same week that has not finished yet is replaced, so
+     * a burst of saves computes the list once, from the latest plan.
+     *
+     * @param context       Any context
+     * @param weekStartDate The timestamp of the Monday of the week
+     */
+    public static void enqueue(Context context, Timestamp weekStartDate) {
+        Constraints constraints = new Constraints.Builder()
+                .setRequiredNetworkType(NetworkType.CONNECTED)
+                .setRequiresBatteryNotLow(true)
+                .build();
+        OneTimeWorkRequest request = new OneTimeWorkRequest.Builder(WeeklyGroceryWorker.class)
+                .setConstraints(constraints)
+                .setInputData(new Data.Builder()
+                        .putLong(KEY_WEEK_START, weekStartDate.toDate().getTime())
+                        .build())
+                .setBackoffCriteria(BackoffPolicy.EXPONENTIAL, 30, TimeUnit.SECONDS)
+                .build();
+
+        String workName = uniqueWorkName(weekStartDate);
+        WorkManager.getInstance(context)
+                .enqueueUniqueWork(workName, ExistingWorkPolicy.REPLACE, request);
+        Log.d(TAG, "Scheduled grocery list precomputation: " + workName);
+    }
+
+    /**
+     * Schedules the precomputation of every grocery list precomputed for the
+     * current or a later week again, e.g. after a recipe was edited. Blocking;
+     * call it from a background thread.
+     *
+     * @param context Any context
+     * @param userId  The owner of the meal plans
+     */
+    public static void enqueuePrecomputedWeeks(Context context, String userId) {
+        String currentWeekId = MealPlanRepository.weekPlanId(
+                MealPlanRepository.weekStartOf(Calendar.getInstance()).toDate());
+        List<String> weekIds = new GroceryLocalDataSource(MealMateDatabase.getInstance(context))
+                .getPrecomputedWeekIds(userId, currentWeekId);
+        for (String weekId : weekIds) {
+            Timestamp weekStartDate = MealPlanRepository.weekStartOfPlanId(weekId);
+            if (weekStartDate != null) {
+                enqueue(context, weekStartDate);
+            }
+        }
+    }
+
+    /**
+     * Returns the unique work name of a week's precomputation job.
+     *
+     * @param weekStartDate The timestamp of the Monday of the week
+     * @return The unique work name, shared by all jobs for the week
+     */
+    static String uniqueWorkName(Timestamp weekStartDate) {
+        return UNIQUE_WORK_PREFIX + MealPlanRepository.weekPlanId(weekStartDate.toDate());
+    }
+
+    @NonNull
+    @Override
+    public Result doWork() {
+        FirebaseUser currentUser = FirebaseAuth.getInstance().getCurrentUser();
+        long weekStart = getInputData().getLong(KEY_WEEK_START, -1);
+        if (currentUser == null || weekStart < 0) {
+            return Result.failure();
+        }
+
+        Timestamp weekStartDate = new Timestamp(new Date(weekStart));
+        String weekId = MealPlanRepository.weekPlanId(weekStartDate.toDate());
+        try {
+            // Worker threads may block, so the Firebase tasks are awaited directly
+            MealPlan mealPlan = Tasks.await(new MealPlanRepository(getApplicationContext())
+                    .getMealPlanForWeek(weekStartDate));
+            Map<String, Integer> plannedCounts = WeeklyGroceryList.countPlannedRecipes(mealPlan);
+            // Sign with the recipe versions known before the ingredients are read, so a
+            // recipe edited in between makes the list look stale rather than fresh
+            GroceryLocalDataSource groceryLocalDataSource =
+                    new GroceryLocalDataSource(MealMateDatabase.getInstance(getApplicationContext()));
+            String planSignature = groceryLocalDataSource.planSignature(plannedCounts);
+            Map<String, List<Ingredient>> ingredientsByRecipe = plannedCounts.isEmpty()
+                    ? Collections.emptyMap()
+                    : Tasks.await(new RecipeRepository(getApplicationContext())
+                            .getRecipeIngredients(plannedCounts.keySet()));
+
+            List<GroceryItem> items = WeeklyGroceryList.build(plannedCounts, ingredientsByRecipe);
+            groceryLocalDataSource.replaceWeekItems(currentUser.getUid(), weekId, planSignature, items);
+            Log.d(TAG, "Precomputed " + items.size() + " grocery items for " + weekId);
+            return Result.success();
+        } catch (ExecutionException e) {
+            Log.e(TAG, "Failed to precompute grocery list for " + weekId, e);
+            return getRunAttemptCount() + 1 < MAX_ATTEMPTS ? Result.retry() : Result.failure();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return Result.retry();
+        }
+    }
+}
@@ -17,7 +17,7 @@ public class AuthViewModel extends AndroidViewModel {
 
     public AuthViewModel(@NonNull Application application) {
         super(application);
-        authRepository = new AuthRepository();
+        authRepository = new AuthRepository(application);
         userAuthOperationState = new MutableLiveData<>();
         passwordResetOperationState = new MutableLiveData<>();
     }
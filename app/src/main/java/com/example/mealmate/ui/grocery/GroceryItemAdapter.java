@@ -4,21 +4,52 @@ import android.view.LayoutInflater;
 import android.view.ViewGroup;
 
 import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.ListAdapter;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.example.mealmate.data.model.GroceryItem;
 import com.example.mealmate.databinding.ItemGroceryBinding;
 
 import java.text.DecimalFormat;
-import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
 
 /**
- * RecyclerView adapter for displaying grocery items.
+ * RecyclerView adapter for displaying grocery items. Each list update is diffed
+ * against the displayed list on a background thread, so only rows that were
+ * added, moved or changed are rebound, and a purchased toggle only restyles
+ * its row.
  */
-public class GroceryItemAdapter extends RecyclerView.Adapter<GroceryItemAdapter.GroceryItemViewHolder> {
+public class GroceryItemAdapter extends ListAdapter<GroceryItem, GroceryItemAdapter.GroceryItemViewHolder> {
+
+    // Change payload for items whose only change is their purchased status
+    private static final Object PAYLOAD_PURCHASED = new Object();
+
+    private static final DiffUtil.ItemCallback<GroceryItem> DIFF_CALLBACK =
+            new DiffUtil.ItemCallback<GroceryItem>() {
+                @Override
+                public boolean areItemsTheSame(@NonNull GroceryItem oldItem, @NonNull GroceryItem newItem) {
+                    return Objects.equals(oldItem.getItemId(), newItem.getItemId());
+                }
+
+                @Override
+                public boolean areContentsTheSame(@NonNull GroceryItem oldItem, @NonNull GroceryItem newItem) {
+                    return sameDetails(oldItem, newItem) && oldItem.isPurchased() == newItem.isPurchased();
+                }
+
+                @Override
+                public Object getChangePayload(@NonNull GroceryItem oldItem, @NonNull GroceryItem newItem) {
+                    return sameDetails(oldItem, newItem) ? PAYLOAD_PURCHASED : null;
+                }
+
+                private boolean sameDetails(GroceryItem oldItem, GroceryItem newItem) {
+                    return Objects.equals(oldItem.getName(), newItem.getName())
+                            && oldItem.getQuantity() == newItem.getQuantity()
+                            && Objects.equals(oldItem.getUnit(), newItem.getUnit());
+                }
+            };
 
-    private List<GroceryItem> groceryItems = new ArrayList<>();
     private OnItemClickListener listener;
 
     /**
@@ -30,6 +61,10 @@ public class GroceryItemAdapter extends RecyclerView.Adapter<GroceryItemAdapter.
         void onDeleteClick(GroceryItem item);
     }
 
+    public GroceryItemAdapter() {
+        super(DIFF_CALLBACK);
+    }
+
     /**
      * Sets the click listener for item interactions.
      */
@@ -38,18 +73,10 @@ public class GroceryItemAdapter extends RecyclerView.Adapter<GroceryItemAdapter.
     }
 
     /**
-     * Updates the list of grocery items.
-     */
-    public void updateItems(List<GroceryItem> newItems) {
-        this.groceryItems = newItems != null ? newItems : new ArrayList<>();
-        notifyDataSetChanged();
-    }
-
-    /**
-     * Gets the current list of grocery items.
+     * Gets the currently displayed grocery items.
      */
     public List<GroceryItem> getCurrentItems() {
-        return groceryItems;
+        return getCurrentList();
     }
 
     @NonNull
@@ -62,12 +89,16 @@ public class GroceryItemAdapter extends RecyclerView.Adapter<GroceryItemAdapter.
 
     @Override
     public void onBindViewHolder(@NonNull GroceryItemViewHolder holder, int position) {
-        holder.bind(groceryItems.get(position));
+        holder.bind(getItem(position));
     }
 
     @Override
-    public int getItemCount() {
-        return groceryItems.size();
+    public void onBindViewHolder(@NonNull GroceryItemViewHolder holder, int position, @NonNull List<Object> payloads) {
+        if (!payloads.isEmpty() && payloads.stream().allMatch(p -> p == PAYLOAD_PURCHASED)) {
+            holder.bindPurchased(getItem(position));
+        } else {
+            super.onBindViewHolder(holder, position, payloads);
+        }
     }
 
     /**
@@ -89,6 +120,19 @@ public class GroceryItemAdapter extends RecyclerView.Adapter<GroceryItemAdapter.
             String quantityText = formatQuantity(item.getQuantity(), item.getUnit());
             binding.textItemQuantity.setText(quantityText);
 
+            bindPurchased(item);
+
+            binding.buttonDeleteItem.setOnClickListener(v -> {
+                if (listener != null) {
+                    listener.onDeleteClick(item);
+                }
+            });
+        }
+
+        /**
+         * Binds the purchased checkbox and styling of an item.
+         */
+        void bindPurchased(GroceryItem item) {
             // Set purchased status without triggering listener
             binding.checkboxPurchased.setOnCheckedChangeListener(null);
             binding.checkboxPurchased.setChecked(item.isPurchased());
@@ -99,15 +143,11 @@ public class GroceryItemAdapter extends RecyclerView.Adapter<GroceryItemAdapter.
             // Set up click listeners
             binding.checkboxPurchased.setOnCheckedChangeListener((buttonView, isChecked) -> {
                 if (listener != null) {
-                    item.setPurchased(isChecked);
                     updateItemAppearance(isChecked);
-                    listener.onPurchasedToggle(item, isChecked);
-                }
-            });
-
-            binding.buttonDeleteItem.setOnClickListener(v -> {
-                if (listener != null) {
-                    listener.onDeleteClick(item);
+                    // The submitted item stays unchanged, so the list that replaces it is diffed correctly
+                    GroceryItem toggled = new GroceryItem(item.getItemId(), item.getName(), item.getQuantity(),
+                            item.getUnit(), item.getCategory(), isChecked, item.getNotes(), item.getRecipeId());
+                    listener.onPurchasedToggle(toggled, isChecked);
                 }
             });
         }
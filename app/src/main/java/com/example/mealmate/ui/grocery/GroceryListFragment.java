@@ -3,6 +3,7 @@ package com.example.mealmate.ui.grocery;
 import android.content.Intent;
 import android.net.Uri;
 import android.os.Bundle;
+import android.text.TextUtils;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
@@ -19,6 +20,7 @@ import com.example.mealmate.data.model.AuthResource;
 import com.example.mealmate.data.model.GroceryItem;
 import com.example.mealmate.databinding.FragmentGroceryListBinding;
 
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -47,8 +49,9 @@ public class GroceryListFragment extends Fragment implements GroceryItemAdapter.
         setupClickListeners();
         observeViewModel();
 
-        // Load the main grocery list
-        groceryViewModel.loadGroceryList();
+        // Listen to the main grocery list
+        groceryViewModel.observeGroceryList();
+        groceryViewModel.loadWeekPlanItems();
     }
 
     private void setupRecyclerView() {
@@ -61,19 +64,38 @@ public class GroceryListFragment extends Fragment implements GroceryItemAdapter.
     private void setupClickListeners() {
         binding.buttonBack.setOnClickListener(v -> NavHostFragment.findNavController(this).navigateUp());
         binding.fabShare.setOnClickListener(v -> shareGroceryList());
+        binding.buttonAddWeekPlan.setOnClickListener(v -> groceryViewModel.addWeekPlanItems());
     }
 
     private void observeViewModel() {
+        // Observe the list precomputed from this week's meal plan
+        groceryViewModel.getWeekPlanItemsLiveData().observe(getViewLifecycleOwner(), this::showWeekPlanItems);
+
+        groceryViewModel.getAddIngredientsResult().observe(getViewLifecycleOwner(), resource -> {
+            if (resource != null) {
+                switch (resource.status) {
+                    case SUCCESS:
+                        showSuccess("This week's ingredients were added to your list");
+                        groceryViewModel.clearAddIngredientsResult();
+                        break;
+                    case ERROR:
+                        showError(resource.message);
+                        groceryViewModel.clearAddIngredientsResult();
+                        break;
+                }
+            }
+        });
+
         // Observe grocery list data
         groceryViewModel.getGroceryListLiveData().observe(getViewLifecycleOwner(), resource -> {
             if (resource != null) {
                 switch (resource.status) {
                     case SUCCESS:
                         hideLoading();
-                        if (resource.data != null && !resource.data.isEmpty()) {
-                            showContent(resource.data);
+                        if (resource.data != null) {
+                            adapter.submitList(new ArrayList<>(resource.data), this::showContentOrEmpty);
                         } else {
-                            showEmpty();
+                            showContentOrEmpty();
                         }
                         break;
                     case ERROR:
@@ -98,10 +120,9 @@ public class GroceryListFragment extends Fragment implements GroceryItemAdapter.
                         // No full refresh is needed, which provides a smoother experience.
                         break;
                     case ERROR:
+                        // The toggles that were not saved have been rolled back
                         showError("Failed to update item: " + resource.message);
                         groceryViewModel.clearUpdateItemResult();
-                        // On error, refresh to revert any local changes
-                        groceryViewModel.loadGroceryList();
                         break;
                 }
             }
@@ -114,11 +135,11 @@ public class GroceryListFragment extends Fragment implements GroceryItemAdapter.
                     case SUCCESS:
                         showSuccess("Item removed from list");
                         groceryViewModel.clearDeleteItemResult();
-                        // Refresh the list to show updated state
-                        groceryViewModel.loadGroceryList();
+                        // The item was already removed from the list optimistically
                         break;
                     case ERROR:
-                        showError("Failed to remove item: " + resource.message);
+                        // The item has been restored to the list
+                        showError(resource.message);
                         groceryViewModel.clearDeleteItemResult();
                         break;
                 }
@@ -126,6 +147,19 @@ public class GroceryListFragment extends Fragment implements GroceryItemAdapter.
         });
     }
 
+    private void showWeekPlanItems(List<GroceryItem> items) {
+        if (items == null || items.isEmpty()) {
+            binding.cardWeekPlan.setVisibility(View.GONE);
+            return;
+        }
+        List<String> names = new ArrayList<>();
+        for (GroceryItem item : items) {
+            names.add(item.getName());
+        }
+        binding.textWeekPlanItems.setText(items.size() + " items: " + TextUtils.join(", ", names));
+        binding.cardWeekPlan.setVisibility(View.VISIBLE);
+    }
+
     private void showLoading() {
         binding.layoutLoading.setVisibility(View.VISIBLE);
         binding.layoutContent.setVisibility(View.GONE);
@@ -136,11 +170,21 @@ public class GroceryListFragment extends Fragment implements GroceryItemAdapter.
         binding.layoutLoading.setVisibility(View.GONE);
     }
 
-    private void showContent(List<GroceryItem> items) {
+    private void showContentOrEmpty() {
+        if (binding == null) {
+            return;
+        }
+        if (adapter.getItemCount() > 0) {
+            showContent();
+        } else {
+            showEmpty();
+        }
+    }
+
+    private void showContent() {
         binding.layoutContent.setVisibility(View.VISIBLE);
         binding.layoutEmpty.setVisibility(View.GONE);
-        adapter.updateItems(items);
-        updateSummary(items);
+        updateSummary(adapter.getCurrentItems());
     }
 
     private void showEmpty() {
@@ -169,11 +213,9 @@ public class GroceryListFragment extends Fragment implements GroceryItemAdapter.
 
     @Override
     public void onPurchasedToggle(GroceryItem item, boolean purchased) {
-        // Update the item in the backend
-        groceryViewModel.updateItem(item);
-
-        // Immediately update the summary to provide instant feedback
-        updateSummary(adapter.getCurrentItems());
+        // Queue the toggle; rapid toggles are coalesced and written in batches. The
+        // toggled list is published at once and the summary follows when it is displayed.
+        groceryViewModel.togglePurchased(item);
     }
 
     @Override
@@ -185,7 +227,7 @@ public class GroceryListFragment extends Fragment implements GroceryItemAdapter.
      * Shares the current grocery list via SMS
      */
     private void shareGroceryList() {
-        // Get the current list from the LiveData for robustness
+        // Get the current list from the latest snapshot for robustness
         AuthResource<List<GroceryItem>> resource = groceryViewModel.getGroceryListLiveData().getValue();
         if (resource == null || resource.status != AuthResource.Status.SUCCESS || resource.data == null
                 || resource.data.isEmpty()) {
@@ -278,6 +320,13 @@ public class GroceryListFragment extends Fragment implements GroceryItemAdapter.
         return itemText.toString();
     }
 
+    @Override
+    public void onPause() {
+        super.onPause();
+        // Don't leave toggles waiting in memory while the screen is not visible
+        groceryViewModel.flushPendingWrites();
+    }
+
     @Override
     public void onDestroyView() {
         super.onDestroyView();
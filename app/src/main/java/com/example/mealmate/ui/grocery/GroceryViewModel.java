@@ -1,50 +1,76 @@
 // app/src/main/java/com/example/mealmate/ui/grocery/GroceryViewModel.java
 package com.example.mealmate.ui.grocery;
 
+import android.app.Application;
 import android.util.Log;
 
 import androidx.annotation.NonNull;
+import androidx.lifecycle.AndroidViewModel;
 import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MediatorLiveData;
 import androidx.lifecycle.MutableLiveData;
-import androidx.lifecycle.ViewModel;
 
+import com.example.mealmate.data.local.GroceryLocalDataSource;
+import com.example.mealmate.data.local.MealMateDatabase;
 import com.example.mealmate.data.model.AuthResource;
 import com.example.mealmate.data.model.GroceryItem;
 import com.example.mealmate.data.model.Ingredient;
 import com.example.mealmate.data.repository.GroceryRepository;
+import com.example.mealmate.data.repository.MealPlanRepository;
+import com.example.mealmate.data.repository.MutationLog;
+import com.example.mealmate.data.repository.WeeklyGroceryList;
 import com.google.android.gms.tasks.Task;
+import com.google.firebase.Timestamp;
 import com.google.firebase.auth.FirebaseAuth;
+import com.google.firebase.auth.FirebaseUser;
+import com.google.firebase.firestore.ListenerRegistration;
 
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Calendar;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
-import java.util.UUID;
 
 /**
  * ViewModel for managing grocery list data and operations.
  */
-public class GroceryViewModel extends ViewModel {
+public class GroceryViewModel extends AndroidViewModel {
 
     private static final String TAG = "GroceryViewModel";
     private static final String MAIN_GROCERY_LIST_ID = "main_list";
 
     private final GroceryRepository groceryRepository;
+    private final MealPlanRepository mealPlanRepository;
+    private final GroceryLocalDataSource groceryLocalDataSource;
 
-    // LiveData for grocery list
-    private final MutableLiveData<AuthResource<List<GroceryItem>>> groceryListLiveData = new MutableLiveData<>();
+    // Real-time snapshots of the stored list, as delivered by the listener
+    private final MutableLiveData<AuthResource<List<GroceryItem>>> serverListLiveData = new MutableLiveData<>();
+    // The displayed list: the stored list with the optimistic mutations applied
+    private final MediatorLiveData<AuthResource<List<GroceryItem>>> groceryListLiveData = new MediatorLiveData<>();
+    private ListenerRegistration groceryListRegistration;
+
+    // Optimistic edits (purchased toggles and deletes) that are applied before their write completes
+    private final MutationLog<List<GroceryItem>> groceryMutations = new MutationLog<>(Collections.emptyList());
+    // The flush task of the queued toggles whose result is already being reported
+    private Task<Void> reportedToggleFlush;
 
     // LiveData for operation results
     private final MutableLiveData<AuthResource<Void>> updateItemResult = new MutableLiveData<>();
     private final MutableLiveData<AuthResource<Void>> deleteItemResult = new MutableLiveData<>();
     private final MutableLiveData<AuthResource<Void>> addIngredientsResult = new MutableLiveData<>();
+    // The grocery list precomputed from this week's meal plan
+    private final MutableLiveData<List<GroceryItem>> weekPlanItemsLiveData = new MutableLiveData<>();
 
-    public GroceryViewModel() {
+    public GroceryViewModel(@NonNull Application application) {
+        super(application);
         this.groceryRepository = new GroceryRepository();
+        this.mealPlanRepository = new MealPlanRepository(application);
+        this.groceryLocalDataSource = new GroceryLocalDataSource(MealMateDatabase.getInstance(application));
+        groceryListLiveData.addSource(serverListLiveData, this::onServerUpdate);
     }
 
     /**
-     * Gets the LiveData for the grocery list.
+     * Gets the LiveData for the grocery list updates.
      */
     public LiveData<AuthResource<List<GroceryItem>>> getGroceryListLiveData() {
         return groceryListLiveData;
@@ -72,16 +98,34 @@ public class GroceryViewModel extends ViewModel {
     }
 
     /**
-     * Loads the main grocery list.
+     * Starts listening to the main grocery list. Does nothing if the list is
+     * already being observed.
      */
-    public void loadGroceryList() {
-        groceryRepository.getGroceryList(MAIN_GROCERY_LIST_ID, groceryListLiveData);
+    public void observeGroceryList() {
+        if (groceryListRegistration == null) {
+            groceryListRegistration = groceryRepository.observeGroceryList(MAIN_GROCERY_LIST_ID,
+                    serverListLiveData);
+        }
+    }
+
+    private void onServerUpdate(AuthResource<List<GroceryItem>> resource) {
+        if (resource == null || resource.status != AuthResource.Status.SUCCESS || resource.data == null) {
+            groceryListLiveData.setValue(resource);
+            return;
+        }
+
+        groceryMutations.rebase(resource.data);
+        publishGroceryList();
+    }
+
+    private void publishGroceryList() {
+        groceryListLiveData.setValue(AuthResource.success(groceryMutations.getState()));
     }
 
     /**
      * Adds ingredients from a recipe to the main grocery list.
-     * This method fetches the current list, consolidates new ingredients, and saves
-     * the updated list.
+     * Ingredients are consolidated with existing items of the same name and unit
+     * on the server, so the current list does not need to be fetched first.
      */
     public void addIngredientsToGroceryList(List<Ingredient> ingredients) {
         if (ingredients == null || ingredients.isEmpty()) {
@@ -89,111 +133,112 @@ public class GroceryViewModel extends ViewModel {
             return;
         }
 
-        addIngredientsResult.setValue(AuthResource.loading(null));
-
-        // Create a temporary LiveData to get the current list just once.
-        MutableLiveData<AuthResource<List<GroceryItem>>> currentListLiveData = new MutableLiveData<>();
-        groceryRepository.getGroceryList(MAIN_GROCERY_LIST_ID, currentListLiveData);
+        List<GroceryItem> items = new ArrayList<>();
+        for (Ingredient ingredient : ingredients) {
+            if (ingredient.getName() == null || ingredient.getName().trim().isEmpty())
+                continue;
 
-        currentListLiveData.observeForever(resource -> {
-            if (resource != null) {
-                // We only want to process this once, so remove the observer immediately.
-                currentListLiveData.removeObserver(resource1 -> {
-                });
+            GroceryItem item = new GroceryItem(ingredient.getName(), ingredient.getQuantity(), ingredient.getUnit());
+            item.setCategory(GroceryRepository.categoryFor(ingredient.getName()));
+            items.add(item);
+        }
 
-                if (resource.status == AuthResource.Status.SUCCESS) {
-                    List<GroceryItem> currentItems = resource.data != null ? resource.data : new ArrayList<>();
-                    processAndSaveGroceryList(currentItems, ingredients);
-                } else if (resource.status == AuthResource.Status.ERROR) {
-                    // Handle case where the initial list fetch fails
-                    addIngredientsResult.setValue(AuthResource.error(resource.message, null));
-                }
-            }
-        });
+        groceryRepository.addGroceryItems(MAIN_GROCERY_LIST_ID, items, addIngredientsResult);
     }
 
-    private void processAndSaveGroceryList(List<GroceryItem> currentItems, List<Ingredient> newIngredients) {
-        // Use a map for efficient consolidation based on a normalized key.
-        Map<String, GroceryItem> consolidatedItems = new HashMap<>();
-        for (GroceryItem item : currentItems) {
-            String key = (item.getName().toLowerCase().trim() + "|"
-                    + (item.getUnit() != null ? item.getUnit().toLowerCase().trim() : ""));
-            consolidatedItems.put(key, item);
+    /**
+     * Records a checkbox toggle. The toggle is shown immediately; its write is
+     * deferred and coalesced with other toggles. If the write fails, only the
+     * toggles it carried are rolled back and the error is reported through the
+     * update item result.
+     *
+     * @param item The toggled item, carrying its new purchased state
+     */
+    public void togglePurchased(GroceryItem item) {
+        if (item == null) {
+            return;
         }
 
-        for (Ingredient ingredient : newIngredients) {
-            if (ingredient.getName() == null || ingredient.getName().trim().isEmpty())
-                continue;
-
-            String key = (ingredient.getName().toLowerCase().trim() + "|"
-                    + (ingredient.getUnit() != null ? ingredient.getUnit().toLowerCase().trim() : ""));
-
-            if (consolidatedItems.containsKey(key)) {
-                // Item exists, just add the quantity.
-                GroceryItem existingItem = consolidatedItems.get(key);
-                if (existingItem != null) {
-                    existingItem.setQuantity(existingItem.getQuantity() + ingredient.getQuantity());
+        GroceryItem updated = copyOf(item);
+        long mutationId = groceryMutations.apply(items -> {
+            List<GroceryItem> result = new ArrayList<>(items);
+            for (int i = 0; i < result.size(); i++) {
+                if (result.get(i).getItemId().equals(updated.getItemId())) {
+                    result.set(i, updated);
                 }
-            } else {
-                // New item, add to map.
-                GroceryItem newItem = new GroceryItem();
-                newItem.setItemId(UUID.randomUUID().toString());
-                newItem.setName(ingredient.getName());
-                newItem.setQuantity(ingredient.getQuantity());
-                newItem.setUnit(ingredient.getUnit());
-                newItem.setPurchased(false);
-                newItem.setCategory(categorizeIngredient(ingredient.getName()));
-                consolidatedItems.put(key, newItem);
             }
+            return result;
+        });
+        publishGroceryList();
+
+        Task<Void> flushed = groceryRepository.queuePurchasedToggle(MAIN_GROCERY_LIST_ID, updated)
+                .addOnSuccessListener(aVoid -> groceryMutations.confirm(mutationId))
+                .addOnFailureListener(e -> {
+                    Log.e(TAG, "Rolling back toggle of " + updated.getItemId(), e);
+                    groceryMutations.fail(mutationId);
+                    publishGroceryList();
+                });
+        // Toggles written by the same flush share its task; report each flush once
+        if (flushed != reportedToggleFlush) {
+            reportedToggleFlush = flushed;
+            flushed.addOnSuccessListener(aVoid -> updateItemResult.setValue(AuthResource.success(null)))
+                    .addOnFailureListener(e -> updateItemResult.setValue(AuthResource.error(e.getMessage(), null)));
         }
+    }
 
-        // Save the updated list back to Firestore.
-        groceryRepository.saveGroceryList(MAIN_GROCERY_LIST_ID, new ArrayList<>(consolidatedItems.values()),
-                addIngredientsResult);
-    }
-
-    /**
-     * Simple categorization of ingredients (can be enhanced later).
-     */
-    private String categorizeIngredient(String ingredientName) {
-        String name = ingredientName.toLowerCase();
-
-        if (name.contains("milk") || name.contains("cheese") || name.contains("yogurt") ||
-                name.contains("butter") || name.contains("cream")) {
-            return "Dairy";
-        } else if (name.contains("apple") || name.contains("banana") || name.contains("orange") ||
-                name.contains("berry") || name.contains("fruit")) {
-            return "Fruits";
-        } else if (name.contains("potato") || name.contains("carrot") || name.contains("onion") ||
-                name.contains("tomato") || name.contains("lettuce") || name.contains("vegetable")) {
-            return "Vegetables";
-        } else if (name.contains("chicken") || name.contains("beef") || name.contains("pork") ||
-                name.contains("fish") || name.contains("meat")) {
-            return "Meat & Seafood";
-        } else if (name.contains("bread") || name.contains("pasta") || name.contains("rice") ||
-                name.contains("flour") || name.contains("cereal")) {
-            return "Grains & Bakery";
-        } else {
-            return "Other";
-        }
+    /**
+     * Writes all queued purchased toggles now.
+     */
+    public void flushPendingWrites() {
+        groceryRepository.flushPendingWrites();
     }
 
     /**
-     * Updates a grocery item's state.
+     * Gets the number of purchased toggles that were coalesced instead of being
+     * written on their own.
      */
-    public void updateItem(GroceryItem item) {
-        if (item != null) {
-            groceryRepository.updateGroceryItem(MAIN_GROCERY_LIST_ID, item, updateItemResult);
-        }
+    public long getCoalescedWriteCount() {
+        return groceryRepository.getCoalescedWriteCount();
     }
 
     /**
-     * Deletes a grocery item.
+     * Deletes a grocery item. The item disappears immediately and is restored if
+     * the delete fails.
      */
     public void deleteItem(GroceryItem item) {
-        if (item != null) {
-            groceryRepository.deleteGroceryItem(MAIN_GROCERY_LIST_ID, item, deleteItemResult);
+        if (item == null) {
+            return;
         }
+
+        String itemId = item.getItemId();
+        long mutationId = groceryMutations.apply(items -> {
+            List<GroceryItem> result = new ArrayList<>(items.size());
+            for (GroceryItem existing : items) {
+                if (!existing.getItemId().equals(itemId)) {
+                    result.add(existing);
+                }
+            }
+            return result;
+        });
+        publishGroceryList();
+
+        deleteItemResult.setValue(AuthResource.loading(null));
+        groceryRepository.deleteGroceryItem(MAIN_GROCERY_LIST_ID, item)
+                .addOnSuccessListener(aVoid -> {
+                    groceryMutations.confirm(mutationId);
+                    deleteItemResult.setValue(AuthResource.success(null));
+                })
+                .addOnFailureListener(e -> {
+                    Log.e(TAG, "Rolling back delete of " + itemId, e);
+                    groceryMutations.fail(mutationId);
+                    publishGroceryList();
+                    deleteItemResult.setValue(AuthResource.error("Failed to remove item: " + e.getMessage(), null));
+                });
+    }
+
+    private static GroceryItem copyOf(GroceryItem item) {
+        return new GroceryItem(item.getItemId(), item.getName(), item.getQuantity(), item.getUnit(),
+                item.getCategory(), item.isPurchased(), item.getNotes(), item.getRecipeId());
     }
 
     /**
@@ -216,4 +261,65 @@ public class GroceryViewModel extends ViewModel {
     public void clearAddIngredientsResult() {
         addIngredientsResult.setValue(null);
     }
+
+    /**
+     * Gets the LiveData for the grocery list precomputed from this week's meal
+     * plan. It holds an empty list if none was computed.
+     */
+    public LiveData<List<GroceryItem>> getWeekPlanItemsLiveData() {
+        return weekPlanItemsLiveData;
+    }
+
+    /**
+     * Loads the grocery list that was precomputed in the background when this
+     * week's meal plan was last saved. The list is only used if it was computed
+     * from the plan as it is now stored, and none of its recipes was edited
+     * since; otherwise an empty list is posted.
+     */
+    public void loadWeekPlanItems() {
+        FirebaseUser currentUser = FirebaseAuth.getInstance().getCurrentUser();
+        if (currentUser == null) {
+            return;
+        }
+        Timestamp weekStartDate = MealPlanRepository.weekStartOf(Calendar.getInstance());
+        String weekId = MealPlanRepository.weekPlanId(weekStartDate.toDate());
+        mealPlanRepository.getMealPlanForWeek(weekStartDate)
+                .addOnSuccessListener(mealPlan -> {
+                    Map<String, Integer> plannedCounts = WeeklyGroceryList.countPlannedRecipes(mealPlan);
+                    if (plannedCounts.isEmpty()) {
+                        weekPlanItemsLiveData.setValue(Collections.emptyList());
+                        return;
+                    }
+                    MealMateDatabase.databaseExecutor.execute(() -> weekPlanItemsLiveData.postValue(
+                            groceryLocalDataSource.getWeekItems(currentUser.getUid(), weekId,
+                                    groceryLocalDataSource.planSignature(plannedCounts))));
+                })
+                .addOnFailureListener(e -> {
+                    Log.w(TAG, "Failed to read this week's meal plan", e);
+                    weekPlanItemsLiveData.setValue(Collections.emptyList());
+                });
+    }
+
+    /**
+     * Adds the precomputed items of this week's meal plan to the main grocery
+     * list, consolidated with the items already on it.
+     */
+    public void addWeekPlanItems() {
+        List<GroceryItem> items = weekPlanItemsLiveData.getValue();
+        if (items == null || items.isEmpty()) {
+            addIngredientsResult.setValue(AuthResource.error("No items to add", null));
+            return;
+        }
+        groceryRepository.addGroceryItems(MAIN_GROCERY_LIST_ID, items, addIngredientsResult);
+    }
+
+    @Override
+    protected void onCleared() {
+        super.onCleared();
+        groceryRepository.flushPendingWrites();
+        if (groceryListRegistration != null) {
+            groceryListRegistration.remove();
+            groceryListRegistration = null;
+        }
+    }
 }
\ No newline at end of file
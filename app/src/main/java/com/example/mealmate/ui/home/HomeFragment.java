@@ -126,29 +126,27 @@ public class HomeFragment extends Fragment {
 
         binding.cardStoreLocations.setOnClickListener(v -> NavHostFragment.findNavController(HomeFragment.this)
                 .navigate(R.id.action_navigation_home_to_mapFragment));
+
+        // Long-press on the stats card recounts the dashboard counters from the collections
+        binding.heroCard.setOnLongClickListener(v -> {
+            homeViewModel.rebuildDashboardStats();
+            Toast.makeText(getContext(), "Refreshing stats...", Toast.LENGTH_SHORT).show();
+            return true;
+        });
     }
 
     private void setupObservers() {
-        homeViewModel.getRecipesLiveData().observe(getViewLifecycleOwner(), resource -> {
-            if (resource != null && resource.status == AuthResource.Status.SUCCESS && resource.data != null) {
-                binding.textRecipeCountStats.setText(String.valueOf(resource.data.size()));
-            } else {
-                binding.textRecipeCountStats.setText("0");
+        homeViewModel.getStatsLiveData().observe(getViewLifecycleOwner(), resource -> {
+            if (resource == null || resource.status == AuthResource.Status.LOADING) {
+                return;
             }
-        });
-
-        homeViewModel.getMealPlansLiveData().observe(getViewLifecycleOwner(), resource -> {
-            if (resource != null && resource.status == AuthResource.Status.SUCCESS && resource.data != null) {
-                binding.textMealPlanCountStats.setText(String.valueOf(resource.data.size()));
+            if (resource.status == AuthResource.Status.SUCCESS && resource.data != null) {
+                binding.textRecipeCountStats.setText(String.valueOf(resource.data.getRecipeCount()));
+                binding.textMealPlanCountStats.setText(String.valueOf(resource.data.getMealPlanCount()));
+                binding.textGroceryListCountStats.setText(String.valueOf(resource.data.getUnpurchasedGroceryCount()));
             } else {
+                binding.textRecipeCountStats.setText("0");
                 binding.textMealPlanCountStats.setText("0");
-            }
-        });
-
-        homeViewModel.getUnpurchasedItemsCount().observe(getViewLifecycleOwner(), resource -> {
-            if (resource != null && resource.status == AuthResource.Status.SUCCESS && resource.data != null) {
-                binding.textGroceryListCountStats.setText(String.valueOf(resource.data));
-            } else {
                 binding.textGroceryListCountStats.setText("0");
             }
         });
@@ -0,0 +1,44 @@
+package com.example.mealmate.ui.image;
+
+import androidx.annotation.Nullable;
+
+import com.bumptech.glide.load.Key;
+import com.bumptech.glide.load.engine.cache.DiskCache;
+
+import java.io.File;
+
+/**
+ * Glide disk cache wrapper that records each lookup in {@link ImageCacheStats}.
+ * Lookups cover both decoded resources and original downloads.
+ */
+class CountingDiskCache implements DiskCache {
+
+    private final DiskCache delegate;
+
+    CountingDiskCache(DiskCache delegate) {
+        this.delegate = delegate;
+    }
+
+    @Nullable
+    @Override
+    public File get(Key key) {
+        File file = delegate.get(key);
+        ImageCacheStats.getInstance().recordDiskLookup(file != null);
+        return file;
+    }
+
+    @Override
+    public void put(Key key, Writer writer) {
+        delegate.put(key, writer);
+    }
+
+    @Override
+    public void delete(Key key) {
+        delegate.delete(key);
+    }
+
+    @Override
+    public void clear() {
+        delegate.clear();
+    }
+}
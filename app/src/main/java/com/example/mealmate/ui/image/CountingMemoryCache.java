@@ -0,0 +1,28 @@
+package com.example.mealmate.ui.image;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.bumptech.glide.load.Key;
+import com.bumptech.glide.load.engine.Resource;
+import com.bumptech.glide.load.engine.cache.LruResourceCache;
+
+/**
+ * Glide memory cache that records each lookup in {@link ImageCacheStats}.
+ * Glide's engine takes resources out of the memory cache with remove(), so
+ * every call is a lookup.
+ */
+class CountingMemoryCache extends LruResourceCache {
+
+    CountingMemoryCache(long size) {
+        super(size);
+    }
+
+    @Nullable
+    @Override
+    public synchronized Resource<?> remove(@NonNull Key key) {
+        Resource<?> resource = super.remove(key);
+        ImageCacheStats.getInstance().recordMemoryLookup(resource != null);
+        return resource;
+    }
+}
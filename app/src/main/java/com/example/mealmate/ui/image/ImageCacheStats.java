@@ -0,0 +1,71 @@
+package com.example.mealmate.ui.image;
+
+import android.content.Context;
+import android.content.pm.ApplicationInfo;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counts hits and misses of Glide's memory and disk caches, so the cache sizes
+ * can be checked against real scrolling. Only debuggable builds surface the
+ * numbers.
+ */
+public class ImageCacheStats {
+
+    private static final ImageCacheStats INSTANCE = new ImageCacheStats();
+
+    private final AtomicLong memoryHits = new AtomicLong();
+    private final AtomicLong memoryMisses = new AtomicLong();
+    private final AtomicLong diskHits = new AtomicLong();
+    private final AtomicLong diskMisses = new AtomicLong();
+
+    private ImageCacheStats() {
+    }
+
+    public static ImageCacheStats getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Checks whether cache statistics should be shown, i.e. the app is a
+     * debuggable build.
+     */
+    public static boolean isDebugSurfaceEnabled(Context context) {
+        return (context.getApplicationInfo().flags & ApplicationInfo.FLAG_DEBUGGABLE) != 0;
+    }
+
+    void recordMemoryLookup(boolean hit) {
+        (hit ? memoryHits : memoryMisses).incrementAndGet();
+    }
+
+    void recordDiskLookup(boolean hit) {
+        (hit ? diskHits : diskMisses).incrementAndGet();
+    }
+
+    /**
+     * Resets all counters, e.g. before measuring a single scroll.
+     */
+    public void reset() {
+        memoryHits.set(0);
+        memoryMisses.set(0);
+        diskHits.set(0);
+        diskMisses.set(0);
+    }
+
+    /**
+     * Returns a one-line summary of the hit rates since the last reset.
+     */
+    public String summary() {
+        return String.format(Locale.US, "Image cache hits: memory %s, disk %s",
+                rate(memoryHits.get(), memoryMisses.get()), rate(diskHits.get(), diskMisses.get()));
+    }
+
+    private static String rate(long hits, long misses) {
+        long lookups = hits + misses;
+        if (lookups == 0) {
+            return "n/a";
+        }
+        return String.format(Locale.US, "%d%% (%d/%d)", Math.round(100.0 * hits / lookups), hits, lookups);
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.mealmate.ui.image;
+
+import android.app.ActivityManager;
+import android.content.Context;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import com.bumptech.glide.Glide;
+import com.bumptech.glide.GlideBuilder;
+import com.bumptech.glide.Registry;
+import com.bumptech.glide.annotation.GlideModule;
+import com.bumptech.glide.load.engine.bitmap_recycle.LruBitmapPool;
+import com.bumptech.glide.load.engine.cache.DiskCache;
+import com.bumptech.glide.load.engine.cache.InternalCacheDiskCacheFactory;
+import com.bumptech.glide.module.AppGlideModule;
+import com.example.mealmate.data.model.RecipeImage;
+
+import java.io.InputStream;
+
+/**
+ * App-wide Glide configuration. Sizes the memory cache and bitmap pool from
+ * the app's heap limit and the disk cache from the device class, counts cache
+ * hits for {@link ImageCacheStats}, and registers the loader that picks the
+ * recipe image rendition matching each target's size.
+ */
+@GlideModule
+public class MealMateGlideModule extends AppGlideModule {
+
+    private static final String TAG = "MealMateGlideModule";
+    private static final long MB = 1024 * 1024;
+    // Share of the app's heap limit used by decoded bitmaps
+    private static final int MEMORY_CACHE_DIVISOR = 8;
+    private static final int LOW_RAM_MEMORY_CACHE_DIVISOR = 16;
+    private static final long DISK_CACHE_SIZE = 256 * MB;
+    private static final long LOW_RAM_DISK_CACHE_SIZE = 64 * MB;
+
+    @Override
+    public void applyOptions(@NonNull Context context, @NonNull GlideBuilder builder) {
+        ActivityManager activityManager = (ActivityManager) context.getSystemService(Context.ACTIVITY_SERVICE);
+        boolean lowRam = activityManager.isLowRamDevice();
+        long memoryCacheSize = activityManager.getMemoryClass() * MB
+                / (lowRam ? LOW_RAM_MEMORY_CACHE_DIVISOR : MEMORY_CACHE_DIVISOR);
+        long diskCacheSize = lowRam ? LOW_RAM_DISK_CACHE_SIZE : DISK_CACHE_SIZE;
+
+        builder.setMemoryCache(new CountingMemoryCache(memoryCacheSize));
+        // List rows recycle bitmaps of a few fixed sizes, so a smaller pool suffices
+        builder.setBitmapPool(new LruBitmapPool(memoryCacheSize / 2));
+        DiskCache.Factory diskCacheFactory = new InternalCacheDiskCacheFactory(context, diskCacheSize);
+        builder.setDiskCache(() -> {
+            DiskCache diskCache = diskCacheFactory.build();
+            return diskCache != null ? new CountingDiskCache(diskCache) : null;
+        });
+        Log.d(TAG, "Memory cache " + memoryCacheSize / MB + " MB, disk cache " + diskCacheSize / MB + " MB");
+    }
+
+    @Override
+    public void registerComponents(@NonNull Context context, @NonNull Glide glide, @NonNull Registry registry) {
+        registry.prepend(RecipeImage.class, InputStream.class, new RecipeImageLoader.Factory());
+    }
+
+    @Override
+    public boolean isManifestParsingEnabled() {
+        return false;
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.mealmate.ui.image;
+
+import android.net.Uri;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.bumptech.glide.load.Options;
+import com.bumptech.glide.load.model.GlideUrl;
+import com.bumptech.glide.load.model.ModelLoader;
+import com.bumptech.glide.load.model.ModelLoaderFactory;
+import com.bumptech.glide.load.model.MultiModelLoaderFactory;
+import com.example.mealmate.data.model.RecipeImage;
+
+import java.io.InputStream;
+
+/**
+ * Glide model loader for recipe images. It loads the smallest rendition that
+ * covers the size of the target view, so list rows decode and cache
+ * thumbnails while the detail screen gets the full-size image. An image that
+ * is still being uploaded is loaded from its local copy.
+ */
+public class RecipeImageLoader implements ModelLoader<RecipeImage, InputStream> {
+
+    private final ModelLoader<GlideUrl, InputStream> urlLoader;
+    private final ModelLoader<Uri, InputStream> uriLoader;
+
+    private RecipeImageLoader(ModelLoader<GlideUrl, InputStream> urlLoader,
+                              ModelLoader<Uri, InputStream> uriLoader) {
+        this.urlLoader = urlLoader;
+        this.uriLoader = uriLoader;
+    }
+
+    @Nullable
+    @Override
+    public LoadData<InputStream> buildLoadData(@NonNull RecipeImage recipeImage, int width, int height,
+                                               @NonNull Options options) {
+        if (recipeImage.getLocalUri() != null && !recipeImage.getLocalUri().isEmpty()) {
+            return uriLoader.buildLoadData(Uri.parse(recipeImage.getLocalUri()), width, height, options);
+        }
+        String url = recipeImage.urlFor(width, height);
+        return url != null ? urlLoader.buildLoadData(new GlideUrl(url), width, height, options) : null;
+    }
+
+    @Override
+    public boolean handles(@NonNull RecipeImage recipeImage) {
+        return !recipeImage.isEmpty();
+    }
+
+    /**
+     * Creates recipe image loaders backed by Glide's URL and URI loaders.
+     */
+    public static class Factory implements ModelLoaderFactory<RecipeImage, InputStream> {
+
+        @NonNull
+        @Override
+        public ModelLoader<RecipeImage, InputStream> build(@NonNull MultiModelLoaderFactory multiFactory) {
+            return new RecipeImageLoader(multiFactory.build(GlideUrl.class, InputStream.class),
+                    multiFactory.build(Uri.class, InputStream.class));
+        }
+
+        @Override
+        public void teardown() {
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.mealmate.ui.image;
+
+import android.graphics.drawable.Drawable;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.recyclerview.widget.RecyclerView;
+
+import com.bumptech.glide.ListPreloader;
+import com.bumptech.glide.RequestBuilder;
+import com.bumptech.glide.RequestManager;
+import com.bumptech.glide.integration.recyclerview.RecyclerViewPreloader;
+import com.bumptech.glide.util.FixedPreloadSizeProvider;
+import com.example.mealmate.data.model.RecipeImage;
+import com.example.mealmate.data.model.RecipeSummary;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Preloads the recipe images of rows about to scroll into view, so flings show
+ * images instead of placeholders. Rows must load their image with
+ * {@link #request(RequestManager, RecipeImage)} at the preloaded size for the
+ * preloaded bitmaps to be reused.
+ */
+public class RecipeImagePreloader {
+
+    /**
+     * Returns the recipe of a row without triggering any loading, or null if
+     * the row is not loaded.
+     */
+    public interface RecipeAtPosition {
+        @Nullable
+        RecipeSummary getRecipeAt(int position);
+    }
+
+    private RecipeImagePreloader() {
+    }
+
+    /**
+     * Builds the request that loads a recipe image into a row, shared by
+     * binding and preloading so both produce the same cache keys.
+     *
+     * @param requestManager The request manager of the screen
+     * @param recipeImage    The image to load
+     * @return The request, without placeholders
+     */
+    public static RequestBuilder<Drawable> request(RequestManager requestManager, RecipeImage recipeImage) {
+        return requestManager.load(recipeImage).centerCrop();
+    }
+
+    /**
+     * Attaches a preloader to a recipe list.
+     *
+     * @param recyclerView     The recipe list
+     * @param requestManager   The request manager of the screen
+     * @param recipeAtPosition Lookup of the recipe of each row
+     * @param widthPx          The width of a row's image view, in pixels
+     * @param heightPx         The height of a row's image view, in pixels
+     * @param maxPreload       The number of rows ahead to preload
+     */
+    public static void attach(RecyclerView recyclerView, RequestManager requestManager,
+                              RecipeAtPosition recipeAtPosition, int widthPx, int heightPx, int maxPreload) {
+        ListPreloader.PreloadModelProvider<RecipeImage> modelProvider =
+                new ListPreloader.PreloadModelProvider<RecipeImage>() {
+                    @NonNull
+                    @Override
+                    public List<RecipeImage> getPreloadItems(int position) {
+                        RecipeSummary recipe = recipeAtPosition.getRecipeAt(position);
+                        if (recipe == null) {
+                            return Collections.emptyList();
+                        }
+                        RecipeImage recipeImage = RecipeImage.of(recipe);
+                        return recipeImage.isEmpty()
+                                ? Collections.emptyList()
+                                : Collections.singletonList(recipeImage);
+                    }
+
+                    @Nullable
+                    @Override
+                    public RequestBuilder<?> getPreloadRequestBuilder(@NonNull RecipeImage recipeImage) {
+                        return request(requestManager, recipeImage);
+                    }
+                };
+        recyclerView.addOnScrollListener(new RecyclerViewPreloader<>(requestManager, modelProvider,
+                new FixedPreloadSizeProvider<>(widthPx, heightPx), maxPreload));
+    }
+}
@@ -4,7 +4,6 @@ import android.os.Bundle;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
-import android.widget.LinearLayout;
 import android.widget.TextView;
 import android.widget.Toast;
 
@@ -25,7 +24,7 @@ import androidx.recyclerview.widget.SnapHelper;
 import com.example.mealmate.R;
 import com.example.mealmate.data.model.AuthResource;
 import com.example.mealmate.data.model.MealPlan;
-import com.example.mealmate.data.model.Recipe;
+import com.example.mealmate.data.model.RecipeSummary;
 import com.example.mealmate.databinding.FragmentMealPlanBinding;
 import com.google.android.material.card.MaterialCardView;
 
@@ -33,10 +32,8 @@ import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Date;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
-import java.util.Map;
 
 /**
  * MealPlanFragment displays the weekly meal planning interface.
@@ -49,10 +46,11 @@ public class MealPlanFragment extends Fragment {
     private MealPlanViewModel mealPlanViewModel;
     private final List<View> weekDayViews = new ArrayList<>();
 
-    private Map<String, LinearLayout> dayLayouts;
-    private Map<String, LinearLayout> addButtons;
+    private MealPlanWeekAdapter weekAdapter;
     private String selectedDay;
-    private List<Recipe> availableRecipes;
+    private List<RecipeSummary> availableRecipes;
+    // Day whose recipe selection dialog opens once the user's recipes are loaded
+    private String pendingSelectionDay;
 
     @Override
     public View onCreateView(@NonNull LayoutInflater inflater, ViewGroup container, Bundle savedInstanceState) {
@@ -66,11 +64,11 @@ public class MealPlanFragment extends Fragment {
         mealPlanViewModel = new ViewModelProvider(this).get(MealPlanViewModel.class);
 
         setupWeekView();
-        initializeDayLayouts();
+        setupDaysRecyclerView();
         setupClickListeners();
         observeViewModel();
 
-        mealPlanViewModel.loadUserRecipes();
+        mealPlanViewModel.loadCurrentWeekMealPlan();
     }
 
     private void setupWeekView() {
@@ -86,70 +84,66 @@ public class MealPlanFragment extends Fragment {
         }
     }
 
-    private void initializeDayLayouts() {
-        dayLayouts = new HashMap<>();
-        addButtons = new HashMap<>();
-
-        View monday = binding.mondayCard.getRoot();
-        dayLayouts.put("Monday", monday.findViewById(R.id.layout_meals));
-        addButtons.put("Monday", monday.findViewById(R.id.button_add_meal));
-        ((TextView) monday.findViewById(R.id.text_day_title)).setText("Monday");
-
-        View tuesday = binding.tuesdayCard.getRoot();
-        dayLayouts.put("Tuesday", tuesday.findViewById(R.id.layout_meals));
-        addButtons.put("Tuesday", tuesday.findViewById(R.id.button_add_meal));
-        ((TextView) tuesday.findViewById(R.id.text_day_title)).setText("Tuesday");
-
-        View wednesday = binding.wednesdayCard.getRoot();
-        dayLayouts.put("Wednesday", wednesday.findViewById(R.id.layout_meals));
-        addButtons.put("Wednesday", wednesday.findViewById(R.id.button_add_meal));
-        ((TextView) wednesday.findViewById(R.id.text_day_title)).setText("Wednesday");
-
-        View thursday = binding.thursdayCard.getRoot();
-        dayLayouts.put("Thursday", thursday.findViewById(R.id.layout_meals));
-        addButtons.put("Thursday", thursday.findViewById(R.id.button_add_meal));
-        ((TextView) thursday.findViewById(R.id.text_day_title)).setText("Thursday");
-
-        View friday = binding.fridayCard.getRoot();
-        dayLayouts.put("Friday", friday.findViewById(R.id.layout_meals));
-        addButtons.put("Friday", friday.findViewById(R.id.button_add_meal));
-        ((TextView) friday.findViewById(R.id.text_day_title)).setText("Friday");
-
-        View saturday = binding.saturdayCard.getRoot();
-        dayLayouts.put("Saturday", saturday.findViewById(R.id.layout_meals));
-        addButtons.put("Saturday", saturday.findViewById(R.id.button_add_meal));
-        ((TextView) saturday.findViewById(R.id.text_day_title)).setText("Saturday");
-
-        View sunday = binding.sundayCard.getRoot();
-        dayLayouts.put("Sunday", sunday.findViewById(R.id.layout_meals));
-        addButtons.put("Sunday", sunday.findViewById(R.id.button_add_meal));
-        ((TextView) sunday.findViewById(R.id.text_day_title)).setText("Sunday");
+    private void setupDaysRecyclerView() {
+        weekAdapter = new MealPlanWeekAdapter(this::getDisplayedRecipeName);
+        weekAdapter.setOnMealPlanClickListener(new MealPlanWeekAdapter.OnMealPlanClickListener() {
+            @Override
+            public void onAddRecipeClick(String day) {
+                showRecipeSelectionDialog(day);
+            }
+
+            @Override
+            public void onRecipeClick(String recipeId) {
+                Bundle args = new Bundle();
+                args.putString("recipeId", recipeId);
+                NavHostFragment.findNavController(MealPlanFragment.this)
+                        .navigate(R.id.action_mealPlanFragment_to_recipeDetailFragment, args);
+            }
+
+            @Override
+            public void onRemoveRecipeClick(String day, String recipeId) {
+                mealPlanViewModel.removeRecipeFromDay(day, recipeId);
+            }
+        });
+        binding.recyclerViewDays.setLayoutManager(new LinearLayoutManager(getContext()));
+        binding.recyclerViewDays.setAdapter(weekAdapter);
     }
 
     private void setupClickListeners() {
         binding.toolbar.setNavigationOnClickListener(v -> NavHostFragment.findNavController(this).navigateUp());
+        binding.toolbar.inflateMenu(R.menu.meal_plan_menu);
+        binding.toolbar.setOnMenuItemClickListener(item -> {
+            if (item.getItemId() == R.id.menu_generate_grocery_list) {
+                mealPlanViewModel.generateGroceryListForWeek();
+                return true;
+            }
+            return false;
+        });
         binding.buttonPreviousWeek.setOnClickListener(v -> mealPlanViewModel.goToPreviousWeek());
         binding.buttonNextWeek.setOnClickListener(v -> mealPlanViewModel.goToNextWeek());
         binding.fabSaveMealPlan.setOnClickListener(v -> mealPlanViewModel.saveMealPlan());
-
-        for (Map.Entry<String, LinearLayout> entry : addButtons.entrySet()) {
-            String day = entry.getKey();
-            entry.getValue().setOnClickListener(v -> showRecipeSelectionDialog(day));
-        }
     }
 
     private void observeViewModel() {
         mealPlanViewModel.getRecipesLiveData().observe(getViewLifecycleOwner(),
-                (Observer<AuthResource<List<Recipe>>>) resource -> {
+                (Observer<AuthResource<List<RecipeSummary>>>) resource -> {
                     if (resource != null && resource.status == AuthResource.Status.SUCCESS) {
                         availableRecipes = resource.data;
-                        mealPlanViewModel.populateRecipeMap(availableRecipes);
-                        mealPlanViewModel.loadCurrentWeekMealPlan();
+                        mealPlanViewModel.populateRecipeNames(availableRecipes);
+                        if (pendingSelectionDay != null) {
+                            String day = pendingSelectionDay;
+                            pendingSelectionDay = null;
+                            showRecipeSelectionDialog(day);
+                        }
                     } else if (resource != null && resource.status == AuthResource.Status.ERROR) {
+                        pendingSelectionDay = null;
                         showError("Failed to load recipes: " + resource.message);
                     }
                 });
 
+        mealPlanViewModel.getPlanRecipesLiveData().observe(getViewLifecycleOwner(),
+                recipes -> weekAdapter.refreshRecipeNames());
+
         mealPlanViewModel.getCurrentMealPlanLiveData().observe(getViewLifecycleOwner(), resource -> {
             if (resource != null) {
                 switch (resource.status) {
@@ -181,31 +175,24 @@ public class MealPlanFragment extends Fragment {
                 }
             }
         });
+
+        mealPlanViewModel.getGroceryListResult().observe(getViewLifecycleOwner(), resource -> {
+            if (resource != null) {
+                if (resource.status == AuthResource.Status.SUCCESS) {
+                    showSuccess("This week's ingredients were added to your grocery list");
+                    mealPlanViewModel.clearGroceryListResult();
+                } else if (resource.status == AuthResource.Status.ERROR) {
+                    showError(resource.message);
+                    mealPlanViewModel.clearGroceryListResult();
+                }
+            }
+        });
     }
 
     private void updateMealPlanUI(MealPlan mealPlan) {
         binding.textWeekRange.setText(mealPlanViewModel.getFormattedWeekStart());
         updateWeekView(mealPlanViewModel.getCurrentWeekDates());
-
-        for (LinearLayout dayLayout : dayLayouts.values()) {
-            clearDayRecipes(dayLayout);
-        }
-
-        if (mealPlan == null)
-            return;
-
-        if (mealPlan.getDays() != null) {
-            for (Map.Entry<String, LinearLayout> entry : dayLayouts.entrySet()) {
-                String day = entry.getKey();
-                LinearLayout dayLayout = entry.getValue();
-                List<String> dayRecipes = mealPlan.getDays().get(day);
-                if (dayRecipes != null) {
-                    for (String recipeId : dayRecipes) {
-                        addRecipeToDay(dayLayout, recipeId, day);
-                    }
-                }
-            }
-        }
+        weekAdapter.submitMealPlan(mealPlan);
     }
 
     private void updateWeekView(List<Date> weekDates) {
@@ -236,38 +223,24 @@ public class MealPlanFragment extends Fragment {
         }
     }
 
-    private void clearDayRecipes(LinearLayout dayLayout) {
-        for (int i = dayLayout.getChildCount() - 1; i >= 0; i--) {
-            View child = dayLayout.getChildAt(i);
-            if (child.getId() != R.id.button_add_meal) {
-                dayLayout.removeViewAt(i);
-            }
+    private String getDisplayedRecipeName(String recipeId) {
+        String recipeName = mealPlanViewModel.getRecipeName(recipeId);
+        if (recipeName == null && mealPlanViewModel.isRecipeResolving(recipeId)) {
+            recipeName = "Loading...";
+        } else if (recipeName == null) {
+            recipeName = "Unknown Recipe";
         }
-    }
-
-    private void addRecipeToDay(LinearLayout dayLayout, String recipeId, String day) {
-        Recipe recipe = mealPlanViewModel.getRecipeById(recipeId);
-        String recipeName = (recipe != null) ? recipe.getName() : "Unknown Recipe";
-
-        View recipeView = LayoutInflater.from(getContext()).inflate(R.layout.item_meal_plan_recipe, dayLayout, false);
-        ((TextView) recipeView.findViewById(R.id.text_recipe_name)).setText(recipeName);
-
-        recipeView.findViewById(R.id.button_remove_meal).setOnClickListener(v -> {
-            mealPlanViewModel.removeRecipeFromDay(day, recipeId);
-        });
-
-        recipeView.setOnClickListener(v -> {
-            Bundle args = new Bundle();
-            args.putString("recipeId", recipeId);
-            NavHostFragment.findNavController(this).navigate(R.id.action_mealPlanFragment_to_recipeDetailFragment,
-                    args);
-        });
-
-        dayLayout.addView(recipeView, dayLayout.getChildCount() - 1);
+        return recipeName;
     }
 
     private void showRecipeSelectionDialog(String day) {
-        if (availableRecipes == null || availableRecipes.isEmpty()) {
+        if (availableRecipes == null) {
+            // The full recipe list is only needed for picking, so it is loaded on first use
+            pendingSelectionDay = day;
+            mealPlanViewModel.loadUserRecipes();
+            return;
+        }
+        if (availableRecipes.isEmpty()) {
             showError("No recipes available. Please create some recipes first.");
             return;
         }
@@ -1,47 +1,115 @@
 package com.example.mealmate.ui.mealplan;
 
+import android.app.Application;
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.util.Log;
+import android.util.LruCache;
+
+import androidx.annotation.NonNull;
+import androidx.lifecycle.AndroidViewModel;
 import androidx.lifecycle.LiveData;
 import androidx.lifecycle.MutableLiveData;
-import androidx.lifecycle.ViewModel;
 
+import com.example.mealmate.data.local.GroceryLocalDataSource;
+import com.example.mealmate.data.local.MealMateDatabase;
 import com.example.mealmate.data.model.AuthResource;
 import com.example.mealmate.data.model.MealPlan;
 import com.example.mealmate.data.model.Recipe;
+import com.example.mealmate.data.model.RecipeSummary;
+import com.example.mealmate.data.repository.GroceryRepository;
+import com.example.mealmate.data.repository.MealPlanPatch;
 import com.example.mealmate.data.repository.MealPlanRepository;
+import com.example.mealmate.data.repository.MutationLog;
 import com.example.mealmate.data.repository.RecipeRepository;
+import com.example.mealmate.data.repository.WeeklyGroceryList;
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
 import com.google.firebase.Timestamp;
+import com.google.firebase.auth.FirebaseAuth;
+import com.google.firebase.auth.FirebaseUser;
 
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * ViewModel for managing meal plan-related UI state and coordinating with
  * MealPlanRepository and RecipeRepository.
  */
-public class MealPlanViewModel extends ViewModel {
+public class MealPlanViewModel extends AndroidViewModel {
+
+    private static final String TAG = "MealPlanViewModel";
+    private static final int WEEK_CACHE_SIZE = 8;
+    private static final String PREFS_NAME = "meal_plans";
+    private static final String PREF_PLAN_IDS_MIGRATED = "plan_ids_migrated_";
+    private static final String MAIN_GROCERY_LIST_ID = "main_list";
 
     private final MealPlanRepository mealPlanRepository;
     private final RecipeRepository recipeRepository;
+    private final GroceryRepository groceryRepository;
+    private final GroceryLocalDataSource groceryLocalDataSource;
 
     private final MutableLiveData<AuthResource<MealPlan>> saveMealPlanResult = new MutableLiveData<>();
     private final MutableLiveData<AuthResource<List<MealPlan>>> mealPlansLiveData = new MutableLiveData<>();
+    // The displayed plan: the stored plan with the unsaved edits applied
     private final MutableLiveData<AuthResource<MealPlan>> currentMealPlanLiveData = new MutableLiveData<>();
     private final MutableLiveData<AuthResource<Void>> deleteMealPlanResult = new MutableLiveData<>();
-    private final MutableLiveData<AuthResource<List<Recipe>>> recipesLiveData = new MutableLiveData<>();
+    private final MutableLiveData<AuthResource<List<RecipeSummary>>> recipesLiveData = new MutableLiveData<>();
+    private final MutableLiveData<AuthResource<Void>> groceryListResult = new MutableLiveData<>();
+
+    // Assignments and removals are applied optimistically and rolled back if their save fails
+    private final MutationLog<MealPlan> mealPlanMutations = new MutationLog<>(null);
+    // Incremented whenever a different plan is loaded, so late save results are ignored
+    private long mealPlanGeneration;
+    private boolean saveInFlight;
+    private boolean saveRequested;
 
-    private MealPlan currentMealPlan;
+    /**
+     * A single recipe assignment or removal, kept so a save can send only the
+     * changed days.
+     */
+    private static class DayEdit {
+        final String day;
+        final String recipeId;
+        final boolean added;
+
+        DayEdit(String day, String recipeId, boolean added) {
+            this.day = day;
+            this.recipeId = recipeId;
+            this.added = added;
+        }
+    }
+
+    // Edits of the logged mutations that are not saved yet, by mutation ID
+    private final Map<Long, DayEdit> pendingDayEdits = new HashMap<>();
+
+    // Recently used weeks by plan ID; weeks without a stored plan hold an unsaved empty plan
+    private final LruCache<String, MealPlan> weekCache = new LruCache<>(WEEK_CACHE_SIZE);
+    private final Map<String, Task<MealPlan>> weekFetches = new HashMap<>();
+    private Task<Void> migrationTask;
     private Calendar currentWeekStart;
-    private final Map<String, Recipe> recipeMap = new HashMap<>();
+    // Names of the recipes known to this screen, by recipe ID
+    private final Map<String, String> recipeNames = new HashMap<>();
+    // Recipes of the displayed plan that are being fetched, or that no longer exist
+    private final Set<String> resolvingRecipeIds = new HashSet<>();
+    private final Set<String> missingRecipeIds = new HashSet<>();
+    private final MutableLiveData<Map<String, String>> planRecipesLiveData = new MutableLiveData<>();
 
-    public MealPlanViewModel() {
-        this.mealPlanRepository = new MealPlanRepository();
-        this.recipeRepository = new RecipeRepository();
+    public MealPlanViewModel(@NonNull Application application) {
+        super(application);
+        this.mealPlanRepository = new MealPlanRepository(application);
+        this.recipeRepository = new RecipeRepository(application);
+        this.groceryRepository = new GroceryRepository();
+        this.groceryLocalDataSource = new GroceryLocalDataSource(MealMateDatabase.getInstance(application));
         initializeCurrentWeek();
     }
 
@@ -60,76 +128,335 @@ public class MealPlanViewModel extends ViewModel {
         calendar.set(Calendar.MILLISECOND, 0);
     }
 
+    private static String weekIdOf(Calendar weekStart) {
+        return MealPlanRepository.weekPlanId(MealPlanRepository.weekStartOf(weekStart).toDate());
+    }
+
     public void createNewMealPlan() {
-        String planName = "Week of " + getFormattedWeekStart();
-        MealPlan newPlan = new MealPlan(null, planName, new Timestamp(currentWeekStart.getTime()));
+        resetMealPlan(newMealPlanForWeek(currentWeekStart));
+    }
+
+    private MealPlan newMealPlanForWeek(Calendar weekStart) {
+        String planName = "Week of " + formatWeekRange(weekStart);
+        MealPlan newPlan = new MealPlan(null, planName, MealPlanRepository.weekStartOf(weekStart));
         Map<String, List<String>> days = new HashMap<>();
         String[] dayNames = { "Monday", "Tuesday", "Wednesday", "Thursday", "Friday", "Saturday", "Sunday" };
         for (String day : dayNames) {
             days.put(day, new ArrayList<>());
         }
         newPlan.setDays(days);
-        this.currentMealPlan = newPlan;
-        currentMealPlanLiveData.setValue(AuthResource.success(this.currentMealPlan));
+        return newPlan;
     }
 
     public void setCurrentMealPlan(MealPlan mealPlan) {
-        this.currentMealPlan = mealPlan;
+        if (mealPlan != mealPlanMutations.getState()) {
+            resetMealPlan(mealPlan);
+        }
     }
 
+    private void resetMealPlan(MealPlan mealPlan) {
+        mealPlanGeneration++;
+        mealPlanMutations.reset(mealPlan);
+        pendingDayEdits.clear();
+        publishMealPlan();
+    }
+
+    private void publishMealPlan() {
+        resolvePlanRecipes(mealPlanMutations.getState());
+        currentMealPlanLiveData.setValue(AuthResource.success(mealPlanMutations.getState()));
+    }
+
+    /**
+     * Fetches the recipes the plan references that are not known yet, so their
+     * names can be shown without downloading the whole recipe collection.
+     * {@link #getPlanRecipesLiveData()} is updated once they are resolved.
+     */
+    private void resolvePlanRecipes(MealPlan mealPlan) {
+        if (mealPlan == null || mealPlan.getDays() == null) {
+            return;
+        }
+
+        Set<String> unresolvedIds = new LinkedHashSet<>();
+        for (List<String> dayRecipes : mealPlan.getDays().values()) {
+            if (dayRecipes == null) {
+                continue;
+            }
+            for (String recipeId : dayRecipes) {
+                if (!recipeNames.containsKey(recipeId) && !resolvingRecipeIds.contains(recipeId)
+                        && !missingRecipeIds.contains(recipeId)) {
+                    unresolvedIds.add(recipeId);
+                }
+            }
+        }
+        if (unresolvedIds.isEmpty()) {
+            return;
+        }
+
+        resolvingRecipeIds.addAll(unresolvedIds);
+        recipeRepository.getRecipesByIds(unresolvedIds)
+                .addOnSuccessListener(recipes -> {
+                    for (Recipe recipe : recipes.values()) {
+                        recipeNames.put(recipe.getRecipeId(), recipe.getName());
+                    }
+                    for (String recipeId : unresolvedIds) {
+                        if (!recipes.containsKey(recipeId)) {
+                            missingRecipeIds.add(recipeId);
+                        }
+                    }
+                })
+                .addOnFailureListener(e -> Log.e(TAG, "Failed to resolve meal plan recipes", e))
+                .addOnCompleteListener(task -> {
+                    resolvingRecipeIds.removeAll(unresolvedIds);
+                    planRecipesLiveData.setValue(new HashMap<>(recipeNames));
+                });
+    }
+
+    /**
+     * Shows the plan of the current week. Cached weeks are shown immediately;
+     * others are fetched with a direct read. The previous and next weeks are
+     * then prefetched so switching weeks does not wait for the network.
+     */
     public void loadCurrentWeekMealPlan() {
-        Timestamp weekStartTimestamp = new Timestamp(currentWeekStart.getTime());
-        mealPlanRepository.getMealPlanForWeek(weekStartTimestamp, currentMealPlanLiveData);
+        String weekId = weekIdOf(currentWeekStart);
+        MealPlan displayed = mealPlanMutations.getState();
+        if (displayed != null && mealPlanMutations.hasUnsyncedMutations()
+                && weekId.equals(MealPlanRepository.weekPlanId(displayed.getWeekStartDate().toDate()))) {
+            // Keep the unsaved edits of the week that is already shown
+            prefetchAdjacentWeeks();
+            return;
+        }
+
+        MealPlan cached = weekCache.get(weekId);
+        if (cached != null) {
+            resetMealPlan(new MealPlan(cached));
+        } else {
+            Calendar weekStart = (Calendar) currentWeekStart.clone();
+            currentMealPlanLiveData.setValue(AuthResource.loading(null));
+            fetchWeek(weekStart)
+                    .addOnSuccessListener(mealPlan -> {
+                        if (isCurrentWeek(weekId)) {
+                            // Weeks without a stored plan start with an empty one
+                            resetMealPlan(mealPlan != null ? new MealPlan(mealPlan) : newMealPlanForWeek(weekStart));
+                        }
+                    })
+                    .addOnFailureListener(e -> {
+                        if (isCurrentWeek(weekId)) {
+                            currentMealPlanLiveData.setValue(
+                                    AuthResource.error("Failed to fetch meal plan: " + e.getMessage(), null));
+                        }
+                    });
+        }
+        prefetchAdjacentWeeks();
     }
 
-    public void assignRecipeToDay(String day, String recipeId) {
-        if (currentMealPlan == null) return;
-        Map<String, List<String>> days = currentMealPlan.getDays();
-        if (days == null) {
-            days = new HashMap<>();
-            currentMealPlan.setDays(days);
+    private boolean isCurrentWeek(String weekId) {
+        return weekId.equals(weekIdOf(currentWeekStart));
+    }
+
+    private void prefetchAdjacentWeeks() {
+        for (int offset : new int[] { -1, 1 }) {
+            Calendar weekStart = (Calendar) currentWeekStart.clone();
+            weekStart.add(Calendar.WEEK_OF_YEAR, offset);
+            if (weekCache.get(weekIdOf(weekStart)) == null) {
+                fetchWeek(weekStart);
+            }
+        }
+    }
+
+    /**
+     * Fetches the plan of a week into the cache. Concurrent fetches of the same
+     * week share one read.
+     */
+    private Task<MealPlan> fetchWeek(Calendar weekStart) {
+        String weekId = weekIdOf(weekStart);
+        Task<MealPlan> inFlight = weekFetches.get(weekId);
+        if (inFlight != null) {
+            return inFlight;
         }
-        List<String> dayRecipes = days.get(day);
-        if (dayRecipes == null) {
-            dayRecipes = new ArrayList<>();
-            days.put(day, dayRecipes);
+
+        Timestamp weekStartTimestamp = MealPlanRepository.weekStartOf(weekStart);
+        Task<MealPlan> fetch = ensureLegacyPlansMigrated()
+                .continueWithTask(task -> mealPlanRepository.getMealPlanForWeek(weekStartTimestamp))
+                .addOnCompleteListener(task -> {
+                    weekFetches.remove(weekId);
+                    if (task.isSuccessful()) {
+                        weekCache.put(weekId, task.getResult() != null
+                                ? task.getResult()
+                                : newMealPlanForWeek(weekStart));
+                    }
+                });
+        weekFetches.put(weekId, fetch);
+        return fetch;
+    }
+
+    /**
+     * Runs the one-time migration of randomly keyed plans to week IDs before the
+     * first week is fetched. The migration is remembered per user on this
+     * device; if it fails it is retried the next time the screen is opened.
+     */
+    private Task<Void> ensureLegacyPlansMigrated() {
+        if (migrationTask != null) {
+            return migrationTask;
         }
-        if (!dayRecipes.contains(recipeId)) {
-            dayRecipes.add(recipeId);
+
+        FirebaseUser currentUser = FirebaseAuth.getInstance().getCurrentUser();
+        SharedPreferences preferences = getApplication().getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        if (currentUser == null || preferences.getBoolean(PREF_PLAN_IDS_MIGRATED + currentUser.getUid(), false)) {
+            migrationTask = Tasks.forResult(null);
+            return migrationTask;
         }
-        currentMealPlanLiveData.setValue(AuthResource.success(currentMealPlan));
+
+        String preferenceKey = PREF_PLAN_IDS_MIGRATED + currentUser.getUid();
+        migrationTask = mealPlanRepository.migrateLegacyMealPlanIds()
+                .continueWith(task -> {
+                    if (task.isSuccessful()) {
+                        Log.d(TAG, "Migrated " + task.getResult() + " meal plans to week IDs");
+                        preferences.edit().putBoolean(preferenceKey, true).apply();
+                    } else {
+                        Log.e(TAG, "Failed to migrate meal plans to week IDs", task.getException());
+                    }
+                    return null;
+                });
+        return migrationTask;
+    }
+
+    public void assignRecipeToDay(String day, String recipeId) {
+        if (mealPlanMutations.getState() == null) return;
+        long mutationId = mealPlanMutations.apply(plan -> {
+            MealPlan updated = new MealPlan(plan);
+            Map<String, List<String>> days = updated.getDays();
+            if (days == null) {
+                days = new HashMap<>();
+                updated.setDays(days);
+            }
+            List<String> dayRecipes = days.get(day);
+            if (dayRecipes == null) {
+                dayRecipes = new ArrayList<>();
+                days.put(day, dayRecipes);
+            }
+            if (!dayRecipes.contains(recipeId)) {
+                dayRecipes.add(recipeId);
+            }
+            return updated;
+        });
+        pendingDayEdits.put(mutationId, new DayEdit(day, recipeId, true));
+        publishMealPlan();
     }
 
     public void removeRecipeFromDay(String day, String recipeId) {
-        if (currentMealPlan == null || currentMealPlan.getDays() == null) return;
-        List<String> dayRecipes = currentMealPlan.getDays().get(day);
-        if (dayRecipes != null) {
-            dayRecipes.remove(recipeId);
-            currentMealPlanLiveData.setValue(AuthResource.success(currentMealPlan));
-        }
+        MealPlan current = mealPlanMutations.getState();
+        if (current == null || current.getDays() == null || current.getDays().get(day) == null) return;
+        long mutationId = mealPlanMutations.apply(plan -> {
+            MealPlan updated = new MealPlan(plan);
+            if (updated.getDays() != null && updated.getDays().get(day) != null) {
+                updated.getDays().get(day).remove(recipeId);
+            }
+            return updated;
+        });
+        pendingDayEdits.put(mutationId, new DayEdit(day, recipeId, false));
+        publishMealPlan();
     }
 
+    /**
+     * Saves the displayed plan. A new plan is written as a whole; for a stored
+     * plan only the pending edits are sent, as one patch of the changed days.
+     * The edits included in the save are confirmed when it succeeds, or rolled
+     * back if it fails; edits made while the save is running stay pending and
+     * are sent with the next save.
+     */
     public void saveMealPlan() {
-        if (currentMealPlan != null) {
-            mealPlanRepository.saveMealPlan(currentMealPlan, saveMealPlanResult);
+        if (mealPlanMutations.getState() == null) {
+            return;
         }
+        if (saveInFlight) {
+            // Saving concurrently could create the same new plan twice
+            saveRequested = true;
+            return;
+        }
+
+        saveInFlight = true;
+        long generation = mealPlanGeneration;
+        List<Long> savedMutations = mealPlanMutations.getPendingIds();
+        MealPlan snapshot = new MealPlan(mealPlanMutations.getState());
+
+        Task<MealPlan> saveTask;
+        if (snapshot.getPlanId() == null) {
+            saveTask = mealPlanRepository.saveMealPlan(snapshot);
+        } else {
+            MealPlanPatch patch = new MealPlanPatch();
+            for (long id : savedMutations) {
+                DayEdit edit = pendingDayEdits.get(id);
+                if (edit == null) {
+                    continue;
+                }
+                if (edit.added) {
+                    patch.add(edit.day, edit.recipeId);
+                } else {
+                    patch.remove(edit.day, edit.recipeId);
+                }
+            }
+            saveTask = mealPlanRepository.patchMealPlanDays(snapshot.getPlanId(), patch)
+                    .onSuccessTask(aVoid -> Tasks.forResult(snapshot));
+        }
+
+        saveMealPlanResult.setValue(AuthResource.loading(null));
+        saveTask
+                .addOnSuccessListener(savedPlan -> {
+                    if (generation == mealPlanGeneration) {
+                        for (long id : savedMutations) {
+                            mealPlanMutations.confirm(id);
+                            pendingDayEdits.remove(id);
+                        }
+                        mealPlanMutations.rebase(savedPlan);
+                        weekCache.put(savedPlan.getPlanId(), new MealPlan(savedPlan));
+                        publishMealPlan();
+                    }
+                    saveMealPlanResult.setValue(AuthResource.success(savedPlan));
+                })
+                .addOnFailureListener(e -> {
+                    if (generation == mealPlanGeneration) {
+                        for (long id : savedMutations) {
+                            mealPlanMutations.fail(id);
+                            pendingDayEdits.remove(id);
+                        }
+                        publishMealPlan();
+                    }
+                    saveMealPlanResult.setValue(AuthResource.error(e.getMessage(), null));
+                })
+                .addOnCompleteListener(task -> {
+                    saveInFlight = false;
+                    if (saveRequested) {
+                        saveRequested = false;
+                        saveMealPlan();
+                    }
+                });
     }
 
+    /**
+     * Loads the summaries of the user's recipes for the recipe picker from the
+     * local recipe cache, which is synced in the background.
+     */
     public void loadUserRecipes() {
-        recipeRepository.getUserRecipes(recipesLiveData);
+        recipeRepository.getRecipeSummaries(recipesLiveData);
     }
 
-    public void populateRecipeMap(List<Recipe> recipes) {
-        recipeMap.clear();
+    public void populateRecipeNames(List<RecipeSummary> recipes) {
         if (recipes != null) {
-            for (Recipe recipe : recipes) {
-                recipeMap.put(recipe.getRecipeId(), recipe);
+            for (RecipeSummary recipe : recipes) {
+                recipeNames.put(recipe.getRecipeId(), recipe.getName());
             }
         }
     }
 
-    public Recipe getRecipeById(String recipeId) {
-        return recipeMap.get(recipeId);
+    public String getRecipeName(String recipeId) {
+        return recipeNames.get(recipeId);
+    }
+
+    /**
+     * Returns whether a recipe of the displayed plan is still being fetched.
+     */
+    public boolean isRecipeResolving(String recipeId) {
+        return resolvingRecipeIds.contains(recipeId);
     }
 
     public void goToPreviousWeek() {
@@ -143,14 +470,18 @@ public class MealPlanViewModel extends ViewModel {
     }
 
     public String getFormattedWeekStart() {
+        return formatWeekRange(currentWeekStart);
+    }
+
+    private static String formatWeekRange(Calendar weekStart) {
         SimpleDateFormat sdf = new SimpleDateFormat("MM/dd", Locale.getDefault());
-        Calendar endOfWeek = (Calendar) currentWeekStart.clone();
+        Calendar endOfWeek = (Calendar) weekStart.clone();
         endOfWeek.add(Calendar.DAY_OF_MONTH, 6);
-        return sdf.format(currentWeekStart.getTime()) + " - " + sdf.format(endOfWeek.getTime());
+        return sdf.format(weekStart.getTime()) + " - " + sdf.format(endOfWeek.getTime());
     }
 
     public MealPlan getCurrentMealPlan() {
-        return currentMealPlan;
+        return mealPlanMutations.getState();
     }
 
     public long getCurrentWeekStartMillis() {
@@ -175,11 +506,69 @@ public class MealPlanViewModel extends ViewModel {
         return currentMealPlanLiveData;
     }
 
-    public LiveData<AuthResource<List<Recipe>>> getRecipesLiveData() {
+    public LiveData<AuthResource<List<RecipeSummary>>> getRecipesLiveData() {
         return recipesLiveData;
     }
 
+    public LiveData<Map<String, String>> getPlanRecipesLiveData() {
+        return planRecipesLiveData;
+    }
+
     public void clearSaveMealPlanResult() {
         saveMealPlanResult.setValue(null);
     }
+
+    /**
+     * Adds the ingredients of every recipe planned for the displayed week to the
+     * main grocery list. If the list was precomputed in the background from
+     * the same plan, and none of its recipes was edited since, it is used as
+     * is; otherwise each planned recipe is fetched
+     * once, and its ingredients are counted once per day it is planned for.
+     * All items are then written in one chunked upsert that consolidates them
+     * with the items already on the list.
+     */
+    public void generateGroceryListForWeek() {
+        MealPlan mealPlan = mealPlanMutations.getState();
+        Map<String, Integer> plannedCounts = WeeklyGroceryList.countPlannedRecipes(mealPlan);
+        FirebaseUser currentUser = FirebaseAuth.getInstance().getCurrentUser();
+        if (currentUser == null) {
+            groceryListResult.setValue(AuthResource.error("User not authenticated", null));
+            return;
+        }
+        if (plannedCounts.isEmpty()) {
+            groceryListResult.setValue(AuthResource.error("No recipes planned for this week", null));
+            return;
+        }
+
+        groceryListResult.setValue(AuthResource.loading(null));
+        String weekId = weekIdOf(currentWeekStart);
+        Tasks.call(MealMateDatabase.databaseExecutor,
+                        () -> groceryLocalDataSource.getWeekItems(currentUser.getUid(), weekId,
+                                groceryLocalDataSource.planSignature(plannedCounts)))
+                .onSuccessTask(precomputedItems -> {
+                    if (!precomputedItems.isEmpty()) {
+                        Log.d(TAG, "Using " + precomputedItems.size() + " precomputed grocery items");
+                        return Tasks.forResult(precomputedItems);
+                    }
+                    return recipeRepository.getRecipeIngredients(plannedCounts.keySet())
+                            .onSuccessTask(ingredientsByRecipe ->
+                                    Tasks.forResult(WeeklyGroceryList.build(plannedCounts, ingredientsByRecipe)));
+                })
+                .addOnSuccessListener(items -> {
+                    Log.d(TAG, "Adding " + items.size() + " grocery items for " + weekId);
+                    groceryRepository.addGroceryItems(MAIN_GROCERY_LIST_ID, items, groceryListResult);
+                })
+                .addOnFailureListener(e -> {
+                    Log.e(TAG, "Failed to load planned recipes", e);
+                    groceryListResult.setValue(AuthResource.error("Failed to load recipes: " + e.getMessage(), null));
+                });
+    }
+
+    public LiveData<AuthResource<Void>> getGroceryListResult() {
+        return groceryListResult;
+    }
+
+    public void clearGroceryListResult() {
+        groceryListResult.setValue(null);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,222 @@
+package com.example.mealmate.ui.mealplan;
+
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.TextView;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.ListAdapter;
+import androidx.recyclerview.widget.RecyclerView;
+
+import com.example.mealmate.R;
+import com.example.mealmate.data.model.MealPlan;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Adapter for the meal plan week: one card per day, each with a nested list of
+ * the recipes planned for that day. Every day keeps its own recipe adapter, so
+ * a plan update is diffed per day and only the recipes that were added or
+ * removed are inserted or removed. The nested lists share one view pool, so
+ * recipe rows are recycled across days.
+ */
+public class MealPlanWeekAdapter extends RecyclerView.Adapter<MealPlanWeekAdapter.DayViewHolder> {
+
+    public static final List<String> DAYS = Collections.unmodifiableList(Arrays.asList(
+            "Monday", "Tuesday", "Wednesday", "Thursday", "Friday", "Saturday", "Sunday"));
+
+    // Change payload for recipe rows whose name was resolved
+    private static final Object PAYLOAD_NAME = new Object();
+
+    private final DayRecipeAdapter[] dayAdapters = new DayRecipeAdapter[DAYS.size()];
+    private final RecyclerView.RecycledViewPool recipeViewPool = new RecyclerView.RecycledViewPool();
+    private final RecipeNameProvider recipeNameProvider;
+    private OnMealPlanClickListener listener;
+
+    /**
+     * Resolves the name to display for a planned recipe.
+     */
+    public interface RecipeNameProvider {
+        String getRecipeName(String recipeId);
+    }
+
+    public interface OnMealPlanClickListener {
+        void onAddRecipeClick(String day);
+
+        void onRecipeClick(String recipeId);
+
+        void onRemoveRecipeClick(String day, String recipeId);
+    }
+
+    public MealPlanWeekAdapter(RecipeNameProvider recipeNameProvider) {
+        this.recipeNameProvider = recipeNameProvider;
+        for (int i = 0; i < dayAdapters.length; i++) {
+            dayAdapters[i] = new DayRecipeAdapter(DAYS.get(i));
+        }
+    }
+
+    public void setOnMealPlanClickListener(OnMealPlanClickListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Displays a meal plan. Each day's recipes are diffed against the displayed
+     * ones on a background thread.
+     *
+     * @param mealPlan The plan to display, or null to show an empty week
+     */
+    public void submitMealPlan(MealPlan mealPlan) {
+        for (int i = 0; i < dayAdapters.length; i++) {
+            List<String> dayRecipes = mealPlan != null && mealPlan.getDays() != null
+                    ? mealPlan.getDays().get(DAYS.get(i))
+                    : null;
+            dayAdapters[i].submitList(dayRecipes != null ? new ArrayList<>(dayRecipes) : new ArrayList<>());
+        }
+    }
+
+    /**
+     * Rebinds the names of the displayed recipes, e.g. after more of them were
+     * resolved.
+     */
+    public void refreshRecipeNames() {
+        for (DayRecipeAdapter dayAdapter : dayAdapters) {
+            dayAdapter.notifyItemRangeChanged(0, dayAdapter.getItemCount(), PAYLOAD_NAME);
+        }
+    }
+
+    @NonNull
+    @Override
+    public DayViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+        View view = LayoutInflater.from(parent.getContext())
+                .inflate(R.layout.item_day_card, parent, false);
+        return new DayViewHolder(view);
+    }
+
+    @Override
+    public void onBindViewHolder(@NonNull DayViewHolder holder, int position) {
+        holder.bind(position);
+    }
+
+    @Override
+    public int getItemCount() {
+        return DAYS.size();
+    }
+
+    class DayViewHolder extends RecyclerView.ViewHolder {
+
+        private final TextView textViewDayTitle;
+        private final RecyclerView recyclerViewMeals;
+
+        DayViewHolder(@NonNull View itemView) {
+            super(itemView);
+            textViewDayTitle = itemView.findViewById(R.id.text_day_title);
+            recyclerViewMeals = itemView.findViewById(R.id.recycler_meals);
+
+            LinearLayoutManager layoutManager = new LinearLayoutManager(itemView.getContext());
+            // Hand the recipe rows to the shared pool when this card is recycled
+            layoutManager.setRecycleChildrenOnDetach(true);
+            recyclerViewMeals.setLayoutManager(layoutManager);
+            recyclerViewMeals.setRecycledViewPool(recipeViewPool);
+            recyclerViewMeals.setNestedScrollingEnabled(false);
+
+            itemView.findViewById(R.id.button_add_meal).setOnClickListener(v -> {
+                int position = getBindingAdapterPosition();
+                if (listener != null && position != RecyclerView.NO_POSITION) {
+                    listener.onAddRecipeClick(DAYS.get(position));
+                }
+            });
+        }
+
+        void bind(int position) {
+            textViewDayTitle.setText(DAYS.get(position));
+            if (recyclerViewMeals.getAdapter() != dayAdapters[position]) {
+                recyclerViewMeals.swapAdapter(dayAdapters[position], false);
+            }
+        }
+    }
+
+    /**
+     * Adapter for the recipes planned for one day, identified by recipe ID.
+     */
+    private class DayRecipeAdapter extends ListAdapter<String, RecipeViewHolder> {
+
+        private final String day;
+
+        DayRecipeAdapter(String day) {
+            super(new DiffUtil.ItemCallback<String>() {
+                @Override
+                public boolean areItemsTheSame(@NonNull String oldItem, @NonNull String newItem) {
+                    return oldItem.equals(newItem);
+                }
+
+                @Override
+                public boolean areContentsTheSame(@NonNull String oldItem, @NonNull String newItem) {
+                    return true;
+                }
+            });
+            this.day = day;
+        }
+
+        @NonNull
+        @Override
+        public RecipeViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+            View view = LayoutInflater.from(parent.getContext())
+                    .inflate(R.layout.item_meal_plan_recipe, parent, false);
+            return new RecipeViewHolder(view);
+        }
+
+        @Override
+        public void onBindViewHolder(@NonNull RecipeViewHolder holder, int position) {
+            holder.bind(day, getItem(position));
+        }
+
+        @Override
+        public void onBindViewHolder(@NonNull RecipeViewHolder holder, int position, @NonNull List<Object> payloads) {
+            if (!payloads.isEmpty() && payloads.stream().allMatch(p -> p == PAYLOAD_NAME)) {
+                holder.bindName();
+            } else {
+                super.onBindViewHolder(holder, position, payloads);
+            }
+        }
+    }
+
+    class RecipeViewHolder extends RecyclerView.ViewHolder {
+
+        private final TextView textViewRecipeName;
+        private String day;
+        private String recipeId;
+
+        RecipeViewHolder(@NonNull View itemView) {
+            super(itemView);
+            textViewRecipeName = itemView.findViewById(R.id.text_recipe_name);
+
+            itemView.findViewById(R.id.button_remove_meal).setOnClickListener(v -> {
+                if (listener != null && recipeId != null) {
+                    listener.onRemoveRecipeClick(day, recipeId);
+                }
+            });
+
+            itemView.setOnClickListener(v -> {
+                if (listener != null && recipeId != null) {
+                    listener.onRecipeClick(recipeId);
+                }
+            });
+        }
+
+        void bind(String day, String recipeId) {
+            this.day = day;
+            this.recipeId = recipeId;
+            bindName();
+        }
+
+        void bindName() {
+            textViewRecipeName.setText(recipeNameProvider.getRecipeName(recipeId));
+        }
+    }
+}
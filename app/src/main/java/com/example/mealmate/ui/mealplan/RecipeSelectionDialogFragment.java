@@ -5,6 +5,7 @@ import android.os.Bundle;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
+import android.widget.ImageView;
 import android.widget.TextView;
 
 import androidx.annotation.NonNull;
@@ -13,8 +14,11 @@ import androidx.fragment.app.DialogFragment;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
+import com.bumptech.glide.Glide;
 import com.example.mealmate.R;
-import com.example.mealmate.data.model.Recipe;
+import com.example.mealmate.data.model.RecipeImage;
+import com.example.mealmate.data.model.RecipeSummary;
+import com.example.mealmate.ui.image.RecipeImagePreloader;
 import com.google.android.material.card.MaterialCardView;
 import com.google.android.material.dialog.MaterialAlertDialogBuilder;
 
@@ -26,31 +30,27 @@ import java.util.List;
  */
 public class RecipeSelectionDialogFragment extends DialogFragment {
 
-    private static final String ARG_RECIPES = "recipes";
+    // Rows ahead of the visible ones whose images are preloaded
+    private static final int IMAGE_PRELOAD_COUNT = 10;
 
-    private List<Recipe> recipes;
+    private List<RecipeSummary> recipes;
     private OnRecipeSelectedListener listener;
 
     public interface OnRecipeSelectedListener {
-        void onRecipeSelected(Recipe recipe);
+        void onRecipeSelected(RecipeSummary recipe);
     }
 
-    public static RecipeSelectionDialogFragment newInstance(List<Recipe> recipes) {
+    /**
+     * Creates the dialog. Like the selection listener, the recipes are held by
+     * the instance rather than its arguments, since the catalog summaries can
+     * be large and are not parcelable.
+     */
+    public static RecipeSelectionDialogFragment newInstance(List<RecipeSummary> recipes) {
         RecipeSelectionDialogFragment fragment = new RecipeSelectionDialogFragment();
-        Bundle args = new Bundle();
-        args.putSerializable(ARG_RECIPES, new ArrayList<>(recipes));
-        fragment.setArguments(args);
+        fragment.recipes = new ArrayList<>(recipes);
         return fragment;
     }
 
-    @Override
-    public void onCreate(@Nullable Bundle savedInstanceState) {
-        super.onCreate(savedInstanceState);
-        if (getArguments() != null) {
-            recipes = (List<Recipe>) getArguments().getSerializable(ARG_RECIPES);
-        }
-    }
-
     @NonNull
     @Override
     public Dialog onCreateDialog(@Nullable Bundle savedInstanceState) {
@@ -59,6 +59,10 @@ public class RecipeSelectionDialogFragment extends DialogFragment {
         RecyclerView recyclerView = view.findViewById(R.id.recyclerViewRecipes);
         recyclerView.setLayoutManager(new LinearLayoutManager(getContext()));
         recyclerView.setAdapter(new RecipeSelectionAdapter());
+        int imageSize = getResources().getDimensionPixelSize(R.dimen.recipe_selection_image_size);
+        RecipeImagePreloader.attach(recyclerView, Glide.with(this),
+                position -> recipes != null && position < recipes.size() ? recipes.get(position) : null,
+                imageSize, imageSize, IMAGE_PRELOAD_COUNT);
 
         return new MaterialAlertDialogBuilder(requireContext())
                 .setTitle("Select Recipe")
@@ -83,7 +87,7 @@ public class RecipeSelectionDialogFragment extends DialogFragment {
 
         @Override
         public void onBindViewHolder(@NonNull ViewHolder holder, int position) {
-            Recipe recipe = recipes.get(position);
+            RecipeSummary recipe = recipes.get(position);
             holder.bind(recipe);
         }
 
@@ -94,17 +98,19 @@ public class RecipeSelectionDialogFragment extends DialogFragment {
 
         class ViewHolder extends RecyclerView.ViewHolder {
             private final MaterialCardView cardView;
+            private final ImageView imageRecipeThumbnail;
             private final TextView textRecipeName;
             private final TextView textRecipeCategory;
 
             public ViewHolder(@NonNull View itemView) {
                 super(itemView);
                 cardView = itemView.findViewById(R.id.cardRecipe);
+                imageRecipeThumbnail = itemView.findViewById(R.id.imageRecipeThumbnail);
                 textRecipeName = itemView.findViewById(R.id.textRecipeName);
                 textRecipeCategory = itemView.findViewById(R.id.textRecipeCategory);
             }
 
-            public void bind(Recipe recipe) {
+            public void bind(RecipeSummary recipe) {
                 textRecipeName.setText(recipe.getName());
 
                 String category = recipe.getCategory();
@@ -115,6 +121,17 @@ public class RecipeSelectionDialogFragment extends DialogFragment {
                     textRecipeCategory.setVisibility(View.GONE);
                 }
 
+                RecipeImage recipeImage = RecipeImage.of(recipe);
+                if (!recipeImage.isEmpty()) {
+                    RecipeImagePreloader.request(Glide.with(RecipeSelectionDialogFragment.this), recipeImage)
+                            .placeholder(R.drawable.ic_recipe_placeholder_24)
+                            .error(R.drawable.ic_recipe_placeholder_24)
+                            .into(imageRecipeThumbnail);
+                } else {
+                    Glide.with(RecipeSelectionDialogFragment.this).clear(imageRecipeThumbnail);
+                    imageRecipeThumbnail.setImageResource(R.drawable.ic_recipe_placeholder_24);
+                }
+
                 cardView.setOnClickListener(v -> {
                     if (listener != null) {
                         listener.onRecipeSelected(recipe);
@@ -75,6 +75,7 @@ public class ProfileFragment extends Fragment {
         binding.imageViewProfile.setOnClickListener(v -> openImagePicker());
         binding.buttonUpdateProfile.setOnClickListener(v -> updateProfile());
         binding.buttonChangePassword.setOnClickListener(v -> changePassword());
+        binding.buttonRecountStats.setOnClickListener(v -> profileViewModel.recountStats());
         binding.buttonLogout.setOnClickListener(v -> logout());
     }
 
@@ -154,6 +155,25 @@ public class ProfileFragment extends Fragment {
                     break;
             }
         });
+
+        profileViewModel.getRecountStatsState().observe(getViewLifecycleOwner(), resource -> {
+            if (resource == null) return;
+            switch (resource.status) {
+                case LOADING:
+                    setLoading(true);
+                    break;
+                case SUCCESS:
+                    setLoading(false);
+                    showMessage("Statistics recounted.");
+                    profileViewModel.clearRecountStatsState();
+                    break;
+                case ERROR:
+                    setLoading(false);
+                    showMessage("Recount failed: " + resource.message);
+                    profileViewModel.clearRecountStatsState();
+                    break;
+            }
+        });
     }
 
     private void setLoading(boolean isLoading) {
@@ -161,6 +181,7 @@ public class ProfileFragment extends Fragment {
         binding.buttonUpdateProfile.setEnabled(!isLoading);
         binding.buttonLogout.setEnabled(!isLoading);
         binding.buttonChangePassword.setEnabled(!isLoading);
+        binding.buttonRecountStats.setEnabled(!isLoading);
     }
 
     private void openImagePicker() {
@@ -10,19 +10,24 @@ import androidx.lifecycle.MutableLiveData;
 
 import com.example.mealmate.data.model.AuthResource;
 import com.example.mealmate.data.model.User;
+import com.example.mealmate.data.model.UserStats;
 import com.example.mealmate.data.repository.AuthRepository;
+import com.example.mealmate.data.repository.UserStatsRepository;
 import com.google.firebase.auth.FirebaseUser;
 
 public class ProfileViewModel extends AndroidViewModel {
 
     private final AuthRepository authRepository;
+    private final UserStatsRepository userStatsRepository;
     private final MutableLiveData<AuthResource<User>> userProfileData = new MutableLiveData<>();
     private final MutableLiveData<AuthResource<Void>> updateProfileState = new MutableLiveData<>();
     private final MutableLiveData<AuthResource<Void>> passwordResetState = new MutableLiveData<>();
+    private final MutableLiveData<AuthResource<UserStats>> recountStatsState = new MutableLiveData<>();
 
     public ProfileViewModel(@NonNull Application application) {
         super(application);
-        authRepository = new AuthRepository();
+        authRepository = new AuthRepository(application);
+        userStatsRepository = new UserStatsRepository();
     }
 
     public LiveData<AuthResource<User>> getUserProfileData() {
@@ -37,6 +42,10 @@ public class ProfileViewModel extends AndroidViewModel {
         return passwordResetState;
     }
 
+    public LiveData<AuthResource<UserStats>> getRecountStatsState() {
+        return recountStatsState;
+    }
+
     public void loadUserProfile() {
         FirebaseUser currentUser = authRepository.getCurrentUser();
         if (currentUser != null) {
@@ -59,6 +68,14 @@ public class ProfileViewModel extends AndroidViewModel {
         }
     }
 
+    /**
+     * Recounts the dashboard counters from the stored data, repairing counters
+     * that drifted from it.
+     */
+    public void recountStats() {
+        userStatsRepository.rebuildStats(recountStatsState);
+    }
+
     public void logout() {
         authRepository.logout();
     }
@@ -70,4 +87,8 @@ public class ProfileViewModel extends AndroidViewModel {
     public void clearPasswordResetState() {
         passwordResetState.setValue(null);
     }
+
+    public void clearRecountStatsState() {
+        recountStatsState.setValue(null);
+    }
 }
\ No newline at end of file
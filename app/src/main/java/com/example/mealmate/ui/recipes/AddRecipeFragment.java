@@ -20,6 +20,7 @@ import androidx.recyclerview.widget.LinearLayoutManager;
 
 import com.example.mealmate.data.model.Ingredient;
 import com.example.mealmate.data.model.Recipe;
+import com.example.mealmate.data.model.RecipeImage;
 import com.example.mealmate.databinding.FragmentAddRecipeBinding;
 import com.google.android.material.snackbar.Snackbar;
 
@@ -97,12 +98,6 @@ public class AddRecipeFragment extends Fragment {
         ingredientAdapter = new IngredientAdapter();
         binding.recyclerViewIngredients.setLayoutManager(new LinearLayoutManager(getContext()));
         binding.recyclerViewIngredients.setAdapter(ingredientAdapter);
-
-        // Set up ingredient removal listener
-        ingredientAdapter.setOnIngredientRemovedListener(position -> {
-            // Update visibility of remove buttons
-            ingredientAdapter.notifyDataSetChanged();
-        });
     }
 
     private void setupClickListeners() {
@@ -290,11 +285,12 @@ public class AddRecipeFragment extends Fragment {
         }
 
         // Load recipe image
-        if (recipe.getImageUrl() != null && !recipe.getImageUrl().isEmpty()) {
+        RecipeImage recipeImage = RecipeImage.of(recipe);
+        if (!recipeImage.isEmpty()) {
             binding.textViewAddPhoto.setVisibility(View.GONE);
-            // Use Glide to load the image
+            // Use Glide to load the rendition matching the preview size
             com.bumptech.glide.Glide.with(this)
-                    .load(recipe.getImageUrl())
+                    .load(recipeImage)
                     .placeholder(com.example.mealmate.R.drawable.ic_recipe_placeholder_24)
                     .error(com.example.mealmate.R.drawable.ic_recipe_placeholder_24)
                     .centerCrop()
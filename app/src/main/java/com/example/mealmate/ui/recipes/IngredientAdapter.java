@@ -7,6 +7,7 @@ import android.view.View;
 import android.view.ViewGroup;
 
 import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.DiffUtil;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.example.mealmate.R;
@@ -16,12 +17,19 @@ import com.google.android.material.textfield.TextInputEditText;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
 
 /**
  * Adapter for managing dynamic ingredients list in recipe creation.
+ * The rows are edited in place, so the adapter keeps its own list and issues
+ * positional notifications; the remove buttons are toggled with a payload so
+ * rows being edited are not rebound.
  */
 public class IngredientAdapter extends RecyclerView.Adapter<IngredientAdapter.IngredientViewHolder> {
 
+    // Change payload for rows whose remove button visibility may have changed
+    private static final Object PAYLOAD_REMOVABLE = new Object();
+
     private List<Ingredient> ingredients;
     private OnIngredientRemovedListener onIngredientRemovedListener;
 
@@ -53,6 +61,15 @@ public class IngredientAdapter extends RecyclerView.Adapter<IngredientAdapter.In
         holder.bind(ingredient, position);
     }
 
+    @Override
+    public void onBindViewHolder(@NonNull IngredientViewHolder holder, int position, @NonNull List<Object> payloads) {
+        if (!payloads.isEmpty() && payloads.stream().allMatch(p -> p == PAYLOAD_REMOVABLE)) {
+            holder.bindRemoveButton();
+        } else {
+            super.onBindViewHolder(holder, position, payloads);
+        }
+    }
+
     @Override
     public int getItemCount() {
         return ingredients.size();
@@ -64,6 +81,10 @@ public class IngredientAdapter extends RecyclerView.Adapter<IngredientAdapter.In
     public void addIngredient() {
         ingredients.add(new Ingredient("", 0, ""));
         notifyItemInserted(ingredients.size() - 1);
+        if (ingredients.size() == 2) {
+            // The first row can be removed now
+            notifyItemChanged(0, PAYLOAD_REMOVABLE);
+        }
     }
 
     /**
@@ -73,6 +94,10 @@ public class IngredientAdapter extends RecyclerView.Adapter<IngredientAdapter.In
         if (position >= 0 && position < ingredients.size() && ingredients.size() > 1) {
             ingredients.remove(position);
             notifyItemRemoved(position);
+            if (ingredients.size() == 1) {
+                // The last remaining row can no longer be removed
+                notifyItemChanged(0, PAYLOAD_REMOVABLE);
+            }
             if (onIngredientRemovedListener != null) {
                 onIngredientRemovedListener.onIngredientRemoved(position);
             }
@@ -100,17 +125,54 @@ public class IngredientAdapter extends RecyclerView.Adapter<IngredientAdapter.In
     }
 
     /**
-     * Sets the ingredients list for edit mode.
+     * Sets the ingredients list for edit mode. Rows that already show an
+     * ingredient with the same values are kept.
      */
     public void setIngredients(List<Ingredient> ingredientList) {
-        ingredients.clear();
+        List<Ingredient> newIngredients = new ArrayList<>();
         if (ingredientList != null && !ingredientList.isEmpty()) {
-            ingredients.addAll(ingredientList);
+            newIngredients.addAll(ingredientList);
         } else {
             // Add at least one empty ingredient if list is empty
-            ingredients.add(new Ingredient("", 0, ""));
+            newIngredients.add(new Ingredient("", 0, ""));
+        }
+
+        // The form holds a few dozen rows at most, so the diff is cheap enough
+        // to compute on the main thread, before the rows are edited further
+        List<Ingredient> oldIngredients = ingredients;
+        DiffUtil.DiffResult diff = DiffUtil.calculateDiff(new DiffUtil.Callback() {
+            @Override
+            public int getOldListSize() {
+                return oldIngredients.size();
+            }
+
+            @Override
+            public int getNewListSize() {
+                return newIngredients.size();
+            }
+
+            @Override
+            public boolean areItemsTheSame(int oldPosition, int newPosition) {
+                return sameValues(oldIngredients.get(oldPosition), newIngredients.get(newPosition));
+            }
+
+            @Override
+            public boolean areContentsTheSame(int oldPosition, int newPosition) {
+                return true;
+            }
+        });
+        boolean removableChanged = (oldIngredients.size() > 1) != (newIngredients.size() > 1);
+        ingredients = newIngredients;
+        diff.dispatchUpdatesTo(this);
+        if (removableChanged) {
+            notifyItemRangeChanged(0, ingredients.size(), PAYLOAD_REMOVABLE);
         }
-        notifyDataSetChanged();
+    }
+
+    private static boolean sameValues(Ingredient first, Ingredient second) {
+        return Objects.equals(first.getName(), second.getName())
+                && first.getQuantity() == second.getQuantity()
+                && Objects.equals(first.getUnit(), second.getUnit());
     }
 
     class IngredientViewHolder extends RecyclerView.ViewHolder {
@@ -197,7 +259,10 @@ public class IngredientAdapter extends RecyclerView.Adapter<IngredientAdapter.In
 
             // Set up remove button
             buttonRemove.setOnClickListener(v -> removeIngredient(getAdapterPosition()));
+            bindRemoveButton();
+        }
 
+        void bindRemoveButton() {
             // Hide remove button if it's the only ingredient
             buttonRemove.setVisibility(ingredients.size() > 1 ? View.VISIBLE : View.INVISIBLE);
         }
@@ -6,6 +6,8 @@ import android.view.ViewGroup;
 import android.widget.TextView;
 
 import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.ListAdapter;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.example.mealmate.R;
@@ -13,16 +15,32 @@ import com.example.mealmate.data.model.Ingredient;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
 
 /**
  * Simple adapter for displaying ingredients in recipe detail view (read-only).
+ * Ingredient lists are diffed on a background thread, so a revalidated recipe
+ * only rebinds the ingredients that changed.
  */
-public class IngredientDisplayAdapter extends RecyclerView.Adapter<IngredientDisplayAdapter.IngredientViewHolder> {
+public class IngredientDisplayAdapter extends ListAdapter<Ingredient, IngredientDisplayAdapter.IngredientViewHolder> {
+
+    // Ingredients have no ID; within a recipe they are identified by name
+    private static final DiffUtil.ItemCallback<Ingredient> DIFF_CALLBACK =
+            new DiffUtil.ItemCallback<Ingredient>() {
+                @Override
+                public boolean areItemsTheSame(@NonNull Ingredient oldItem, @NonNull Ingredient newItem) {
+                    return Objects.equals(oldItem.getName(), newItem.getName());
+                }
 
-    private List<Ingredient> ingredients;
+                @Override
+                public boolean areContentsTheSame(@NonNull Ingredient oldItem, @NonNull Ingredient newItem) {
+                    return oldItem.getQuantity() == newItem.getQuantity()
+                            && Objects.equals(oldItem.getUnit(), newItem.getUnit());
+                }
+            };
 
     public IngredientDisplayAdapter() {
-        this.ingredients = new ArrayList<>();
+        super(DIFF_CALLBACK);
     }
 
     @NonNull
@@ -35,24 +53,15 @@ public class IngredientDisplayAdapter extends RecyclerView.Adapter<IngredientDis
 
     @Override
     public void onBindViewHolder(@NonNull IngredientViewHolder holder, int position) {
-        Ingredient ingredient = ingredients.get(position);
+        Ingredient ingredient = getItem(position);
         holder.bind(ingredient);
     }
 
-    @Override
-    public int getItemCount() {
-        return ingredients.size();
-    }
-
     /**
      * Updates the ingredients list.
      */
     public void updateIngredients(List<Ingredient> newIngredients) {
-        this.ingredients.clear();
-        if (newIngredients != null) {
-            this.ingredients.addAll(newIngredients);
-        }
-        notifyDataSetChanged();
+        submitList(newIngredients != null ? new ArrayList<>(newIngredients) : new ArrayList<>());
     }
 
     static class IngredientViewHolder extends RecyclerView.ViewHolder {
@@ -8,35 +8,70 @@ import android.widget.ImageView;
 import android.widget.TextView;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.paging.PagingDataAdapter;
+import androidx.recyclerview.widget.DiffUtil;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.bumptech.glide.Glide;
 import com.example.mealmate.R;
-import com.example.mealmate.data.model.Recipe;
+import com.example.mealmate.data.model.RecipeImage;
+import com.example.mealmate.data.model.RecipeSummary;
+import com.example.mealmate.ui.image.RecipeImagePreloader;
 import com.google.android.material.button.MaterialButton;
 
-import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
 
 /**
- * Adapter for displaying recipes in a RecyclerView.
+ * Paging adapter for displaying recipes in a RecyclerView. Pages are diffed on
+ * a background thread, so only changed rows are rebound, and rows whose image
+ * did not change are rebound without reloading it.
  */
-public class RecipeAdapter extends RecyclerView.Adapter<RecipeAdapter.RecipeViewHolder> {
+public class RecipeAdapter extends PagingDataAdapter<RecipeSummary, RecipeAdapter.RecipeViewHolder> {
+
+    // Change payload for rows whose image is unchanged, so only the text is rebound
+    private static final Object PAYLOAD_DETAILS = new Object();
+
+    private static final DiffUtil.ItemCallback<RecipeSummary> DIFF_CALLBACK =
+            new DiffUtil.ItemCallback<RecipeSummary>() {
+                @Override
+                public boolean areItemsTheSame(@NonNull RecipeSummary oldItem, @NonNull RecipeSummary newItem) {
+                    return Objects.equals(oldItem.getRecipeId(), newItem.getRecipeId());
+                }
+
+                @Override
+                public boolean areContentsTheSame(@NonNull RecipeSummary oldItem, @NonNull RecipeSummary newItem) {
+                    return Objects.equals(oldItem.getName(), newItem.getName())
+                            && Objects.equals(oldItem.getImageUrl(), newItem.getImageUrl())
+                            && Objects.equals(oldItem.getThumbnailUrl(), newItem.getThumbnailUrl())
+                            && Objects.equals(oldItem.getPendingImageUri(), newItem.getPendingImageUri())
+                            && Objects.equals(oldItem.getPrepTime(), newItem.getPrepTime())
+                            && Objects.equals(oldItem.getCookTime(), newItem.getCookTime())
+                            && Objects.equals(oldItem.getCategory(), newItem.getCategory())
+                            && oldItem.getServings() == newItem.getServings()
+                            && oldItem.getIngredientCount() == newItem.getIngredientCount();
+                }
+
+                @Override
+                public Object getChangePayload(@NonNull RecipeSummary oldItem, @NonNull RecipeSummary newItem) {
+                    return RecipeImage.of(oldItem).equals(RecipeImage.of(newItem)) ? PAYLOAD_DETAILS : null;
+                }
+            };
 
-    private List<Recipe> recipes;
     private OnRecipeClickListener onRecipeClickListener;
     private OnRecipeMenuClickListener onRecipeMenuClickListener;
 
     public interface OnRecipeClickListener {
-        void onRecipeClick(Recipe recipe);
+        void onRecipeClick(RecipeSummary recipe);
     }
 
     public interface OnRecipeMenuClickListener {
-        void onRecipeMenuClick(Recipe recipe, View view);
+        void onRecipeMenuClick(RecipeSummary recipe, View view);
     }
 
     public RecipeAdapter() {
-        this.recipes = new ArrayList<>();
+        super(DIFF_CALLBACK);
     }
 
     public void setOnRecipeClickListener(OnRecipeClickListener listener) {
@@ -47,6 +82,15 @@ public class RecipeAdapter extends RecyclerView.Adapter<RecipeAdapter.RecipeView
         this.onRecipeMenuClickListener = listener;
     }
 
+    /**
+     * Returns the recipe at a position if it is loaded, without triggering a
+     * page load, e.g. for image preloading.
+     */
+    @Nullable
+    public RecipeSummary peekItem(int position) {
+        return position >= 0 && position < getItemCount() ? peek(position) : null;
+    }
+
     @NonNull
     @Override
     public RecipeViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
@@ -57,34 +101,19 @@ public class RecipeAdapter extends RecyclerView.Adapter<RecipeAdapter.RecipeView
 
     @Override
     public void onBindViewHolder(@NonNull RecipeViewHolder holder, int position) {
-        Recipe recipe = recipes.get(position);
-        holder.bind(recipe);
-    }
-
-    @Override
-    public int getItemCount() {
-        return recipes.size();
-    }
-
-    /**
-     * Updates the recipe list.
-     */
-    public void updateRecipes(List<Recipe> newRecipes) {
-        this.recipes.clear();
-        if (newRecipes != null) {
-            this.recipes.addAll(newRecipes);
+        RecipeSummary recipe = getItem(position);
+        if (recipe != null) {
+            holder.bind(recipe);
         }
-        notifyDataSetChanged();
     }
 
-    /**
-     * Removes a recipe from the list.
-     */
-    public void removeRecipe(Recipe recipe) {
-        int position = recipes.indexOf(recipe);
-        if (position != -1) {
-            recipes.remove(position);
-            notifyItemRemoved(position);
+    @Override
+    public void onBindViewHolder(@NonNull RecipeViewHolder holder, int position, @NonNull List<Object> payloads) {
+        RecipeSummary recipe = getItem(position);
+        if (recipe != null && !payloads.isEmpty() && payloads.stream().allMatch(p -> p == PAYLOAD_DETAILS)) {
+            holder.bindDetails(recipe);
+        } else {
+            super.onBindViewHolder(holder, position, payloads);
         }
     }
 
@@ -119,8 +148,9 @@ public class RecipeAdapter extends RecyclerView.Adapter<RecipeAdapter.RecipeView
             itemView.setOnClickListener(v -> {
                 if (onRecipeClickListener != null) {
                     int position = getAdapterPosition();
-                    if (position != RecyclerView.NO_POSITION) {
-                        onRecipeClickListener.onRecipeClick(recipes.get(position));
+                    RecipeSummary recipe = position != RecyclerView.NO_POSITION ? getItem(position) : null;
+                    if (recipe != null) {
+                        onRecipeClickListener.onRecipeClick(recipe);
                     }
                 }
             });
@@ -128,20 +158,28 @@ public class RecipeAdapter extends RecyclerView.Adapter<RecipeAdapter.RecipeView
             buttonMenuMore.setOnClickListener(v -> {
                 if (onRecipeMenuClickListener != null) {
                     int position = getAdapterPosition();
-                    if (position != RecyclerView.NO_POSITION) {
-                        onRecipeMenuClickListener.onRecipeMenuClick(recipes.get(position), v);
+                    RecipeSummary recipe = position != RecyclerView.NO_POSITION ? getItem(position) : null;
+                    if (recipe != null) {
+                        onRecipeMenuClickListener.onRecipeMenuClick(recipe, v);
                     }
                 }
             });
         }
 
-        public void bind(Recipe recipe) {
+        public void bind(RecipeSummary recipe) {
+            bindDetails(recipe);
+            bindImage(recipe);
+        }
+
+        /**
+         * Binds everything except the image.
+         */
+        void bindDetails(RecipeSummary recipe) {
             // Set recipe name
             textViewRecipeName.setText(recipe.getName());
 
             // Set ingredients count (number only)
-            int ingredientCount = recipe.getIngredients() != null ? recipe.getIngredients().size() : 0;
-            textViewIngredientsCount.setText(String.valueOf(ingredientCount));
+            textViewIngredientsCount.setText(String.valueOf(recipe.getIngredientCount()));
 
             // Set optional fields and their separators
             boolean prepTimeVisible = setNumericField(textViewPrepTime, recipe.getPrepTime());
@@ -162,16 +200,19 @@ public class RecipeAdapter extends RecyclerView.Adapter<RecipeAdapter.RecipeView
 
             // Set optional text field (category)
             setOptionalTextField(textViewCategory, recipe.getCategory());
+        }
 
+        private void bindImage(RecipeSummary recipe) {
             // Load recipe image
-            if (recipe.getImageUrl() != null && !recipe.getImageUrl().isEmpty()) {
-                Glide.with(itemView.getContext())
-                        .load(recipe.getImageUrl())
+            RecipeImage recipeImage = RecipeImage.of(recipe);
+            if (!recipeImage.isEmpty()) {
+                RecipeImagePreloader.request(Glide.with(itemView.getContext()), recipeImage)
                         .placeholder(R.drawable.ic_recipe_placeholder_24)
                         .error(R.drawable.ic_recipe_placeholder_24)
-                        .centerCrop()
                         .into(imageViewRecipe);
             } else {
+                // Cancel any load still pending from the row's previous recipe
+                Glide.with(itemView.getContext()).clear(imageViewRecipe);
                 imageViewRecipe.setImageResource(R.drawable.ic_recipe_placeholder_24);
             }
         }
@@ -17,6 +17,7 @@ import androidx.recyclerview.widget.LinearLayoutManager;
 import com.bumptech.glide.Glide;
 import com.example.mealmate.R;
 import com.example.mealmate.data.model.Recipe;
+import com.example.mealmate.data.model.RecipeImage;
 import com.example.mealmate.databinding.FragmentRecipeDetailBinding;
 import com.example.mealmate.ui.grocery.GroceryViewModel;
 import com.google.android.material.snackbar.Snackbar;
@@ -163,9 +164,10 @@ public class RecipeDetailFragment extends Fragment {
         binding.textViewHeaderTitle.setText(recipe.getName());
 
         // Load recipe image
-        if (recipe.getImageUrl() != null && !recipe.getImageUrl().isEmpty()) {
+        RecipeImage recipeImage = RecipeImage.of(recipe);
+        if (!recipeImage.isEmpty()) {
             Glide.with(this)
-                    .load(recipe.getImageUrl())
+                    .load(recipeImage)
                     .placeholder(R.drawable.ic_recipe_placeholder_24)
                     .error(R.drawable.ic_recipe_placeholder_24)
                     .centerCrop()
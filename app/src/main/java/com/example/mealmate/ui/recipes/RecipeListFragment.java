@@ -1,6 +1,7 @@
 package com.example.mealmate.ui.recipes;
 
 import android.os.Bundle;
+import android.util.Log;
 import android.view.LayoutInflater;
 import android.view.MenuItem;
 import android.view.View;
@@ -16,23 +17,33 @@ import androidx.appcompat.widget.PopupMenu;
 import androidx.fragment.app.Fragment;
 import androidx.lifecycle.ViewModelProvider;
 import androidx.navigation.Navigation;
+import androidx.paging.CombinedLoadStates;
+import androidx.paging.LoadState;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 import androidx.swiperefreshlayout.widget.SwipeRefreshLayout;
 
+import com.bumptech.glide.Glide;
 import com.example.mealmate.R;
-import com.example.mealmate.data.model.Recipe;
+import com.example.mealmate.data.model.AuthResource;
+import com.example.mealmate.data.model.RecipeSummary;
+import com.example.mealmate.ui.image.ImageCacheStats;
+import com.example.mealmate.ui.image.RecipeImagePreloader;
 import com.google.android.material.button.MaterialButton;
 import com.google.android.material.floatingactionbutton.FloatingActionButton;
 import com.google.android.material.snackbar.Snackbar;
 
-import java.util.List;
+import kotlin.Unit;
 
 /**
  * Fragment for displaying the user's recipe list with various UI states.
  */
 public class RecipeListFragment extends Fragment {
 
+    private static final String TAG = "RecipeListFragment";
+    // Rows ahead of the visible ones whose images are preloaded
+    private static final int IMAGE_PRELOAD_COUNT = 6;
+
     private RecipeViewModel recipeViewModel;
     private RecipeAdapter recipeAdapter;
 
@@ -49,6 +60,11 @@ public class RecipeListFragment extends Fragment {
     private FloatingActionButton fabAddRecipe;
     private ImageButton buttonBack;
 
+    // The first resume is covered by the initial page load
+    private boolean hasResumedBefore = false;
+    // Recipe write version the list was last loaded at
+    private long loadedRecipesVersion;
+
     @Override
     public void onCreate(@Nullable Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
@@ -71,8 +87,7 @@ public class RecipeListFragment extends Fragment {
         setupClickListeners();
         observeViewModel();
 
-        // Load recipes on first load
-        loadRecipes();
+        recipeViewModel.loadRecipeCount();
     }
 
     private void initializeViews(View view) {
@@ -93,6 +108,10 @@ public class RecipeListFragment extends Fragment {
         recipeAdapter = new RecipeAdapter();
         recyclerViewRecipes.setLayoutManager(new LinearLayoutManager(getContext()));
         recyclerViewRecipes.setAdapter(recipeAdapter);
+        RecipeImagePreloader.attach(recyclerViewRecipes, Glide.with(this), recipeAdapter::peekItem,
+                getResources().getDimensionPixelSize(R.dimen.recipe_item_image_width),
+                getResources().getDimensionPixelSize(R.dimen.recipe_item_image_height),
+                IMAGE_PRELOAD_COUNT);
 
         // Set up recipe click listener
         recipeAdapter.setOnRecipeClickListener(recipe -> {
@@ -106,20 +125,35 @@ public class RecipeListFragment extends Fragment {
 
         // Set up recipe menu click listener
         recipeAdapter.setOnRecipeMenuClickListener(this::showRecipeMenu);
+
+        // Drive the loading, empty and error states from the paging load states
+        recipeAdapter.addLoadStateListener(loadStates -> {
+            renderLoadStates(loadStates);
+            return Unit.INSTANCE;
+        });
     }
 
     private void setupClickListeners() {
         // Pull to refresh
-        swipeRefreshLayout.setOnRefreshListener(this::loadRecipes);
+        swipeRefreshLayout.setOnRefreshListener(this::refreshRecipes);
 
         // FAB and Create First Recipe button
         fabAddRecipe.setOnClickListener(v -> navigateToAddRecipe());
         buttonCreateFirstRecipe.setOnClickListener(v -> navigateToAddRecipe());
 
         // Retry button
-        buttonRetry.setOnClickListener(v -> loadRecipes());
+        buttonRetry.setOnClickListener(v -> refreshRecipes());
         buttonBack.setOnClickListener(v -> Navigation.findNavController(v).navigateUp());
 
+        // Debug builds show the image cache hit rates on a long press of the recipe count
+        if (ImageCacheStats.isDebugSurfaceEnabled(requireContext())) {
+            textViewRecipeCount.setOnLongClickListener(v -> {
+                String summary = ImageCacheStats.getInstance().summary();
+                Log.d(TAG, summary);
+                showMessage(summary);
+                return true;
+            });
+        }
     }
 
     private void navigateToAddRecipe() {
@@ -128,10 +162,18 @@ public class RecipeListFragment extends Fragment {
     }
 
     private void loadRecipes() {
-        recipeViewModel.loadUserRecipes();
+        loadedRecipesVersion = recipeViewModel.getRecipesVersion();
+        recipeAdapter.refresh();
+        recipeViewModel.loadRecipeCount();
     }
 
-    private void showRecipeMenu(Recipe recipe, View anchorView) {
+    private void refreshRecipes() {
+        // An explicit refresh always asks the server, even if it was asked recently
+        recipeViewModel.expireRecipes();
+        loadRecipes();
+    }
+
+    private void showRecipeMenu(RecipeSummary recipe, View anchorView) {
         PopupMenu popupMenu = new PopupMenu(requireContext(), anchorView);
         popupMenu.getMenuInflater().inflate(R.menu.recipe_item_menu, popupMenu.getMenu());
 
@@ -155,7 +197,7 @@ public class RecipeListFragment extends Fragment {
         popupMenu.show();
     }
 
-    private void deleteRecipe(Recipe recipe) {
+    private void deleteRecipe(RecipeSummary recipe) {
         // Show confirmation and delete
         new androidx.appcompat.app.AlertDialog.Builder(requireContext())
                 .setTitle("Delete Recipe")
@@ -168,37 +210,22 @@ public class RecipeListFragment extends Fragment {
     }
 
     private void observeViewModel() {
-        // Observe recipes list
-        recipeViewModel.getRecipesLiveData().observe(getViewLifecycleOwner(), resource -> {
-            if (swipeRefreshLayout.isRefreshing()) {
-                swipeRefreshLayout.setRefreshing(false);
+        // Observe paged recipes
+        recipeViewModel.getRecipePagingData().observe(getViewLifecycleOwner(),
+                pagingData -> recipeAdapter.submitData(getViewLifecycleOwner().getLifecycle(), pagingData));
+
+        // Reload the list when a background sync changed the cached recipes
+        recipeViewModel.getRecipesChanged().observe(getViewLifecycleOwner(), changed -> {
+            if (Boolean.TRUE.equals(changed)) {
+                recipeViewModel.clearRecipesChanged();
+                loadRecipes();
             }
+        });
 
-            if (resource != null) {
-                switch (resource.status) {
-                    case LOADING:
-                        if (recipeAdapter.getItemCount() == 0) {
-                            showLoadingState();
-                        }
-                        break;
-
-                    case SUCCESS:
-                        List<Recipe> recipes = resource.data;
-                        if (recipes != null && !recipes.isEmpty()) {
-                            showRecipesState(recipes);
-                        } else {
-                            showEmptyState();
-                        }
-                        break;
-
-                    case ERROR:
-                        if (recipeAdapter.getItemCount() == 0) {
-                            showErrorState(resource.message);
-                        } else {
-                            showMessage("Failed to refresh recipes: " + resource.message);
-                        }
-                        break;
-                }
+        // Observe the recipe total from the stats document
+        recipeViewModel.getStatsLiveData().observe(getViewLifecycleOwner(), resource -> {
+            if (resource != null && resource.status == AuthResource.Status.SUCCESS && resource.data != null) {
+                updateRecipeCount((int) resource.data.getRecipeCount());
             }
         });
 
@@ -226,6 +253,32 @@ public class RecipeListFragment extends Fragment {
         });
     }
 
+    private void renderLoadStates(CombinedLoadStates loadStates) {
+        LoadState refresh = loadStates.getRefresh();
+        boolean hasItems = recipeAdapter.getItemCount() > 0;
+
+        if (!(refresh instanceof LoadState.Loading) && swipeRefreshLayout.isRefreshing()) {
+            swipeRefreshLayout.setRefreshing(false);
+        }
+
+        if (refresh instanceof LoadState.Loading) {
+            if (!hasItems) {
+                showLoadingState();
+            }
+        } else if (refresh instanceof LoadState.Error) {
+            String message = ((LoadState.Error) refresh).getError().getMessage();
+            if (!hasItems) {
+                showErrorState(message);
+            } else {
+                showMessage("Failed to refresh recipes: " + message);
+            }
+        } else if (hasItems) {
+            showRecipesState();
+        } else if (loadStates.getAppend().getEndOfPaginationReached()) {
+            showEmptyState();
+        }
+    }
+
     private void showLoadingState() {
         layoutLoading.setVisibility(View.VISIBLE);
         layoutEmptyState.setVisibility(View.GONE);
@@ -234,15 +287,12 @@ public class RecipeListFragment extends Fragment {
         fabAddRecipe.setVisibility(View.GONE);
     }
 
-    private void showRecipesState(List<Recipe> recipes) {
+    private void showRecipesState() {
         layoutLoading.setVisibility(View.GONE);
         layoutEmptyState.setVisibility(View.GONE);
         layoutError.setVisibility(View.GONE);
         recyclerViewRecipes.setVisibility(View.VISIBLE);
         fabAddRecipe.setVisibility(View.VISIBLE);
-
-        recipeAdapter.updateRecipes(recipes);
-        updateRecipeCount(recipes.size());
     }
 
     private void showEmptyState() {
@@ -282,7 +332,15 @@ public class RecipeListFragment extends Fragment {
     @Override
     public void onResume() {
         super.onResume();
-        // Refresh recipes when returning to this fragment
-        loadRecipes();
+        // Refresh recipes when returning to this fragment if any recipe was written here
+        // meanwhile; otherwise sync in the background to pick up edits from other devices
+        if (hasResumedBefore && recipeViewModel.getRecipesVersion() != loadedRecipesVersion) {
+            loadRecipes();
+        } else if (hasResumedBefore) {
+            recipeViewModel.revalidateRecipes();
+        } else {
+            loadedRecipesVersion = recipeViewModel.getRecipesVersion();
+        }
+        hasResumedBefore = true;
     }
 }
\ No newline at end of file
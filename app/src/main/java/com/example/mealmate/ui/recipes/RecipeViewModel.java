@@ -1,36 +1,56 @@
 package com.example.mealmate.ui.recipes;
 
+import android.app.Application;
 import android.net.Uri;
 
+import androidx.annotation.NonNull;
+import androidx.lifecycle.AndroidViewModel;
 import androidx.lifecycle.LiveData;
 import androidx.lifecycle.MutableLiveData;
-import androidx.lifecycle.ViewModel;
+import androidx.lifecycle.ViewModelKt;
+import androidx.paging.PagingData;
+import androidx.paging.PagingLiveData;
 
+import com.example.mealmate.R;
 import com.example.mealmate.data.model.AuthResource;
 import com.example.mealmate.data.model.Recipe;
+import com.example.mealmate.data.model.RecipeSummary;
+import com.example.mealmate.data.model.UserStats;
 import com.example.mealmate.data.repository.RecipeRepository;
-
-import java.util.List;
+import com.example.mealmate.data.repository.UserStatsRepository;
 
 /**
  * ViewModel for managing recipe-related UI state and coordinating with
  * RecipeRepository.
  */
-public class RecipeViewModel extends ViewModel {
+public class RecipeViewModel extends AndroidViewModel {
 
     private final RecipeRepository recipeRepository;
+    private final UserStatsRepository userStatsRepository;
+
+    // Paged recipe list, cached in the ViewModel scope so it survives configuration changes
+    private final LiveData<PagingData<RecipeSummary>> recipePagingData;
 
     // LiveData for recipe operations
     private final MutableLiveData<AuthResource<Recipe>> saveRecipeResult = new MutableLiveData<>();
-    private final MutableLiveData<AuthResource<List<Recipe>>> recipesLiveData = new MutableLiveData<>();
+    private final MutableLiveData<AuthResource<UserStats>> statsLiveData = new MutableLiveData<>();
     private final MutableLiveData<AuthResource<Recipe>> recipeDetailLiveData = new MutableLiveData<>();
     private final MutableLiveData<AuthResource<Void>> deleteRecipeResult = new MutableLiveData<>();
+    private final MutableLiveData<Boolean> recipesChanged = new MutableLiveData<>();
 
     // Image URI for add recipe
     private Uri selectedImageUri;
 
-    public RecipeViewModel() {
-        this.recipeRepository = new RecipeRepository();
+    public RecipeViewModel(@NonNull Application application) {
+        super(application);
+        this.recipeRepository = new RecipeRepository(application);
+        this.userStatsRepository = new UserStatsRepository();
+
+        int pageSize = application.getResources().getInteger(R.integer.recipe_page_size);
+        int prefetchDistance = application.getResources().getInteger(R.integer.recipe_prefetch_distance);
+        this.recipePagingData = PagingLiveData.cachedIn(
+                PagingLiveData.getLiveData(recipeRepository.createRecipePager(pageSize, prefetchDistance)),
+                ViewModelKt.getViewModelScope(this));
     }
 
     /**
@@ -52,10 +72,10 @@ public class RecipeViewModel extends ViewModel {
     }
 
     /**
-     * Fetches all recipes for the current user.
+     * Fetches the user's stats, whose recipe counter is shown as the list total.
      */
-    public void loadUserRecipes() {
-        recipeRepository.getUserRecipes(recipesLiveData);
+    public void loadRecipeCount() {
+        userStatsRepository.getUserStats(statsLiveData);
     }
 
     /**
@@ -67,13 +87,37 @@ public class RecipeViewModel extends ViewModel {
         recipeRepository.getRecipeById(recipeId, recipeDetailLiveData);
     }
 
+    /**
+     * Gets a number that changes whenever a recipe is saved or deleted, used to
+     * skip reloading the list when nothing was written.
+     */
+    public long getRecipesVersion() {
+        return recipeRepository.getRecipesVersion();
+    }
+
+    /**
+     * Syncs the recipes in the background; {@link #getRecipesChanged()} turns
+     * true if that changed any of them, e.g. after edits on another device.
+     */
+    public void revalidateRecipes() {
+        recipeRepository.revalidateRecipes(recipesChanged);
+    }
+
+    /**
+     * Makes the next list load sync with the backend even if it synced
+     * recently, e.g. on pull to refresh.
+     */
+    public void expireRecipes() {
+        recipeRepository.expireRecipeSync();
+    }
+
     /**
      * Deletes a recipe.
      *
      * @param recipe The recipe to delete
      */
-    public void deleteRecipe(Recipe recipe) {
-        recipeRepository.deleteRecipe(recipe, deleteRecipeResult);
+    public void deleteRecipe(RecipeSummary recipe) {
+        recipeRepository.deleteRecipe(recipe.getRecipeId(), recipe.getImageUrl(), deleteRecipeResult);
     }
 
     /**
@@ -106,8 +150,12 @@ public class RecipeViewModel extends ViewModel {
         return saveRecipeResult;
     }
 
-    public LiveData<AuthResource<List<Recipe>>> getRecipesLiveData() {
-        return recipesLiveData;
+    public LiveData<PagingData<RecipeSummary>> getRecipePagingData() {
+        return recipePagingData;
+    }
+
+    public LiveData<AuthResource<UserStats>> getStatsLiveData() {
+        return statsLiveData;
     }
 
     public LiveData<AuthResource<Recipe>> getRecipeDetailLiveData() {
@@ -118,6 +166,10 @@ public class RecipeViewModel extends ViewModel {
         return deleteRecipeResult;
     }
 
+    public LiveData<Boolean> getRecipesChanged() {
+        return recipesChanged;
+    }
+
     /**
      * Clears the save recipe result.
      */
@@ -132,6 +184,13 @@ public class RecipeViewModel extends ViewModel {
         deleteRecipeResult.setValue(null);
     }
 
+    /**
+     * Clears the recipes changed flag.
+     */
+    public void clearRecipesChanged() {
+        recipesChanged.setValue(null);
+    }
+
     /**
      * Clears the recipe detail data.
      */
@@ -0,0 +1,110 @@
+package com.example.mealmate.data.repository;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for {@link MealPlanPatch}: the reduction of edits to their
+ * net effect and the field paths and values sent with arrayUnion/arrayRemove.
+ */
+public class MealPlanPatchTest {
+
+    @Test
+    public void newPatch_isEmpty() {
+        MealPlanPatch patch = new MealPlanPatch();
+
+        assertTrue(patch.isEmpty());
+        assertTrue(patch.getAdditions().isEmpty());
+        assertTrue(patch.getRemovals().isEmpty());
+    }
+
+    @Test
+    public void add_isSentAsAdditionOfItsDay() {
+        MealPlanPatch patch = new MealPlanPatch()
+                .add("Monday", "r1")
+                .add("Monday", "r2")
+                .add("Friday", "r3");
+
+        Map<String, List<String>> expected = new HashMap<>();
+        expected.put("days.Monday", Arrays.asList("r1", "r2"));
+        expected.put("days.Friday", Collections.singletonList("r3"));
+        assertFalse(patch.isEmpty());
+        assertEquals(expected, patch.getAdditions());
+        assertTrue(patch.getRemovals().isEmpty());
+    }
+
+    @Test
+    public void remove_isSentAsRemovalOfItsDay() {
+        MealPlanPatch patch = new MealPlanPatch().remove("Tuesday", "r1");
+
+        assertTrue(patch.getAdditions().isEmpty());
+        assertEquals(Collections.singletonMap("days.Tuesday", Collections.singletonList("r1")),
+                patch.getRemovals());
+    }
+
+    @Test
+    public void addThenRemove_onlyRemoves() {
+        MealPlanPatch patch = new MealPlanPatch()
+                .add("Monday", "r1")
+                .remove("Monday", "r1");
+
+        assertTrue(patch.getAdditions().isEmpty());
+        assertEquals(Collections.singletonMap("days.Monday", Collections.singletonList("r1")),
+                patch.getRemovals());
+    }
+
+    @Test
+    public void removeThenAdd_onlyAdds() {
+        MealPlanPatch patch = new MealPlanPatch()
+                .remove("Monday", "r1")
+                .add("Monday", "r1");
+
+        assertEquals(Collections.singletonMap("days.Monday", Collections.singletonList("r1")),
+                patch.getAdditions());
+        assertTrue(patch.getRemovals().isEmpty());
+    }
+
+    @Test
+    public void repeatedEdits_areSentOnce() {
+        MealPlanPatch patch = new MealPlanPatch()
+                .add("Monday", "r1")
+                .add("Monday", "r1")
+                .remove("Monday", "r1")
+                .add("Monday", "r1");
+
+        assertEquals(Collections.singletonMap("days.Monday", Collections.singletonList("r1")),
+                patch.getAdditions());
+        assertTrue(patch.getRemovals().isEmpty());
+    }
+
+    @Test
+    public void sameRecipeOnOtherDay_isIndependent() {
+        MealPlanPatch patch = new MealPlanPatch()
+                .add("Monday", "r1")
+                .remove("Tuesday", "r1");
+
+        assertEquals(Collections.singletonMap("days.Monday", Collections.singletonList("r1")),
+                patch.getAdditions());
+        assertEquals(Collections.singletonMap("days.Tuesday", Collections.singletonList("r1")),
+                patch.getRemovals());
+    }
+
+    @Test
+    public void dayWithAdditionsAndRemovals_isInBothPayloads() {
+        MealPlanPatch patch = new MealPlanPatch()
+                .add("Monday", "r1")
+                .remove("Monday", "r2");
+
+        assertEquals(Collections.singletonMap("days.Monday", Collections.singletonList("r1")),
+                patch.getAdditions());
+        assertEquals(Collections.singletonMap("days.Monday", Collections.singletonList("r2")),
+                patch.getRemovals());
+    }
+}
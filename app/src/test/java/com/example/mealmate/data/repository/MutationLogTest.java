@@ -0,0 +1,152 @@
+package com.example.mealmate.data.repository;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for {@link MutationLog}: write results arriving in any order
+ * and pending mutations being re-applied on top of a new server state.
+ */
+public class MutationLogTest {
+
+    @Test
+    public void apply_updatesStateBeforeTheWriteCompletes() {
+        MutationLog<List<String>> log = new MutationLog<>(Collections.singletonList("a"));
+
+        long id = log.apply(add("b"));
+
+        assertEquals(Arrays.asList("a", "b"), log.getState());
+        assertEquals(Collections.singletonList(id), log.getPendingIds());
+        assertTrue(log.hasUnsyncedMutations());
+    }
+
+    @Test
+    public void confirmOutOfOrder_keepsAllMutationsApplied() {
+        MutationLog<List<String>> log = new MutationLog<>(Collections.emptyList());
+        long first = log.apply(add("a"));
+        long second = log.apply(add("b"));
+        long third = log.apply(add("c"));
+
+        log.confirm(third);
+        log.confirm(first);
+
+        assertEquals(Arrays.asList("a", "b", "c"), log.getState());
+        assertEquals(Collections.singletonList(second), log.getPendingIds());
+    }
+
+    @Test
+    public void failOutOfOrder_rollsBackOnlyTheFailedMutation() {
+        MutationLog<List<String>> log = new MutationLog<>(Collections.singletonList("x"));
+        long first = log.apply(add("a"));
+        long second = log.apply(remove("x"));
+        long third = log.apply(add("c"));
+
+        log.fail(second);
+
+        assertEquals(Arrays.asList("x", "a", "c"), log.getState());
+        assertEquals(Arrays.asList(first, third), log.getPendingIds());
+    }
+
+    @Test
+    public void failAfterLaterConfirm_keepsTheConfirmedMutation() {
+        MutationLog<List<String>> log = new MutationLog<>(Collections.emptyList());
+        long first = log.apply(add("a"));
+        long second = log.apply(add("b"));
+
+        log.confirm(second);
+        log.fail(first);
+
+        assertEquals(Collections.singletonList("b"), log.getState());
+        assertTrue(log.getPendingIds().isEmpty());
+        assertTrue(log.hasUnsyncedMutations());
+    }
+
+    @Test
+    public void failOfUnknownMutation_changesNothing() {
+        MutationLog<List<String>> log = new MutationLog<>(Collections.emptyList());
+        long id = log.apply(add("a"));
+
+        log.fail(id);
+        log.fail(id);
+        log.confirm(id);
+
+        assertEquals(Collections.emptyList(), log.getState());
+        assertFalse(log.hasUnsyncedMutations());
+    }
+
+    @Test
+    public void rebase_reappliesPendingMutationsOnTheNewSnapshot() {
+        MutationLog<List<String>> log = new MutationLog<>(Collections.singletonList("a"));
+        long pending = log.apply(add("b"));
+
+        // Another device added "z" in the meantime
+        log.rebase(Arrays.asList("a", "z"));
+
+        assertEquals(Arrays.asList("a", "z", "b"), log.getState());
+        assertEquals(Collections.singletonList(pending), log.getPendingIds());
+    }
+
+    @Test
+    public void rebase_dropsConfirmedMutations() {
+        MutationLog<List<String>> log = new MutationLog<>(Collections.emptyList());
+        long confirmed = log.apply(add("a"));
+        long pending = log.apply(add("b"));
+        log.confirm(confirmed);
+
+        // The snapshot contains the confirmed write but not the pending one
+        log.rebase(Collections.singletonList("a"));
+
+        assertEquals(Arrays.asList("a", "b"), log.getState());
+        assertEquals(Collections.singletonList(pending), log.getPendingIds());
+
+        // The confirmed mutation is no longer re-applied on later snapshots
+        log.rebase(Collections.emptyList());
+        assertEquals(Collections.singletonList("b"), log.getState());
+    }
+
+    @Test
+    public void failAfterRebase_rollsBackOnTopOfTheNewSnapshot() {
+        MutationLog<List<String>> log = new MutationLog<>(Collections.singletonList("a"));
+        long failed = log.apply(remove("a"));
+        log.apply(add("b"));
+
+        log.rebase(Arrays.asList("a", "z"));
+        log.fail(failed);
+
+        assertEquals(Arrays.asList("a", "z", "b"), log.getState());
+    }
+
+    @Test
+    public void reset_discardsAllMutations() {
+        MutationLog<List<String>> log = new MutationLog<>(Collections.emptyList());
+        log.apply(add("a"));
+
+        log.reset(Collections.singletonList("z"));
+
+        assertEquals(Collections.singletonList("z"), log.getState());
+        assertTrue(log.getPendingIds().isEmpty());
+        assertFalse(log.hasUnsyncedMutations());
+    }
+
+    private static MutationLog.Mutation<List<String>> add(String item) {
+        return state -> {
+            List<String> updated = new ArrayList<>(state);
+            updated.add(item);
+            return updated;
+        };
+    }
+
+    private static MutationLog.Mutation<List<String>> remove(String item) {
+        return state -> {
+            List<String> updated = new ArrayList<>(state);
+            updated.remove(item);
+            return updated;
+        };
+    }
+}
@@ -0,0 +1,158 @@
+package com.example.mealmate.data.repository;
+
+import com.example.mealmate.data.model.GroceryItem;
+import com.example.mealmate.data.model.Ingredient;
+import com.example.mealmate.data.model.MealPlan;
+import com.google.firebase.Timestamp;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for {@link WeeklyGroceryList}: counting the planned recipes
+ * of a week, signing them with their versions and consolidating their
+ * ingredients into grocery items.
+ */
+public class WeeklyGroceryListTest {
+
+    private static final double DELTA = 1e-9;
+
+    @Test
+    public void countPlannedRecipes_withoutPlanOrDays_isEmpty() {
+        assertTrue(WeeklyGroceryList.countPlannedRecipes(null).isEmpty());
+        assertTrue(WeeklyGroceryList.countPlannedRecipes(new MealPlan()).isEmpty());
+    }
+
+    @Test
+    public void countPlannedRecipes_countsEachPlannedDay() {
+        Map<String, List<String>> days = new LinkedHashMap<>();
+        days.put("Monday", Arrays.asList("r1", "r2"));
+        days.put("Tuesday", Collections.singletonList("r1"));
+        days.put("Wednesday", null);
+        MealPlan mealPlan = new MealPlan();
+        mealPlan.setDays(days);
+
+        Map<String, Integer> expected = new HashMap<>();
+        expected.put("r1", 2);
+        expected.put("r2", 1);
+        assertEquals(expected, WeeklyGroceryList.countPlannedRecipes(mealPlan));
+    }
+
+    @Test
+    public void signature_ignoresPlanOrder() {
+        Map<String, Integer> first = new LinkedHashMap<>();
+        first.put("r1", 2);
+        first.put("r2", 1);
+        Map<String, Integer> second = new LinkedHashMap<>();
+        second.put("r2", 1);
+        second.put("r1", 2);
+        Map<String, Integer> other = new LinkedHashMap<>();
+        other.put("r1", 1);
+        other.put("r2", 1);
+        Map<String, Timestamp> versions = new HashMap<>();
+        versions.put("r1", new Timestamp(100, 0));
+        versions.put("r2", new Timestamp(200, 0));
+
+        assertEquals(WeeklyGroceryList.signature(first, versions), WeeklyGroceryList.signature(second, versions));
+        assertNotEquals(WeeklyGroceryList.signature(first, versions), WeeklyGroceryList.signature(other, versions));
+    }
+
+    @Test
+    public void signature_changesWhenAPlannedRecipeIsWritten() {
+        Map<String, Integer> plannedCounts = Collections.singletonMap("r1", 2);
+
+        String before = WeeklyGroceryList.signature(plannedCounts,
+                Collections.singletonMap("r1", new Timestamp(100, 0)));
+        String after = WeeklyGroceryList.signature(plannedCounts,
+                Collections.singletonMap("r1", new Timestamp(100, 1)));
+
+        assertNotEquals(before, after);
+    }
+
+    @Test
+    public void signature_ignoresVersionsOfUnplannedRecipes() {
+        Map<String, Integer> plannedCounts = Collections.singletonMap("r1", 1);
+        Map<String, Timestamp> versions = new HashMap<>();
+        versions.put("r1", new Timestamp(100, 0));
+        Map<String, Timestamp> otherVersions = new HashMap<>(versions);
+        otherVersions.put("r2", new Timestamp(300, 0));
+
+        assertEquals(WeeklyGroceryList.signature(plannedCounts, versions),
+                WeeklyGroceryList.signature(plannedCounts, otherVersions));
+    }
+
+    @Test
+    public void signature_distinguishesUnknownVersions() {
+        Map<String, Integer> plannedCounts = Collections.singletonMap("r1", 1);
+
+        assertNotEquals(WeeklyGroceryList.signature(plannedCounts, Collections.<String, Timestamp>emptyMap()),
+                WeeklyGroceryList.signature(plannedCounts, Collections.singletonMap("r1", new Timestamp(100, 0))));
+    }
+
+    @Test
+    public void build_multipliesQuantitiesByPlannedDays() {
+        List<GroceryItem> items = WeeklyGroceryList.build(
+                Collections.singletonMap("r1", 3),
+                Collections.singletonMap("r1", Collections.singletonList(new Ingredient("Rice", 200, "g"))));
+
+        assertEquals(1, items.size());
+        assertEquals("Rice", items.get(0).getName());
+        assertEquals(600, items.get(0).getQuantity(), DELTA);
+        assertEquals("g", items.get(0).getUnit());
+    }
+
+    @Test
+    public void build_consolidatesSameNameAndUnitAcrossRecipes() {
+        Map<String, Integer> plannedCounts = new LinkedHashMap<>();
+        plannedCounts.put("r1", 1);
+        plannedCounts.put("r2", 2);
+        Map<String, List<Ingredient>> ingredientsByRecipe = new HashMap<>();
+        ingredientsByRecipe.put("r1", Collections.singletonList(new Ingredient("Milk", 1, "cup")));
+        ingredientsByRecipe.put("r2", Collections.singletonList(new Ingredient(" milk ", 0.5, "Cup")));
+
+        List<GroceryItem> items = WeeklyGroceryList.build(plannedCounts, ingredientsByRecipe);
+
+        assertEquals(1, items.size());
+        assertEquals("Milk", items.get(0).getName());
+        assertEquals(2, items.get(0).getQuantity(), DELTA);
+        assertEquals(GroceryRepository.itemIdFor("Milk", "cup"), items.get(0).getItemId());
+        assertEquals("Dairy", items.get(0).getCategory());
+    }
+
+    @Test
+    public void build_keepsDifferentUnitsApart() {
+        List<GroceryItem> items = WeeklyGroceryList.build(
+                Collections.singletonMap("r1", 1),
+                Collections.singletonMap("r1", Arrays.asList(
+                        new Ingredient("Flour", 500, "g"),
+                        new Ingredient("Flour", 2, "cup"))));
+
+        assertEquals(2, items.size());
+        assertNotEquals(items.get(0).getItemId(), items.get(1).getItemId());
+    }
+
+    @Test
+    public void build_skipsMissingRecipesAndBlankNames() {
+        Map<String, Integer> plannedCounts = new LinkedHashMap<>();
+        plannedCounts.put("r1", 1);
+        plannedCounts.put("deleted", 1);
+        Map<String, List<Ingredient>> ingredientsByRecipe = Collections.singletonMap("r1", Arrays.asList(
+                new Ingredient("  ", 1, "g"),
+                new Ingredient(null, 1, "g"),
+                new Ingredient("Chicken", 1, "kg")));
+
+        List<GroceryItem> items = WeeklyGroceryList.build(plannedCounts, ingredientsByRecipe);
+
+        assertEquals(1, items.size());
+        assertEquals("Chicken", items.get(0).getName());
+        assertEquals("Meat & Seafood", items.get(0).getCategory());
+    }
+}